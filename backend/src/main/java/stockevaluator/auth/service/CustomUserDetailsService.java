@@ -5,6 +5,7 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import stockevaluator.user.entity.Role;
 import stockevaluator.user.entity.User;
 import stockevaluator.user.repository.UserRepository;
 
@@ -13,7 +14,9 @@ import stockevaluator.user.repository.UserRepository;
  * authentication.
  *
  * <p>This class is responsible for retrieving user details from the database and converting them
- * into a format suitable for Spring Security.
+ * into a format suitable for Spring Security. The role of the user is granted as a
+ * {@code ROLE_} authority, so it can be checked with {@code hasRole} and ends up in the roles claim
+ * of the tokens issued for the user.
  */
 @Service
 @RequiredArgsConstructor
@@ -26,7 +29,8 @@ public class CustomUserDetailsService implements UserDetailsService {
     User user = userRepository.findByEmail(username)
         .orElseThrow(() -> new UsernameNotFoundException("User " + username + " not found"));
 
+    Role role = user.getRole() != null ? user.getRole() : Role.USER;
     return org.springframework.security.core.userdetails.User.builder().username(user.getEmail())
-        .password(user.getPassword()).build();
+        .password(user.getPassword()).roles(role.name()).build();
   }
 }
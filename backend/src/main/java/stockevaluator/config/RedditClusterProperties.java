@@ -0,0 +1,25 @@
+package stockevaluator.config;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration properties for running the Reddit ingester on several instances.
+ *
+ * <p>This class binds properties prefixed with "reddit.cluster". Every instance registers as a
+ * node and renews its heartbeat and leases every heartbeat interval. A lease that was not renewed
+ * for the lease TTL is taken over by another node, so the TTL bounds how long the work of a dead
+ * node stays idle. The node id defaults to the host name with a random suffix.</p>
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "reddit.cluster")
+public class RedditClusterProperties {
+
+  private boolean enabled = true;
+  private String nodeId;
+  private Duration heartbeatInterval = Duration.ofSeconds(15);
+  private Duration leaseTtl = Duration.ofSeconds(60);
+}
@@ -2,19 +2,34 @@ package stockevaluator.config;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.hc.client5.http.classic.methods.HttpPost;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
-import org.apache.hc.client5.http.impl.classic.HttpClients;
 import org.apache.hc.core5.http.io.entity.StringEntity;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.apache.hc.core5.http.io.entity.EntityUtils;
 import jakarta.annotation.PostConstruct; // Updated import for Spring Boot 3
-
+import jakarta.annotation.PreDestroy;
+import io.micrometer.core.instrument.MeterRegistry;
+import stockevaluator.config.RedditCredentialProperties.CredentialSet;
+import stockevaluator.scraper.client.RedditCredential;
+import stockevaluator.scraper.client.RedditRateLimiter;
+import stockevaluator.scraper.client.RedditToken;
+import stockevaluator.scraper.client.RedditTokenHolder;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
+@Slf4j
 @Configuration
 @EnableScheduling
 public class RedditConfig {
@@ -31,65 +46,124 @@ public class RedditConfig {
     @Value("${reddit.password}")
     private String password;
 
-    private String accessToken;
+    @Value("${reddit.token.refresh-margin-seconds:300}")
+    private long refreshMarginSeconds;
+
+    @Autowired
+    private CloseableHttpClient redditHttpClient;
+
+    @Autowired
+    private RedditCredentialProperties credentialProperties;
+
+    @Autowired
+    private RedditRateLimitProperties rateLimitProperties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final List<RedditCredential> credentials = new ArrayList<>();
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     @PostConstruct
     public void init() {
+        for (CredentialSet set : credentialSets()) {
+            String name = set.getName() != null ? set.getName() : set.getUsername();
+            RedditTokenHolder tokenHolder = new RedditTokenHolder(name, () -> fetchAccessToken(set),
+                Duration.ofSeconds(refreshMarginSeconds));
+            credentials.add(new RedditCredential(name, tokenHolder,
+                new RedditRateLimiter(name, rateLimitProperties, meterRegistry), meterRegistry));
+        }
+        if (credentials.isEmpty()) {
+            log.warn("Reddit API credentials are not configured. Skipping token refresh.");
+            return;
+        }
+        // Fetch the first tokens of all credentials concurrently
+        CompletableFuture<?>[] refreshes = credentials.stream()
+            .map(credential -> credential.getTokenHolder().refresh())
+            .toArray(CompletableFuture[]::new);
         try {
-            refreshAccessToken();
+            CompletableFuture.allOf(refreshes).join();
         } catch (Exception e) {
-            System.err.println("Warning: Could not get Reddit access token on startup: " + e.getMessage());
+            log.warn("Could not get every Reddit access token on startup: {}", e.getMessage());
         }
+        log.info("Configured {} Reddit credentials", credentials.size());
     }
 
-    public String getAccessToken() {
-        if (accessToken == null) {
-            refreshAccessToken(); // Fallback if somehow null
-        }
-        return accessToken;
+    @PreDestroy
+    public void shutdown() {
+        credentials.forEach(credential -> credential.getTokenHolder().shutdown());
     }
 
-    @Scheduled(fixedRate = 3600000)
-    public void refreshAccessToken() {
-        if (clientId == null || clientId.isEmpty() || clientSecret == null || clientSecret.isEmpty()) {
-            System.err.println("Warning: Reddit API credentials are not configured. Skipping token refresh.");
-            return;
-        }
-
-        try (CloseableHttpClient client = HttpClients.createDefault()) {
-            HttpPost request = new HttpPost("https://www.reddit.com/api/v1/access_token");
-
-            String credentials = Base64.getEncoder().encodeToString((clientId + ":" + clientSecret).getBytes());
-            request.setHeader("Authorization", "Basic " + credentials);
-            request.setHeader("Content-Type", "application/x-www-form-urlencoded");
-            request.setHeader("User-Agent", "StockEvaluator/1.0 (by /u/BigCucumber2565)");
-            request.setHeader("Accept", "application/json");
-            StringEntity entity = new StringEntity("grant_type=password&username=" + username + "&password=" + password);
-            request.setEntity(entity);
-
-            accessToken = client.execute(request, response -> {
-                String json = EntityUtils.toString(response.getEntity());
-                System.out.println("Reddit API Response: " + json);
-                JsonNode root = objectMapper.readTree(json);
+    /**
+     * Returns the pool of configured Reddit identities. Each one has its own access token and
+     * rate limit budget.
+     */
+    public List<RedditCredential> getCredentials() {
+        return Collections.unmodifiableList(credentials);
+    }
 
-                if (root.has("error")) {
-                    throw new RuntimeException("Reddit API Error: " + root.get("error").asText() +
-                            " - " + root.path("error_description").asText());
-                }
+    // Refreshes ahead of the expiry Reddit reported, so that idle periods never leave an expired token
+    @Scheduled(fixedDelay = 60000)
+    public void refreshAccessToken() {
+        credentials.forEach(credential -> credential.getTokenHolder().refreshIfExpiring());
+    }
 
-                JsonNode accessTokenNode = root.get("access_token");
-                if (accessTokenNode == null) {
-                    throw new RuntimeException("No access_token in response: " + json);
-                }
+    // The credential list, or the single legacy identity when no list is configured
+    private List<CredentialSet> credentialSets() {
+        List<CredentialSet> sets = new ArrayList<>();
+        for (CredentialSet set : credentialProperties.getCredentials()) {
+            if (isComplete(set)) {
+                sets.add(set);
+            } else {
+                log.warn("Ignoring incomplete Reddit credential {}", set.getName());
+            }
+        }
+        if (sets.isEmpty()) {
+            CredentialSet legacy = new CredentialSet();
+            legacy.setName("default");
+            legacy.setClientId(clientId);
+            legacy.setClientSecret(clientSecret);
+            legacy.setUsername(username);
+            legacy.setPassword(password);
+            if (isComplete(legacy)) {
+                sets.add(legacy);
+            }
+        }
+        return sets;
+    }
 
-                return accessTokenNode.asText();
-            });
+    private static boolean isComplete(CredentialSet set) {
+        return set.getClientId() != null && !set.getClientId().isEmpty()
+            && set.getClientSecret() != null && !set.getClientSecret().isEmpty();
+    }
 
-            System.out.println("Successfully obtained Reddit access token");
-        } catch (Exception e) {
-            System.err.println("Failed to refresh Reddit access token: " + e.getMessage());
-            throw new RuntimeException("Error refreshing Reddit access token", e);
-        }
+    private RedditToken fetchAccessToken(CredentialSet set) throws Exception {
+        HttpPost request = new HttpPost("https://www.reddit.com/api/v1/access_token");
+
+        String credentials = Base64.getEncoder().encodeToString((set.getClientId() + ":" + set.getClientSecret()).getBytes());
+        request.setHeader("Authorization", "Basic " + credentials);
+        request.setHeader("Content-Type", "application/x-www-form-urlencoded");
+        request.setHeader("User-Agent", "StockEvaluator/1.0 (by /u/" + set.getUsername() + ")");
+        request.setHeader("Accept", "application/json");
+        StringEntity entity = new StringEntity("grant_type=password&username=" + set.getUsername() + "&password=" + set.getPassword());
+        request.setEntity(entity);
+
+        return redditHttpClient.execute(request, response -> {
+            String json = EntityUtils.toString(response.getEntity());
+            JsonNode root = objectMapper.readTree(json);
+
+            if (root.has("error")) {
+                throw new RuntimeException("Reddit API Error: " + root.get("error").asText() +
+                        " - " + root.path("error_description").asText());
+            }
+
+            JsonNode accessTokenNode = root.get("access_token");
+            if (accessTokenNode == null) {
+                throw new RuntimeException("No access_token in response (HTTP " + response.getCode() + ")");
+            }
+
+            long expiresIn = root.path("expires_in").asLong(3600);
+            return new RedditToken(accessTokenNode.asText(), Instant.now().plusSeconds(expiresIn));
+        });
     }
 }
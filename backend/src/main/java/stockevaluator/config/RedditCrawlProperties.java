@@ -0,0 +1,65 @@
+package stockevaluator.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration properties for the subreddits crawled by the Reddit ingester.
+ *
+ * <p>This class binds properties prefixed with "reddit.crawl". Every crawl plan names a subreddit,
+ * the listings to read from it, how many pages of each listing to follow through the "after"
+ * cursor and how often the plan runs, and whether its subreddit-wide comment stream is polled as
+ * well. Adding a subreddit or a listing only needs a new plan entry.</p>
+ *
+ * <p>With adaptive scheduling enabled, the poll interval of a plan is only its starting point.
+ * After every cycle the interval is chosen so that about the target number of new items arrive
+ * per cycle, based on a smoothed rate of the new items seen so far. While the US market is open
+ * the plan never polls slower than its configured interval; outside market hours and on weekends
+ * the interval is stretched by the off-hours factor, and a failed cycle backs it off by the failure
+ * factor. The result always stays within the plan's minimum and maximum interval. Exchange
+ * holidays are treated as trading days.</p>
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "reddit.crawl")
+public class RedditCrawlProperties {
+
+  private List<CrawlPlan> plans = new ArrayList<>();
+  private Adaptive adaptive = new Adaptive();
+
+  /**
+   * A subreddit crawled on its own schedule.
+   */
+  @Data
+  public static class CrawlPlan {
+
+    private String subreddit;
+    private List<String> listings = new ArrayList<>(List.of("hot"));
+    private int pageDepth = 1;
+    private int pageSize = 100;
+    private Duration pollInterval = Duration.ofMinutes(5);
+    private Duration minPollInterval = Duration.ofMinutes(1);
+    private Duration maxPollInterval = Duration.ofMinutes(30);
+    private boolean commentStream;
+  }
+
+  /**
+   * How the poll intervals of the crawl plans adapt to activity and market hours.
+   */
+  @Data
+  public static class Adaptive {
+
+    private boolean enabled = true;
+    private double smoothing = 0.3;
+    private int targetNewItems = 200;
+    private double offHoursFactor = 3.0;
+    private double failureFactor = 2.0;
+    private String marketZone = "America/New_York";
+    private String marketOpen = "09:30";
+    private String marketClose = "16:00";
+  }
+}
@@ -0,0 +1,36 @@
+package stockevaluator.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration properties for the pool of Reddit OAuth identities.
+ *
+ * <p>This class binds the list "reddit.credentials". Every entry is a separate Reddit script
+ * application with its own account, and therefore its own rate limit quota. When the list is
+ * empty, the single identity configured through "reddit.client.*", "reddit.username" and
+ * "reddit.password" is used.</p>
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "reddit")
+public class RedditCredentialProperties {
+
+  private List<CredentialSet> credentials = new ArrayList<>();
+
+  /**
+   * A Reddit application and the account it authenticates as.
+   */
+  @Data
+  public static class CredentialSet {
+
+    private String name;
+    private String clientId;
+    private String clientSecret;
+    private String username;
+    private String password;
+  }
+}
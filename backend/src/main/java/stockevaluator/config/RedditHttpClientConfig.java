@@ -0,0 +1,112 @@
+package stockevaluator.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.time.Duration;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration class for the pooled HTTP client shared by all Reddit API calls.
+ *
+ * <p>A single {@link CloseableHttpClient} backed by a {@link PoolingHttpClientConnectionManager}
+ * is created so that connections to Reddit are kept alive and reused between requests instead of
+ * paying a TCP and TLS handshake per call. Response compression (gzip/deflate) is negotiated by
+ * the client by default. Pool statistics are published as gauges and can be inspected through the
+ * actuator metrics endpoint.</p>
+ */
+@Configuration
+public class RedditHttpClientConfig {
+
+  /**
+   * Creates the pooled connection manager for Reddit traffic.
+   *
+   * @param properties the HTTP client properties
+   * @return the connection manager
+   */
+  @Bean
+  public PoolingHttpClientConnectionManager redditConnectionManager(
+      RedditHttpProperties properties) {
+    return PoolingHttpClientConnectionManagerBuilder.create()
+        .setMaxConnTotal(properties.getMaxTotal())
+        .setMaxConnPerRoute(properties.getMaxPerRoute())
+        .setDefaultConnectionConfig(ConnectionConfig.custom()
+            .setConnectTimeout(timeout(properties.getConnectTimeout()))
+            .setSocketTimeout(timeout(properties.getSocketTimeout()))
+            .setTimeToLive(timeValue(properties.getTimeToLive()))
+            .setValidateAfterInactivity(timeValue(properties.getValidateAfterInactivity()))
+            .build())
+        .build();
+  }
+
+  /**
+   * Creates the shared HTTP client used for every Reddit request.
+   *
+   * <p>The client is closed together with the application context, which also shuts down the
+   * connection manager.</p>
+   *
+   * @param connectionManager the pooled connection manager
+   * @param properties        the HTTP client properties
+   * @return the shared HTTP client
+   */
+  @Bean
+  public CloseableHttpClient redditHttpClient(
+      PoolingHttpClientConnectionManager connectionManager, RedditHttpProperties properties) {
+    TimeValue keepAlive = timeValue(properties.getKeepAlive());
+    return HttpClients.custom()
+        .setConnectionManager(connectionManager)
+        .setDefaultRequestConfig(RequestConfig.custom()
+            .setConnectionRequestTimeout(timeout(properties.getConnectionRequestTimeout()))
+            .setResponseTimeout(timeout(properties.getSocketTimeout()))
+            .build())
+        .setKeepAliveStrategy((response, context) -> keepAlive)
+        .setUserAgent(properties.getUserAgent())
+        .evictExpiredConnections()
+        .evictIdleConnections(timeValue(properties.getIdleEviction()))
+        .build();
+  }
+
+  /**
+   * Publishes the connection pool statistics as gauges.
+   *
+   * @param connectionManager the pooled connection manager
+   * @return the meter binder registering the pool gauges
+   */
+  @Bean
+  public MeterBinder redditHttpPoolMetrics(PoolingHttpClientConnectionManager connectionManager) {
+    return registry -> {
+      Gauge.builder("reddit.http.pool.leased", connectionManager,
+              manager -> manager.getTotalStats().getLeased())
+          .description("Connections currently leased from the Reddit HTTP pool")
+          .register(registry);
+      Gauge.builder("reddit.http.pool.pending", connectionManager,
+              manager -> manager.getTotalStats().getPending())
+          .description("Requests waiting for a connection from the Reddit HTTP pool")
+          .register(registry);
+      Gauge.builder("reddit.http.pool.available", connectionManager,
+              manager -> manager.getTotalStats().getAvailable())
+          .description("Idle connections available in the Reddit HTTP pool")
+          .register(registry);
+      Gauge.builder("reddit.http.pool.max", connectionManager,
+              manager -> manager.getTotalStats().getMax())
+          .description("Maximum number of connections in the Reddit HTTP pool")
+          .register(registry);
+    };
+  }
+
+  private static Timeout timeout(Duration duration) {
+    return Timeout.ofMilliseconds(duration.toMillis());
+  }
+
+  private static TimeValue timeValue(Duration duration) {
+    return TimeValue.ofMilliseconds(duration.toMillis());
+  }
+}
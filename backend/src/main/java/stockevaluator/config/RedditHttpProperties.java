@@ -0,0 +1,30 @@
+package stockevaluator.config;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration properties for the shared HTTP client used for all Reddit traffic.
+ *
+ * <p>This class binds properties prefixed with "reddit.http" and controls the size of the
+ * connection pool as well as the timeouts and keep-alive behaviour of pooled connections.
+ * </p>
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "reddit.http")
+public class RedditHttpProperties {
+
+  private int maxTotal = 40;
+  private int maxPerRoute = 20;
+  private Duration connectTimeout = Duration.ofSeconds(5);
+  private Duration socketTimeout = Duration.ofSeconds(30);
+  private Duration connectionRequestTimeout = Duration.ofSeconds(10);
+  private Duration keepAlive = Duration.ofSeconds(60);
+  private Duration timeToLive = Duration.ofMinutes(10);
+  private Duration validateAfterInactivity = Duration.ofSeconds(2);
+  private Duration idleEviction = Duration.ofSeconds(30);
+  private String userAgent = "StockEvaluator/1.0.0";
+}
@@ -0,0 +1,38 @@
+package stockevaluator.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration properties for the Reddit ingestion cycle.
+ *
+ * <p>This class binds properties prefixed with "reddit.ingest". The comment crawl budget limits how
+ * many threads are re-crawled per cycle. The thread request budget bounds the requests spent on one
+ * thread, including the expansion of unloaded comments. The write batch size is the number of rows
+ * sent per JDBC batch when a cycle is persisted. The seen-id capacity and retention bound the
+ * in-memory set of comment ids used to skip items that were already ingested. The stream settings
+ * control the polling of the subreddit-wide comment listing, and the megathread settings decide
+ * which threads are crawled incrementally, newest comments first.</p>
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "reddit.ingest")
+public class RedditIngestionProperties {
+
+  private int commentCrawlBudget = 25;
+  private int threadRequestBudget = 10;
+  private int megathreadMinComments = 5000;
+  private List<String> megathreadFlairs = new ArrayList<>(List.of("Daily Discussion", "Weekend Discussion"));
+  private int megathreadRequestBudget = 20;
+  private int writeBatchSize = 500;
+  private int seenIdCapacity = 500_000;
+  private Duration seenIdRetention = Duration.ofHours(72);
+  private Duration streamInterval = Duration.ofMinutes(1);
+  private int streamPageSize = 100;
+  private int streamMaxPages = 5;
+  private Duration streamStaleAfter = Duration.ofMinutes(10);
+}
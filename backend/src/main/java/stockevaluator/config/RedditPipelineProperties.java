@@ -0,0 +1,36 @@
+package stockevaluator.config;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration properties for the staged Reddit ingestion pipeline.
+ *
+ * <p>This class binds properties prefixed with "reddit.pipeline". Every stage has its own worker
+ * count and a bounded input queue; a full queue blocks the stage in front of it, so backpressure
+ * flows from the database back to the Reddit fetchers. The aggregate stage merges small pieces
+ * into write batches and flushes a partial batch once it has waited for the linger time. The cycle
+ * timeout bounds how long a crawl cycle waits for its items to be persisted.</p>
+ *
+ * <p>On shutdown the pipeline stops taking threads to fetch and drains the remaining stages in
+ * order, for at most the drain timeout. Finished ingestion runs are kept for the run retention.</p>
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "reddit.pipeline")
+public class RedditPipelineProperties {
+
+  private int fetchWorkers = 4;
+  private int fetchQueueCapacity = 100;
+  private int enrichWorkers = 2;
+  private int enrichQueueCapacity = 200;
+  private int aggregateQueueCapacity = 200;
+  private Duration aggregateLinger = Duration.ofSeconds(2);
+  private int persistWorkers = 1;
+  private int persistQueueCapacity = 4;
+  private Duration cycleTimeout = Duration.ofMinutes(15);
+  private Duration drainTimeout = Duration.ofSeconds(20);
+  private Duration runRetention = Duration.ofDays(7);
+}
@@ -0,0 +1,26 @@
+package stockevaluator.config;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration properties for the Reddit request scheduler.
+ *
+ * <p>This class binds properties prefixed with "reddit.ratelimit". The burst capacity bounds the
+ * token bucket, the initial rate is used until Reddit has reported its own quota through the
+ * X-Ratelimit headers, and the interactive reserve keeps a few tokens available for user-facing
+ * requests while background crawls are running.</p>
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "reddit.ratelimit")
+public class RedditRateLimitProperties {
+
+  private int burstCapacity = 10;
+  private double initialRatePerSecond = 1.0;
+  private int interactiveReserve = 2;
+  private Duration interactiveMaxWait = Duration.ofSeconds(10);
+  private Duration backgroundMaxWait = Duration.ofMinutes(10);
+}
@@ -0,0 +1,30 @@
+package stockevaluator.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration properties for scoring the sentiment of posts and comments.
+ *
+ * <p>This class binds properties prefixed with "sentiment". The lexicon file is a Spring resource
+ * location of a token and valence list in the layout of the VADER lexicon.</p>
+ *
+ * <p>Every ticker keeps a rolling sentiment, moved towards the sentiment of each new mention by
+ * the ticker smoothing factor. A mention weighs more the higher its Reddit score, so a well
+ * received post moves the rolling sentiment more than a downvoted comment.</p>
+ *
+ * <p>A re-scoring job reads the stored posts and comments in chunks of the rescore chunk size and
+ * scores each chunk on a fork-join pool of rescore parallelism workers; 0 uses all but one core,
+ * leaving a core for serving requests.</p>
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "sentiment")
+public class SentimentProperties {
+
+  private String lexiconFile = "classpath:sentiment/lexicon.txt";
+  private double tickerSmoothing = 0.05;
+  private int rescoreChunkSize = 2000;
+  private int rescoreParallelism = 0;
+}
@@ -0,0 +1,33 @@
+package stockevaluator.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration properties for recognising ticker symbols in posts and comments.
+ *
+ * <p>This class binds properties prefixed with "tickers". The symbols file lists the symbol
+ * universe in the pipe-delimited format of the NASDAQ Trader symbol directory; only listed symbols
+ * are ever extracted. The stop words file lists symbols that are also everyday words or slang,
+ * which only count when written as a cashtag. The aliases file maps company names, products,
+ * people and nicknames to listed symbols. All are Spring resource locations, so a larger listing
+ * can be supplied with a {@code file:} location without rebuilding.</p>
+ *
+ * <p>Bare symbols shorter than the minimum bare length are ignored. In text that is mostly
+ * written in capitals, bare symbols up to the shouting symbol length are ignored as well, since
+ * there every short word looks like a symbol; a text counts as shouting once its letters outside
+ * of symbols reach the shouting ratio of capitals.</p>
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "tickers")
+public class TickerProperties {
+
+  private String symbolsFile = "classpath:tickers/symbols.txt";
+  private String stopWordsFile = "classpath:tickers/stopwords.txt";
+  private String aliasesFile = "classpath:tickers/aliases.txt";
+  private int minBareLength = 2;
+  private int shoutingSymbolLength = 3;
+  private double shoutingRatio = 0.7;
+}
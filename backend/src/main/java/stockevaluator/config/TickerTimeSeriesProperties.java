@@ -0,0 +1,25 @@
+package stockevaluator.config;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration properties for the mention time series of tickers.
+ *
+ * <p>This class binds properties prefixed with "tickers.timeseries". Minute and hour buckets are
+ * deleted once they are older than their retention; day buckets are kept for the day retention,
+ * or forever if it is not set. The max points bound the number of buckets a single request may
+ * ask for.</p>
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "tickers.timeseries")
+public class TickerTimeSeriesProperties {
+
+  private Duration minuteRetention = Duration.ofDays(7);
+  private Duration hourRetention = Duration.ofDays(180);
+  private Duration dayRetention;
+  private int maxPoints = 20_000;
+}
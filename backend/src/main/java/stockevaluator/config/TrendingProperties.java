@@ -0,0 +1,41 @@
+package stockevaluator.config;
+
+import java.time.Duration;
+import java.util.List;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration properties for the trending score of tickers.
+ *
+ * <p>This class binds properties prefixed with "trending". Every ticker keeps exponentially
+ * decayed sums of its mentions at each of the half-lives, weighted by the Reddit score of the
+ * post or comment they appear in, and one at the much longer baseline half-life that stands for
+ * its usual level of attention. The trending score is how many standard deviations the short
+ * sums lie above what the baseline predicts for them.</p>
+ *
+ * <p>The baseline floor is the weighted number of mentions per day assumed for a ticker that is
+ * hardly ever mentioned, so that its first few mentions do not count as a huge surge. Sums
+ * collected in memory are merged into the database and the scores recomputed every flush
+ * interval.</p>
+ *
+ * <p>Independently of the score, the most mentioned tickers of each sliding window are counted in
+ * memory. A window is split into the given number of panes that each keep at most the window
+ * capacity of counters, so memory stays fixed however many symbols are mentioned. Every window
+ * sync interval a node publishes its counts for the other nodes and picks up theirs.</p>
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "trending")
+public class TrendingProperties {
+
+  private List<Duration> halfLives = List.of(Duration.ofHours(1), Duration.ofHours(6), Duration.ofHours(24));
+  private Duration baselineHalfLife = Duration.ofDays(7);
+  private double baselineFloor = 2.0;
+  private Duration flushInterval = Duration.ofMinutes(1);
+  private List<Duration> windows = List.of(Duration.ofHours(1), Duration.ofHours(24), Duration.ofDays(7));
+  private int windowPanes = 24;
+  private int windowCapacity = 256;
+  private Duration windowSyncInterval = Duration.ofSeconds(30);
+}
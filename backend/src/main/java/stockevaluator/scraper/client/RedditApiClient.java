@@ -0,0 +1,224 @@
+package stockevaluator.scraper.client;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.io.HttpClientResponseHandler;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.springframework.stereotype.Component;
+import stockevaluator.config.RedditConfig;
+import stockevaluator.config.RedditRateLimitProperties;
+import stockevaluator.scraper.exception.RedditApiException;
+import stockevaluator.scraper.exception.RedditRateLimitException;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Central gateway for all requests to the Reddit OAuth API.
+ *
+ * <p>Every request is assigned to one credential of the pool, preferring healthy credentials with
+ * the most spare rate limit capacity and then the least used ones. It first takes a token from
+ * that credential's {@link RedditRateLimiter} for its priority class, is then sent through the
+ * shared pooled HTTP client, and finally feeds the {@code X-Ratelimit-*} headers of the response
+ * back into the limiter. A 429 response blocks the limiter until the reported reset and the
+ * request is retried once, which moves it to another credential if one is available. A 401
+ * response drops the rejected access token and the request is retried once with a fresh one.</p>
+ */
+@Slf4j
+@Component
+public class RedditApiClient {
+
+    public static final String REDDIT_API_BASE = "https://oauth.reddit.com";
+    private static final String USER_AGENT = "StockEvaluator/1.0.0";
+
+    private final RedditConfig redditConfig;
+    private final CloseableHttpClient redditHttpClient;
+    private final RedditRateLimitProperties properties;
+
+    public RedditApiClient(RedditConfig redditConfig, CloseableHttpClient redditHttpClient,
+                           RedditRateLimitProperties properties) {
+        this.redditConfig = redditConfig;
+        this.redditHttpClient = redditHttpClient;
+        this.properties = properties;
+    }
+
+    /**
+     * Sends a GET request for a path of the Reddit OAuth API.
+     *
+     * @param path     the request path including the query string, e.g. {@code /r/stocks/hot}
+     * @param priority the priority class of the request
+     * @param handler  the handler reading a successful response
+     * @param <T>      the type returned by the handler
+     * @return the value returned by the handler
+     */
+    public <T> T get(String path, RedditRequestPriority priority, HttpClientResponseHandler<T> handler) {
+        return execute(new HttpGet(REDDIT_API_BASE + path), priority, handler);
+    }
+
+    /**
+     * Sends a request to the Reddit OAuth API within the rate limit.
+     *
+     * @param request  the request to send
+     * @param priority the priority class of the request
+     * @param handler  the handler reading a successful response
+     * @param <T>      the type returned by the handler
+     * @return the value returned by the handler
+     */
+    public <T> T execute(ClassicHttpRequest request, RedditRequestPriority priority,
+                         HttpClientResponseHandler<T> handler) {
+        boolean reauthenticated = false;
+        for (int attempt = 0; ; attempt++) {
+            RedditCredential credential = selectCredential();
+            RedditRateLimiter rateLimiter = credential.getRateLimiter();
+            acquire(rateLimiter, priority);
+            String accessToken = credential.getTokenHolder().getToken();
+            request.setHeader("Authorization", "Bearer " + accessToken);
+            request.setHeader("User-Agent", USER_AGENT);
+
+            Outcome<T> outcome;
+            try {
+                outcome = redditHttpClient.execute(request, response -> handle(request, response, rateLimiter, handler));
+            } catch (IOException e) {
+                credential.recordFailure();
+                throw new RedditApiException("Reddit request " + request.getRequestUri() + " failed", e);
+            } catch (RedditApiException e) {
+                credential.recordFailure();
+                throw e;
+            }
+            if (outcome.unauthorized()) {
+                credential.recordUnauthorized();
+                if (reauthenticated) {
+                    throw new RedditApiException(HttpStatus.SC_UNAUTHORIZED, "Reddit kept rejecting the access token of "
+                        + credential.getName() + " for " + request.getRequestUri());
+                }
+                log.info("Reddit rejected the access token of {} for {}, refreshing it", credential.getName(),
+                    request.getRequestUri());
+                reauthenticate(credential, accessToken);
+                reauthenticated = true;
+                attempt--;
+                continue;
+            }
+            if (!outcome.throttled()) {
+                credential.recordSuccess();
+                return outcome.value();
+            }
+            credential.recordThrottled();
+            if (attempt > 0) {
+                throw new RedditRateLimitException("Reddit kept rejecting " + request.getRequestUri()
+                    + " with HTTP 429", rateLimiter.getBlockedSeconds());
+            }
+            log.warn("Reddit rate limit hit for {} on {}, retrying", request.getRequestUri(), credential.getName());
+        }
+    }
+
+    public List<RedditCredential> getCredentials() {
+        return redditConfig.getCredentials();
+    }
+
+    /**
+     * Picks the credential for the next request: healthy credentials first, then the one with the
+     * most spare rate limit capacity, then the least used one.
+     */
+    private RedditCredential selectCredential() {
+        RedditCredential best = null;
+        for (RedditCredential credential : redditConfig.getCredentials()) {
+            if (best == null || compare(credential, best) > 0) {
+                best = credential;
+            }
+        }
+        if (best == null) {
+            throw new RedditApiException("No Reddit credentials are configured");
+        }
+        return best;
+    }
+
+    private static int compare(RedditCredential a, RedditCredential b) {
+        if (a.isHealthy() != b.isHealthy()) {
+            return a.isHealthy() ? 1 : -1;
+        }
+        int byCapacity = Double.compare(a.getSpareCapacity(), b.getSpareCapacity());
+        return byCapacity != 0 ? byCapacity : Long.compare(b.getRequests(), a.getRequests());
+    }
+
+    private void reauthenticate(RedditCredential credential, String rejected) {
+        try {
+            credential.getTokenHolder().invalidate(rejected).join();
+        } catch (CompletionException e) {
+            throw new RedditApiException("Could not refresh the Reddit access token of " + credential.getName(),
+                e.getCause());
+        }
+    }
+
+    private void acquire(RedditRateLimiter rateLimiter, RedditRequestPriority priority) {
+        Duration maxWait = priority == RedditRequestPriority.INTERACTIVE
+            ? properties.getInteractiveMaxWait()
+            : properties.getBackgroundMaxWait();
+        try {
+            if (!rateLimiter.acquire(priority, maxWait)) {
+                throw new RedditRateLimitException("No Reddit rate limit token available within "
+                    + maxWait.toSeconds() + "s", Math.max(1, rateLimiter.getBlockedSeconds()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RedditApiException("Interrupted while waiting for a Reddit rate limit token", e);
+        }
+    }
+
+    private <T> Outcome<T> handle(ClassicHttpRequest request, ClassicHttpResponse response,
+                                  RedditRateLimiter rateLimiter, HttpClientResponseHandler<T> handler)
+        throws IOException {
+        Header remaining = response.getFirstHeader("X-Ratelimit-Remaining");
+        Header reset = response.getFirstHeader("X-Ratelimit-Reset");
+        if (remaining != null && reset != null) {
+            try {
+                rateLimiter.update(Double.parseDouble(remaining.getValue()), Long.parseLong(reset.getValue()));
+            } catch (NumberFormatException e) {
+                log.debug("Ignoring malformed rate limit headers {} / {}", remaining, reset);
+            }
+        }
+
+        int status = response.getCode();
+        if (status == HttpStatus.SC_TOO_MANY_REQUESTS) {
+            EntityUtils.consume(response.getEntity());
+            rateLimiter.onTooManyRequests(retryAfterSeconds(response, reset));
+            return new Outcome<>(null, true, false);
+        }
+        if (status == HttpStatus.SC_UNAUTHORIZED) {
+            EntityUtils.consume(response.getEntity());
+            return new Outcome<>(null, false, true);
+        }
+        if (status >= HttpStatus.SC_REDIRECTION) {
+            EntityUtils.consume(response.getEntity());
+            throw new RedditApiException(status, "Reddit answered " + status + " for " + request.getRequestUri());
+        }
+        try {
+            return new Outcome<>(handler.handleResponse(response), false, false);
+        } catch (HttpException e) {
+            throw new RedditApiException("Could not read Reddit response for " + request.getRequestUri(), e);
+        }
+    }
+
+    private long retryAfterSeconds(ClassicHttpResponse response, Header reset) {
+        Header retryAfter = response.getFirstHeader("Retry-After");
+        Header source = retryAfter != null ? retryAfter : reset;
+        if (source != null) {
+            try {
+                return Long.parseLong(source.getValue().trim());
+            } catch (NumberFormatException e) {
+                log.debug("Ignoring malformed retry header {}", source);
+            }
+        }
+        return 60;
+    }
+
+    private record Outcome<T>(T value, boolean throttled, boolean unauthorized) {
+    }
+}
@@ -0,0 +1,111 @@
+package stockevaluator.scraper.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One Reddit OAuth identity of the credential pool with its own access token and rate limit
+ * budget.
+ *
+ * <p>Each credential reports how many requests it served by outcome, whether it is healthy and how
+ * long its access token stays valid, all tagged with the credential name.</p>
+ */
+public class RedditCredential {
+
+    private final String name;
+    private final RedditTokenHolder tokenHolder;
+    private final RedditRateLimiter rateLimiter;
+    private final AtomicLong requests = new AtomicLong();
+    private final Counter succeeded;
+    private final Counter throttled;
+    private final Counter unauthorized;
+    private final Counter failed;
+
+    public RedditCredential(String name, RedditTokenHolder tokenHolder, RedditRateLimiter rateLimiter,
+                            MeterRegistry registry) {
+        this.name = name;
+        this.tokenHolder = tokenHolder;
+        this.rateLimiter = rateLimiter;
+        this.succeeded = requestCounter(name, "success", registry);
+        this.throttled = requestCounter(name, "throttled", registry);
+        this.unauthorized = requestCounter(name, "unauthorized", registry);
+        this.failed = requestCounter(name, "error", registry);
+        Gauge.builder("reddit.credential.healthy", this, credential -> credential.isHealthy() ? 1 : 0)
+            .description("Whether the Reddit credential holds a valid token and is not blocked")
+            .tag("credential", name)
+            .register(registry);
+        Gauge.builder("reddit.credential.token.ttl", this, RedditCredential::getTokenSecondsLeft)
+            .description("Seconds until the access token of the Reddit credential expires")
+            .tag("credential", name)
+            .baseUnit("seconds")
+            .register(registry);
+    }
+
+    /**
+     * Returns how much capacity the credential has left for new requests: the tokens in its bucket
+     * minus the requests already waiting for them.
+     *
+     * @return the spare capacity, negative when requests are queued
+     */
+    public double getSpareCapacity() {
+        return rateLimiter.getAvailableTokens() - rateLimiter.getQueueDepth();
+    }
+
+    public boolean isHealthy() {
+        return tokenHolder.hasValidToken() && rateLimiter.getBlockedSeconds() == 0;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public RedditTokenHolder getTokenHolder() {
+        return tokenHolder;
+    }
+
+    public RedditRateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    void recordSuccess() {
+        requests.incrementAndGet();
+        succeeded.increment();
+    }
+
+    void recordThrottled() {
+        requests.incrementAndGet();
+        throttled.increment();
+    }
+
+    void recordUnauthorized() {
+        requests.incrementAndGet();
+        unauthorized.increment();
+    }
+
+    void recordFailure() {
+        requests.incrementAndGet();
+        failed.increment();
+    }
+
+    private double getTokenSecondsLeft() {
+        Instant expiresAt = tokenHolder.getExpiresAt();
+        return expiresAt != null ? Math.max(0, Duration.between(Instant.now(), expiresAt).toSeconds()) : 0;
+    }
+
+    private static Counter requestCounter(String name, String outcome, MeterRegistry registry) {
+        return Counter.builder("reddit.credential.requests")
+            .description("Reddit requests sent with the credential, by outcome")
+            .tag("credential", name)
+            .tag("outcome", outcome)
+            .register(registry);
+    }
+}
@@ -0,0 +1,273 @@
+package stockevaluator.scraper.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import stockevaluator.config.RedditRateLimitProperties;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Token bucket that schedules Reddit requests according to the quota Reddit reports.
+ *
+ * <p>Every response carries {@code X-Ratelimit-Remaining} and {@code X-Ratelimit-Reset}; the
+ * refill rate of the bucket is recalculated from them so that the remaining quota is spread evenly
+ * over the rest of the window. A 429 response empties the bucket and blocks all requests until the
+ * reported reset. Waiting requests are granted strictly by {@link RedditRequestPriority}, and lower
+ * priorities cannot use the tokens held in the interactive reserve.</p>
+ */
+public class RedditRateLimiter {
+
+    private static final long MIN_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final long MAX_WAIT_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final String name;
+    private final double capacity;
+    private final double initialRatePerSecond;
+    private final int interactiveReserve;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition[] turns;
+    private final int[] waiting;
+
+    private double tokens;
+    private double refillPerSecond;
+    private long lastRefillNanos;
+    private long blockedUntilNanos;
+    private double reportedRemaining = Double.NaN;
+
+    private final Timer[] throttledTimers;
+    private final Counter tooManyRequests;
+
+    public RedditRateLimiter(String name, RedditRateLimitProperties properties, MeterRegistry registry) {
+        this.name = name;
+        this.capacity = properties.getBurstCapacity();
+        this.initialRatePerSecond = properties.getInitialRatePerSecond();
+        this.interactiveReserve = properties.getInteractiveReserve();
+        this.tokens = capacity;
+        this.refillPerSecond = initialRatePerSecond;
+        this.lastRefillNanos = System.nanoTime();
+        this.blockedUntilNanos = lastRefillNanos;
+
+        RedditRequestPriority[] priorities = RedditRequestPriority.values();
+        this.turns = new Condition[priorities.length];
+        this.waiting = new int[priorities.length];
+        this.throttledTimers = new Timer[priorities.length];
+        for (RedditRequestPriority priority : priorities) {
+            turns[priority.ordinal()] = lock.newCondition();
+            throttledTimers[priority.ordinal()] = Timer.builder("reddit.ratelimit.throttled")
+                .description("Time Reddit requests spent waiting for a rate limit token")
+                .tag("client", name)
+                .tag("priority", priority.name().toLowerCase())
+                .register(registry);
+            Gauge.builder("reddit.ratelimit.queue", this, limiter -> limiter.getQueueDepth(priority))
+                .description("Reddit requests waiting for a rate limit token")
+                .tag("client", name)
+                .tag("priority", priority.name().toLowerCase())
+                .register(registry);
+        }
+        Gauge.builder("reddit.ratelimit.tokens", this, RedditRateLimiter::getAvailableTokens)
+            .description("Rate limit tokens currently available for Reddit requests")
+            .tag("client", name)
+            .register(registry);
+        Gauge.builder("reddit.ratelimit.remaining", this, RedditRateLimiter::getReportedRemaining)
+            .description("Remaining requests in the current window as reported by Reddit")
+            .tag("client", name)
+            .register(registry);
+        this.tooManyRequests = Counter.builder("reddit.ratelimit.rejected")
+            .description("Reddit responses with HTTP 429")
+            .tag("client", name)
+            .register(registry);
+    }
+
+    /**
+     * Waits until a token is available for the given priority and takes it.
+     *
+     * @param priority the priority class of the request
+     * @param maxWait  the maximum time to wait for a token
+     * @return true if a token was taken, false if the maximum wait elapsed first
+     * @throws InterruptedException if the calling thread is interrupted while waiting
+     */
+    public boolean acquire(RedditRequestPriority priority, Duration maxWait) throws InterruptedException {
+        int slot = priority.ordinal();
+        long start = System.nanoTime();
+        long deadline = start + maxWait.toNanos();
+        lock.lock();
+        try {
+            waiting[slot]++;
+            try {
+                while (true) {
+                    long now = System.nanoTime();
+                    refill(now);
+                    if (isTurnOf(slot) && now >= blockedUntilNanos && tokens >= 1 + reserveFor(priority)) {
+                        tokens -= 1;
+                        return true;
+                    }
+                    long remainingWait = deadline - now;
+                    if (remainingWait <= 0) {
+                        return false;
+                    }
+                    turns[slot].awaitNanos(Math.min(remainingWait, nanosUntilAvailable(now, priority)));
+                }
+            } finally {
+                waiting[slot]--;
+                signalNext();
+            }
+        } finally {
+            lock.unlock();
+            throttledTimers[slot].record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Feeds the quota reported by Reddit into the bucket.
+     *
+     * @param remaining    the value of {@code X-Ratelimit-Remaining}
+     * @param resetSeconds the value of {@code X-Ratelimit-Reset}
+     */
+    public void update(double remaining, long resetSeconds) {
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            refill(now);
+            reportedRemaining = remaining;
+            if (remaining < 1) {
+                tokens = 0;
+                refillPerSecond = 0;
+                long delayNanos = TimeUnit.SECONDS.toNanos(Math.max(resetSeconds, 1));
+                blockedUntilNanos = Math.max(blockedUntilNanos, now + delayNanos);
+            } else {
+                refillPerSecond = remaining / Math.max(resetSeconds, 1);
+                tokens = Math.min(tokens, remaining);
+            }
+            signalNext();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records a 429 response and blocks all requests until the given delay has passed.
+     *
+     * @param retryAfterSeconds the number of seconds to wait before the next request
+     */
+    public void onTooManyRequests(long retryAfterSeconds) {
+        tooManyRequests.increment();
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            tokens = 0;
+            long delayNanos = TimeUnit.SECONDS.toNanos(Math.max(retryAfterSeconds, 1));
+            blockedUntilNanos = Math.max(blockedUntilNanos, now + delayNanos);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of seconds until requests are no longer blocked by a 429 or an exhausted
+     * window.
+     *
+     * @return the remaining block in seconds, or 0 if requests are not blocked
+     */
+    public long getBlockedSeconds() {
+        lock.lock();
+        try {
+            return Math.max(0, TimeUnit.NANOSECONDS.toSeconds(blockedUntilNanos - System.nanoTime()));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public double getAvailableTokens() {
+        lock.lock();
+        try {
+            refill(System.nanoTime());
+            return tokens;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public double getReportedRemaining() {
+        return reportedRemaining;
+    }
+
+    public int getQueueDepth() {
+        lock.lock();
+        try {
+            int depth = 0;
+            for (int count : waiting) {
+                depth += count;
+            }
+            return depth;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueueDepth(RedditRequestPriority priority) {
+        lock.lock();
+        try {
+            return waiting[priority.ordinal()];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    private void refill(long now) {
+        if (now < blockedUntilNanos) {
+            lastRefillNanos = now;
+            return;
+        }
+        if (refillPerSecond <= 0) {
+            // The exhausted window has reset; fall back until Reddit reports the new quota
+            refillPerSecond = initialRatePerSecond;
+        }
+        double elapsedSeconds = (now - lastRefillNanos) / 1_000_000_000.0;
+        tokens = Math.min(capacity, tokens + elapsedSeconds * refillPerSecond);
+        lastRefillNanos = now;
+    }
+
+    private int reserveFor(RedditRequestPriority priority) {
+        return priority == RedditRequestPriority.INTERACTIVE ? 0 : interactiveReserve;
+    }
+
+    private boolean isTurnOf(int slot) {
+        for (int higher = 0; higher < slot; higher++) {
+            if (waiting[higher] > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long nanosUntilAvailable(long now, RedditRequestPriority priority) {
+        if (now < blockedUntilNanos) {
+            return Math.max(MIN_WAIT_NANOS, blockedUntilNanos - now);
+        }
+        if (refillPerSecond <= 0) {
+            return MAX_WAIT_NANOS;
+        }
+        double missing = 1 + reserveFor(priority) - tokens;
+        long nanos = (long) (missing / refillPerSecond * 1_000_000_000L);
+        return Math.max(MIN_WAIT_NANOS, Math.min(nanos, MAX_WAIT_NANOS));
+    }
+
+    private void signalNext() {
+        for (int slot = 0; slot < waiting.length; slot++) {
+            if (waiting[slot] > 0) {
+                turns[slot].signal();
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package stockevaluator.scraper.client;
+
+/**
+ * Priority classes for requests sent through the {@link RedditApiClient}.
+ *
+ * <p>Requests are granted in declaration order: while a higher priority request is waiting for a
+ * token, lower priority requests are held back.</p>
+ */
+public enum RedditRequestPriority {
+
+    /** Requests proxied on behalf of a user, such as {@code /api/reddit/hot}. */
+    INTERACTIVE,
+
+    /** Listing requests issued by the ingestion cycle. */
+    LISTING,
+
+    /** Background comment crawls. */
+    BACKGROUND
+}
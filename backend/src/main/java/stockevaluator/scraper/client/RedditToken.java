@@ -0,0 +1,12 @@
+package stockevaluator.scraper.client;
+
+import java.time.Instant;
+
+/**
+ * An OAuth access token together with the time Reddit reported it expires at.
+ *
+ * @param value     the bearer token
+ * @param expiresAt the expiry computed from {@code expires_in}
+ */
+public record RedditToken(String value, Instant expiresAt) {
+}
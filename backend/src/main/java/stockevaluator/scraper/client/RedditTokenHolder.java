@@ -0,0 +1,159 @@
+package stockevaluator.scraper.client;
+
+import lombok.extern.slf4j.Slf4j;
+import stockevaluator.scraper.exception.RedditApiException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Lock-free holder of a Reddit OAuth access token.
+ *
+ * <p>The current token is read from an {@link AtomicReference} without locking. Once it is within
+ * the refresh margin of its {@code expires_in}, the next caller starts a refresh in the
+ * background and keeps using the still valid token, so callers only wait for a refresh when
+ * there is no valid token at all, i.e. at startup or after the token was rejected. Concurrent
+ * refreshes are coalesced into a single in-flight request that every caller shares.</p>
+ */
+@Slf4j
+public class RedditTokenHolder {
+
+    private static final Duration FAILURE_BACKOFF = Duration.ofSeconds(30);
+
+    /**
+     * Requests a new access token from Reddit.
+     */
+    @FunctionalInterface
+    public interface TokenFetcher {
+        RedditToken fetch() throws Exception;
+    }
+
+    private final String name;
+    private final TokenFetcher fetcher;
+    private final Duration refreshMargin;
+    private final ExecutorService refreshExecutor;
+    private final AtomicReference<RedditToken> current = new AtomicReference<>();
+    private final AtomicReference<CompletableFuture<RedditToken>> inFlight = new AtomicReference<>();
+    private volatile Instant lastFailure = Instant.MIN;
+
+    public RedditTokenHolder(String name, TokenFetcher fetcher, Duration refreshMargin) {
+        this.name = name;
+        this.fetcher = fetcher;
+        this.refreshMargin = refreshMargin;
+        this.refreshExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "reddit-token-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Returns a valid access token, waiting for a refresh only if no valid token is held.
+     *
+     * @return the bearer token
+     * @throws RedditApiException if no token is held and the refresh fails
+     */
+    public String getToken() {
+        RedditToken token = current.get();
+        Instant now = Instant.now();
+        if (token != null && now.isBefore(token.expiresAt())) {
+            if (!now.isBefore(token.expiresAt().minus(refreshMargin))) {
+                refreshInBackground();
+            }
+            return token.value();
+        }
+        try {
+            return refresh().join().value();
+        } catch (CompletionException e) {
+            throw new RedditApiException("Could not obtain a Reddit access token for " + name, e.getCause());
+        }
+    }
+
+    /**
+     * Starts a refresh if the held token is missing or within the refresh margin of its expiry.
+     */
+    public void refreshIfExpiring() {
+        RedditToken token = current.get();
+        if (token == null || !Instant.now().isBefore(token.expiresAt().minus(refreshMargin))) {
+            refreshInBackground();
+        }
+    }
+
+    /**
+     * Drops a token that Reddit rejected and starts a refresh. A token that was already replaced
+     * by another caller is left alone, so concurrent rejections cause a single refresh.
+     *
+     * @param rejected the bearer token Reddit answered 401 for
+     * @return the refresh that replaces the token
+     */
+    public CompletableFuture<RedditToken> invalidate(String rejected) {
+        RedditToken token = current.get();
+        if (token != null && token.value().equals(rejected)) {
+            current.compareAndSet(token, null);
+        }
+        return current.get() != null ? CompletableFuture.completedFuture(current.get()) : refresh();
+    }
+
+    /**
+     * Returns the in-flight refresh, starting one if none is running.
+     *
+     * @return the refresh shared by all concurrent callers
+     */
+    public CompletableFuture<RedditToken> refresh() {
+        while (true) {
+            CompletableFuture<RedditToken> running = inFlight.get();
+            if (running != null) {
+                return running;
+            }
+            CompletableFuture<RedditToken> mine = new CompletableFuture<>();
+            if (inFlight.compareAndSet(null, mine)) {
+                refreshExecutor.execute(() -> fetchInto(mine));
+                return mine;
+            }
+        }
+    }
+
+    public boolean hasValidToken() {
+        RedditToken token = current.get();
+        return token != null && Instant.now().isBefore(token.expiresAt());
+    }
+
+    public Instant getExpiresAt() {
+        RedditToken token = current.get();
+        return token != null ? token.expiresAt() : null;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    private void refreshInBackground() {
+        if (Instant.now().isAfter(lastFailure.plus(FAILURE_BACKOFF))) {
+            refresh();
+        }
+    }
+
+    private void fetchInto(CompletableFuture<RedditToken> target) {
+        try {
+            RedditToken token = fetcher.fetch();
+            current.set(token);
+            log.info("Obtained Reddit access token for {}, valid until {}", name, token.expiresAt());
+            target.complete(token);
+        } catch (Throwable e) {
+            lastFailure = Instant.now();
+            log.warn("Failed to refresh Reddit access token for {}: {}", name, e.getMessage());
+            target.completeExceptionally(e);
+        } finally {
+            inFlight.compareAndSet(target, null);
+        }
+    }
+}
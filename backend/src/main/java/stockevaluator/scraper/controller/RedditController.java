@@ -9,10 +9,24 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import stockevaluator.scraper.model.RedditComment;
 import stockevaluator.scraper.model.RedditPost;
+import stockevaluator.scraper.model.SentimentRescoreStatus;
 import stockevaluator.scraper.model.Ticker;
+import stockevaluator.scraper.model.TickerMentionPoint;
+import stockevaluator.scraper.model.TrendingTicker;
 import stockevaluator.scraper.repository.RedditCommentRepository;
 import stockevaluator.scraper.repository.RedditPostRepository;
 import stockevaluator.scraper.repository.TickerRepository;
+import stockevaluator.scraper.service.SentimentRescoreJob;
+import stockevaluator.scraper.service.TickerTimeSeriesService;
+import stockevaluator.scraper.service.TrendingWindowService;
+import stockevaluator.scraper.exception.RedditApiException;
+import stockevaluator.scraper.exception.RedditRateLimitException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.security.access.prepost.PreAuthorize;
+import java.util.Map;
+import java.time.LocalDateTime;
 
 
 @RestController
@@ -31,13 +45,29 @@ public class RedditController {
     @Autowired
     private TickerRepository tickerRepository;
 
-    // Get trending tickers (most mentioned)
+    @Autowired
+    private SentimentRescoreJob sentimentRescoreJob;
+
+    @Autowired
+    private TickerTimeSeriesService timeSeriesService;
+
+    @Autowired
+    private TrendingWindowService trendingWindowService;
+
+    // Get trending tickers (mentioned most above their usual level)
     @GetMapping("/trending")
     public ResponseEntity<List<Ticker>> getTrendingTickers() {
-        List<Ticker> tickers = tickerRepository.findAllByOrderByMentionCountDesc();
+        List<Ticker> tickers = tickerRepository.findAllByOrderByTrendingScoreDesc();
         return ResponseEntity.ok(tickers);
     }
 
+    // Get the most mentioned tickers of a sliding window (1h, 24h or 7d), counted in memory
+    @GetMapping(value = "/trending", params = "window")
+    public ResponseEntity<List<TrendingTicker>> getTrendingTickersInWindow(@RequestParam String window,
+            @RequestParam(defaultValue = "25") int limit) {
+        return ResponseEntity.ok(trendingWindowService.getTop(window, limit));
+    }
+
     // Get all recent posts
     @GetMapping("/posts")
     public ResponseEntity<List<RedditPost>> getRecentPosts() {
@@ -74,6 +104,19 @@ public class RedditController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    // Get mentions of a ticker per minute, hour or day (ISO date-times, e.g. from=2024-03-01T00:00)
+    @GetMapping("/ticker/{symbol}/timeseries")
+    public ResponseEntity<List<TickerMentionPoint>> getTickerTimeSeries(@PathVariable String symbol,
+            @RequestParam(defaultValue = "hour") String interval,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        String ticker = symbol.toUpperCase();
+        if (!tickerRepository.existsById(ticker)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(timeSeriesService.getSeries(ticker, interval, from, to));
+    }
+
     // Search for tickers
     @GetMapping("/search")
     public ResponseEntity<List<Ticker>> searchTickers(@RequestParam String query) {
@@ -82,12 +125,57 @@ public class RedditController {
         return ResponseEntity.ok(tickers);
     }
     @GetMapping("/hot")
-    public List<JsonNode> getHotPosts() {
-        return redditService.getHotPosts();
+    public List<JsonNode> getHotPosts(@RequestParam(required = false) String subreddit) {
+        return redditService.getHotPosts(subreddit);
     }
 
     @GetMapping("/search/{ticker}")
-    public List<JsonNode> searchByTicker(@PathVariable String ticker) {
-        return redditService.searchPostsByTicker(ticker);
+    public List<JsonNode> searchByTicker(@PathVariable String ticker,
+                                         @RequestParam(required = false) String subreddit) {
+        return redditService.searchPostsByTicker(ticker, subreddit);
+    }
+
+    // Re-score the sentiment of all stored posts and comments in the background (admin only)
+    @PostMapping("/admin/sentiment/rescore")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<SentimentRescoreStatus> startSentimentRescore() {
+        boolean started = sentimentRescoreJob.start();
+        return ResponseEntity.status(started ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT)
+                .body(sentimentRescoreJob.getStatus());
+    }
+
+    // Progress and throughput of the current or last re-scoring job
+    @GetMapping("/admin/sentiment/rescore")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<SentimentRescoreStatus> getSentimentRescoreStatus() {
+        return ResponseEntity.ok(sentimentRescoreJob.getStatus());
+    }
+
+    // Stop the running re-scoring job after its current chunk
+    @DeleteMapping("/admin/sentiment/rescore")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<SentimentRescoreStatus> cancelSentimentRescore() {
+        boolean cancelled = sentimentRescoreJob.cancel();
+        return ResponseEntity.status(cancelled ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT)
+                .body(sentimentRescoreJob.getStatus());
+    }
+
+    @ExceptionHandler(RedditRateLimitException.class)
+    public ResponseEntity<Map<String, String>> handleRateLimit(RedditRateLimitException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(Map.of("error", "Reddit rate limit reached", "message", ex.getMessage()));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> handleBadRequest(IllegalArgumentException ex) {
+        return ResponseEntity.badRequest()
+                .body(Map.of("error", "Invalid request", "message", ex.getMessage()));
+    }
+
+    @ExceptionHandler(RedditApiException.class)
+    public ResponseEntity<Map<String, String>> handleRedditApi(RedditApiException ex) {
+        return ResponseEntity.status(HttpStatus.BAD_GATEWAY)
+                .body(Map.of("error", "Reddit API request failed", "message", ex.getMessage()));
     }
 }
@@ -0,0 +1,17 @@
+package stockevaluator.scraper.exception;
+
+/**
+ * Exception thrown when a batch is about to be committed for ingestion work whose lease this node
+ * no longer holds. The transaction is rolled back so that the new owner ingests the items once.
+ */
+public class LeaseLostException extends RuntimeException {
+
+  /**
+   * Constructs a new LeaseLostException with the specified detail message.
+   *
+   * @param message the detail message
+   */
+  public LeaseLostException(String message) {
+    super(message);
+  }
+}
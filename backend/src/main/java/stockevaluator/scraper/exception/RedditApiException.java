@@ -0,0 +1,48 @@
+package stockevaluator.scraper.exception;
+
+/**
+ * Exception thrown when a request to the Reddit API fails.
+ *
+ * <p>The HTTP status code is kept when Reddit answered with an error response, and is {@code 0}
+ * when the request failed before a response was received.</p>
+ */
+public class RedditApiException extends RuntimeException {
+
+  private final int statusCode;
+
+  /**
+   * Constructs a new RedditApiException for an error response.
+   *
+   * @param statusCode the HTTP status code returned by Reddit
+   * @param message    the detail message
+   */
+  public RedditApiException(int statusCode, String message) {
+    super(message);
+    this.statusCode = statusCode;
+  }
+
+  /**
+   * Constructs a new RedditApiException for a request that could not be sent.
+   *
+   * @param message the detail message
+   */
+  public RedditApiException(String message) {
+    super(message);
+    this.statusCode = 0;
+  }
+
+  /**
+   * Constructs a new RedditApiException with the specified detail message and cause.
+   *
+   * @param message the detail message
+   * @param cause   the cause of the exception
+   */
+  public RedditApiException(String message, Throwable cause) {
+    super(message, cause);
+    this.statusCode = 0;
+  }
+
+  public int getStatusCode() {
+    return statusCode;
+  }
+}
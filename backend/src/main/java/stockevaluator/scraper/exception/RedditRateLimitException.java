@@ -0,0 +1,27 @@
+package stockevaluator.scraper.exception;
+
+/**
+ * Exception thrown when a Reddit request could not be scheduled within its rate limit budget.
+ *
+ * <p>This happens when no token became available within the maximum wait of the request's
+ * priority class, or when Reddit kept answering with HTTP 429.</p>
+ */
+public class RedditRateLimitException extends RedditApiException {
+
+  private final long retryAfterSeconds;
+
+  /**
+   * Constructs a new RedditRateLimitException.
+   *
+   * @param message           the detail message
+   * @param retryAfterSeconds the number of seconds after which a retry may succeed
+   */
+  public RedditRateLimitException(String message, long retryAfterSeconds) {
+    super(429, message);
+    this.retryAfterSeconds = retryAfterSeconds;
+  }
+
+  public long getRetryAfterSeconds() {
+    return retryAfterSeconds;
+  }
+}
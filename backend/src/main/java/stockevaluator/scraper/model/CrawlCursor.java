@@ -0,0 +1,54 @@
+package stockevaluator.scraper.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * High-water mark of a crawl scope, such as a subreddit listing or a single comment thread.
+ *
+ * <p>The scope is a key like {@code listing:wallstreetbets/hot} or {@code thread:1abcde}. The
+ * cursor records the newest item seen in that scope by creation time and fullname.</p>
+ *
+ * <p>A thread cursor may also hold a backfill floor: the newest comment left unexpanded when the
+ * thread's request budget ran out. Every comment above the floor, up to the newest item, has been
+ * read; the comments at or below it may still be missing and are read on later crawls, newest
+ * first, until the floor is cleared.</p>
+ */
+@Entity
+@Table(name = "crawl_cursors")
+public class CrawlCursor {
+    @Id
+    @Column(length = 191)
+    private String scope;
+
+    private Long newestCreatedUtc;
+    private String newestFullname;
+    private String backfillFullname;
+    private LocalDateTime updatedAt;
+
+    public CrawlCursor() {
+    }
+
+    public CrawlCursor(String scope, Long newestCreatedUtc, String newestFullname, LocalDateTime updatedAt) {
+        this.scope = scope;
+        this.newestCreatedUtc = newestCreatedUtc;
+        this.newestFullname = newestFullname;
+        this.updatedAt = updatedAt;
+    }
+
+    // Getters and Setters
+    public String getScope() { return scope; }
+    public void setScope(String scope) { this.scope = scope; }
+
+    public Long getNewestCreatedUtc() { return newestCreatedUtc; }
+    public void setNewestCreatedUtc(Long newestCreatedUtc) { this.newestCreatedUtc = newestCreatedUtc; }
+
+    public String getNewestFullname() { return newestFullname; }
+    public void setNewestFullname(String newestFullname) { this.newestFullname = newestFullname; }
+
+    public String getBackfillFullname() { return backfillFullname; }
+    public void setBackfillFullname(String backfillFullname) { this.backfillFullname = backfillFullname; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
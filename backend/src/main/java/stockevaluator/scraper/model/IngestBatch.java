@@ -0,0 +1,25 @@
+package stockevaluator.scraper.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The posts and comments collected by one ingestion step, written to the database together with
+ * the crawl cursors they advance.
+ */
+public class IngestBatch {
+
+    private final List<RedditPost> posts = new ArrayList<>();
+    private final List<RedditComment> comments = new ArrayList<>();
+    private final List<CrawlCursor> cursors = new ArrayList<>();
+
+    public List<RedditPost> getPosts() { return posts; }
+
+    public List<RedditComment> getComments() { return comments; }
+
+    public List<CrawlCursor> getCursors() { return cursors; }
+
+    public int size() { return posts.size() + comments.size(); }
+
+    public boolean isEmpty() { return posts.isEmpty() && comments.isEmpty(); }
+}
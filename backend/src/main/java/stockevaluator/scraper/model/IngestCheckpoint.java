@@ -0,0 +1,12 @@
+package stockevaluator.scraper.model;
+
+/**
+ * The progress one committed batch made on an {@link IngestRun}, applied in the same transaction
+ * as the batch itself.
+ *
+ * @param runId       the id of the run
+ * @param postsNew    the posts of the run that were stored for the first time
+ * @param commentsNew the comments of the run that were stored for the first time
+ */
+public record IngestCheckpoint(String runId, int postsNew, int commentsNew) {
+}
@@ -0,0 +1,37 @@
+package stockevaluator.scraper.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * The lease on one unit of ingestion work, such as all crawling of a subreddit.
+ *
+ * <p>Only the owning node runs the work of a unit, and only while the lease has not expired. The
+ * owner renews the lease with every heartbeat; once it stops doing so, any node may take the unit
+ * over. Leases are read and written through
+ * {@link stockevaluator.scraper.repository.IngestLeaseRepository} using the database clock.</p>
+ */
+@Entity
+@Table(name = "ingest_leases")
+public class IngestLease {
+    @Id
+    @Column(length = 191)
+    private String unit;
+
+    private String owner;
+    private LocalDateTime acquiredAt;
+    private LocalDateTime expiresAt;
+
+    // Getters and Setters
+    public String getUnit() { return unit; }
+    public void setUnit(String unit) { this.unit = unit; }
+
+    public String getOwner() { return owner; }
+    public void setOwner(String owner) { this.owner = owner; }
+
+    public LocalDateTime getAcquiredAt() { return acquiredAt; }
+    public void setAcquiredAt(LocalDateTime acquiredAt) { this.acquiredAt = acquiredAt; }
+
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
+}
@@ -0,0 +1,29 @@
+package stockevaluator.scraper.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A running backend instance taking part in ingestion. Nodes whose heartbeat is younger than the
+ * lease TTL are live and share the ingestion work units between them.
+ */
+@Entity
+@Table(name = "ingest_nodes")
+public class IngestNode {
+    @Id
+    @Column(length = 191)
+    private String id;
+
+    private LocalDateTime startedAt;
+    private LocalDateTime heartbeatAt;
+
+    // Getters and Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public LocalDateTime getStartedAt() { return startedAt; }
+    public void setStartedAt(LocalDateTime startedAt) { this.startedAt = startedAt; }
+
+    public LocalDateTime getHeartbeatAt() { return heartbeatAt; }
+    public void setHeartbeatAt(LocalDateTime heartbeatAt) { this.heartbeatAt = heartbeatAt; }
+}
@@ -0,0 +1,81 @@
+package stockevaluator.scraper.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * One ingestion run, such as a crawl cycle of a plan or a poll of a comment stream.
+ *
+ * <p>Every batch the pipeline commits for a run also advances its checkpoint in the same
+ * transaction: the number of committed batches and the items that were new. A run that is still
+ * {@link Status#RUNNING} while the node that started it is gone was cut off by a crash or
+ * redeploy. The checkpoint only records how far it got; the run is resumed by the crawl cursors
+ * and crawled comment counts, which moved with the committed batches, so its uncommitted items
+ * are read again.</p>
+ */
+@Entity
+@Table(name = "ingest_runs", indexes = @Index(name = "idx_ingest_runs_status", columnList = "status"))
+public class IngestRun {
+
+    public enum Status { RUNNING, COMPLETED, FAILED, INTERRUPTED }
+
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    private String name;
+    private String node;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private Status status;
+
+    private int batchesCommitted;
+    private int postsNew;
+    private int commentsNew;
+    private LocalDateTime startedAt;
+    private LocalDateTime checkpointAt;
+    private LocalDateTime finishedAt;
+
+    public IngestRun() {
+    }
+
+    public IngestRun(String id, String name, String node, LocalDateTime startedAt) {
+        this.id = id;
+        this.name = name;
+        this.node = node;
+        this.status = Status.RUNNING;
+        this.startedAt = startedAt;
+    }
+
+    // Getters and Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public String getNode() { return node; }
+    public void setNode(String node) { this.node = node; }
+
+    public Status getStatus() { return status; }
+    public void setStatus(Status status) { this.status = status; }
+
+    public int getBatchesCommitted() { return batchesCommitted; }
+    public void setBatchesCommitted(int batchesCommitted) { this.batchesCommitted = batchesCommitted; }
+
+    public int getPostsNew() { return postsNew; }
+    public void setPostsNew(int postsNew) { this.postsNew = postsNew; }
+
+    public int getCommentsNew() { return commentsNew; }
+    public void setCommentsNew(int commentsNew) { this.commentsNew = commentsNew; }
+
+    public LocalDateTime getStartedAt() { return startedAt; }
+    public void setStartedAt(LocalDateTime startedAt) { this.startedAt = startedAt; }
+
+    public LocalDateTime getCheckpointAt() { return checkpointAt; }
+    public void setCheckpointAt(LocalDateTime checkpointAt) { this.checkpointAt = checkpointAt; }
+
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+    public void setFinishedAt(LocalDateTime finishedAt) { this.finishedAt = finishedAt; }
+}
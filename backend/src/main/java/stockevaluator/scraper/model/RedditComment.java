@@ -20,6 +20,11 @@ public class RedditComment {
     private String author;
     private Integer score;
     private LocalDateTime createdDate;
+    private Double sentiment;
+
+    // Token of the ingestion write that inserted the row, see RedditIngestRepository
+    @Column(length = 36)
+    private String ingestToken;
     
     @ElementCollection
     @CollectionTable(name = "comment_ticker_mentions", joinColumns = @JoinColumn(name = "comment_id"))
@@ -45,6 +50,9 @@ public class RedditComment {
     public LocalDateTime getCreatedDate() { return createdDate; }
     public void setCreatedDate(LocalDateTime createdDate) { this.createdDate = createdDate; }
     
+    public Double getSentiment() { return sentiment; }
+    public void setSentiment(Double sentiment) { this.sentiment = sentiment; }
+    
     public Set<String> getTickerMentions() { return tickerMentions; }
     public void setTickerMentions(Set<String> tickerMentions) { this.tickerMentions = tickerMentions; }
 } 
\ No newline at end of file
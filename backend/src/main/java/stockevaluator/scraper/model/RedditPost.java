@@ -18,7 +18,16 @@ public class RedditPost {
     private String author;
     private Integer score;
     private Integer commentsCount;
+    private Integer crawledCommentsCount;
     private LocalDateTime createdDate;
+    private Double sentiment;
+
+    // Token of the ingestion write that inserted the row, see RedditIngestRepository
+    @Column(length = 36)
+    private String ingestToken;
+    
+    @Transient
+    private String flair;
     
     @ElementCollection
     @CollectionTable(name = "post_ticker_mentions", joinColumns = @JoinColumn(name = "post_id"))
@@ -44,9 +53,18 @@ public class RedditPost {
     public Integer getCommentsCount() { return commentsCount; }
     public void setCommentsCount(Integer commentsCount) { this.commentsCount = commentsCount; }
     
+    public Integer getCrawledCommentsCount() { return crawledCommentsCount; }
+    public void setCrawledCommentsCount(Integer crawledCommentsCount) { this.crawledCommentsCount = crawledCommentsCount; }
+    
+    public String getFlair() { return flair; }
+    public void setFlair(String flair) { this.flair = flair; }
+    
     public LocalDateTime getCreatedDate() { return createdDate; }
     public void setCreatedDate(LocalDateTime createdDate) { this.createdDate = createdDate; }
     
+    public Double getSentiment() { return sentiment; }
+    public void setSentiment(Double sentiment) { this.sentiment = sentiment; }
+    
     public Set<String> getTickerMentions() { return tickerMentions; }
     public void setTickerMentions(Set<String> tickerMentions) { this.tickerMentions = tickerMentions; }
 } 
\ No newline at end of file
@@ -0,0 +1,24 @@
+package stockevaluator.scraper.model;
+
+import java.time.Instant;
+
+/**
+ * Progress of a sentiment re-scoring job.
+ *
+ * @param state          IDLE before the first run, then RUNNING, COMPLETED, CANCELLED or FAILED
+ * @param phase          POSTS, COMMENTS or TICKERS while running, null otherwise
+ * @param postsTotal     the number of stored posts when the job started
+ * @param postsDone      the number of posts scored so far
+ * @param commentsTotal  the number of stored comments when the job started
+ * @param commentsDone   the number of comments scored so far
+ * @param tickersUpdated the number of tickers whose rolling sentiment was rebuilt
+ * @param itemsPerSecond the posts and comments scored per second since the start
+ * @param startedAt      when the job started
+ * @param finishedAt     when the job ended, null while running
+ * @param error          the failure message of a failed job
+ */
+public record SentimentRescoreStatus(String state, String phase, long postsTotal, long postsDone,
+                                     long commentsTotal, long commentsDone, int tickersUpdated,
+                                     double itemsPerSecond, Instant startedAt, Instant finishedAt,
+                                     String error) {
+}
@@ -0,0 +1,11 @@
+package stockevaluator.scraper.model;
+
+/**
+ * The text of a stored post or comment, read back for scoring.
+ *
+ * @param id    the id of the post or comment
+ * @param text  the title and body of a post or the body of a comment
+ * @param score the Reddit score of the post or comment, null if unknown
+ */
+public record StoredText(String id, String text, Integer score) {
+}
@@ -0,0 +1,127 @@
+package stockevaluator.scraper.model;
+
+import jakarta.persistence.*;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * The mentions of a ticker within one minute, hour or day.
+ *
+ * <p>Every mention is added to the bucket of each resolution it falls in, so the hour and day
+ * buckets are roll-ups of the minute buckets kept without re-reading them. A bucket holds the
+ * number of mentions, the sum of the Reddit scores of their posts and comments, the weights and
+ * weighted sum of their sentiments, and a {@link stockevaluator.scraper.util.LinearCounting}
+ * bitmap of their authors. All of them merge by adding up or or-ing, so buckets written by
+ * different instances combine correctly.</p>
+ *
+ * <p>The id is a key like {@code TSLA/HOUR/2024-03-01T14:00}. Ids of one ticker and resolution
+ * sort by time, so a series is a range scan of the primary key.</p>
+ */
+@Entity
+@Table(name = "ticker_mention_buckets",
+    indexes = @Index(name = "idx_ticker_mention_buckets_start", columnList = "resolution, bucket_start"))
+public class TickerMentionBucket {
+
+    public enum Resolution {
+        MINUTE(ChronoUnit.MINUTES, Duration.ofHours(6), 128),
+        HOUR(ChronoUnit.HOURS, Duration.ofDays(7), 512),
+        DAY(ChronoUnit.DAYS, Duration.ofDays(90), 2048);
+
+        private final ChronoUnit unit;
+        private final Duration defaultSpan;
+        private final int authorBytes;
+
+        Resolution(ChronoUnit unit, Duration defaultSpan, int authorBytes) {
+            this.unit = unit;
+            this.defaultSpan = defaultSpan;
+            this.authorBytes = authorBytes;
+        }
+
+        public ChronoUnit getUnit() { return unit; }
+
+        /**
+         * Returns the span of a series that is asked for without a start.
+         */
+        public Duration getDefaultSpan() { return defaultSpan; }
+
+        /**
+         * Returns the size of the author bitmap of a bucket, large enough for the authors of a
+         * busy ticker within the bucket's span.
+         */
+        public int getAuthorBytes() { return authorBytes; }
+
+        public LocalDateTime startOf(LocalDateTime time) {
+            return time.truncatedTo(unit);
+        }
+    }
+
+    private static final DateTimeFormatter KEY_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm");
+
+    @Id
+    @Column(length = 191)
+    private String id;
+
+    private String symbol;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 8)
+    private Resolution resolution;
+
+    private LocalDateTime bucketStart;
+    private int mentions;
+    private long scoreSum;
+    private double sentimentWeight;
+    private double sentimentSum;
+
+    @Column(length = 2048)
+    private byte[] authors;
+
+    public TickerMentionBucket() {
+    }
+
+    public TickerMentionBucket(String symbol, Resolution resolution, LocalDateTime bucketStart) {
+        this.id = idOf(symbol, resolution, bucketStart);
+        this.symbol = symbol;
+        this.resolution = resolution;
+        this.bucketStart = bucketStart;
+        this.authors = new byte[resolution.getAuthorBytes()];
+    }
+
+    /**
+     * Returns the id of the bucket of a ticker and resolution that starts at the given time, or
+     * that would start there; ids of later buckets sort after it.
+     */
+    public static String idOf(String symbol, Resolution resolution, LocalDateTime bucketStart) {
+        return symbol + "/" + resolution + "/" + KEY_FORMAT.format(bucketStart);
+    }
+
+    // Getters and Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getSymbol() { return symbol; }
+    public void setSymbol(String symbol) { this.symbol = symbol; }
+
+    public Resolution getResolution() { return resolution; }
+    public void setResolution(Resolution resolution) { this.resolution = resolution; }
+
+    public LocalDateTime getBucketStart() { return bucketStart; }
+    public void setBucketStart(LocalDateTime bucketStart) { this.bucketStart = bucketStart; }
+
+    public int getMentions() { return mentions; }
+    public void setMentions(int mentions) { this.mentions = mentions; }
+
+    public long getScoreSum() { return scoreSum; }
+    public void setScoreSum(long scoreSum) { this.scoreSum = scoreSum; }
+
+    public double getSentimentWeight() { return sentimentWeight; }
+    public void setSentimentWeight(double sentimentWeight) { this.sentimentWeight = sentimentWeight; }
+
+    public double getSentimentSum() { return sentimentSum; }
+    public void setSentimentSum(double sentimentSum) { this.sentimentSum = sentimentSum; }
+
+    public byte[] getAuthors() { return authors; }
+    public void setAuthors(byte[] authors) { this.authors = authors; }
+}
@@ -0,0 +1,17 @@
+package stockevaluator.scraper.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * The mentions of a ticker within one bucket of a time series.
+ *
+ * @param start         the start of the bucket
+ * @param mentions      the number of posts and comments mentioning the ticker
+ * @param score         the sum of their Reddit scores when they were ingested
+ * @param uniqueAuthors the estimated number of distinct authors among them
+ * @param sentiment     their mean sentiment weighted like the ticker's rolling sentiment, null if
+ *                      none was scored
+ */
+public record TickerMentionPoint(LocalDateTime start, int mentions, long score, long uniqueAuthors,
+                                 Double sentiment) {
+}
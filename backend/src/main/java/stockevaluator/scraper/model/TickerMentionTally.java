@@ -0,0 +1,57 @@
+package stockevaluator.scraper.model;
+
+/**
+ * The new mentions of one ticker in a written batch: how many there are and their sentiment,
+ * weighted by the Reddit score of the post or comment they appear in.
+ */
+public class TickerMentionTally {
+
+    private int mentions;
+    private double weight;
+    private double weightedSentiment;
+
+    /**
+     * Adds a mention. Its weight grows with the logarithm of its score, so that a post with
+     * thousands of upvotes counts more than a fresh comment without drowning everything else out.
+     *
+     * @param sentiment the sentiment of the post or comment, or null if it was not scored
+     * @param score     the Reddit score of the post or comment, or null if unknown
+     */
+    public void add(Double sentiment, Integer score) {
+        mentions++;
+        if (sentiment != null) {
+            double mentionWeight = weightOf(score);
+            weight += mentionWeight;
+            weightedSentiment += mentionWeight * sentiment;
+        }
+    }
+
+    /**
+     * Returns the weight of a mention in a post or comment with the given Reddit score.
+     */
+    public static double weightOf(Integer score) {
+        return 1 + Math.log1p(Math.max(0, score != null ? score : 0));
+    }
+
+    public int getMentions() { return mentions; }
+
+    public double getWeight() { return weight; }
+
+    /**
+     * Returns the weighted mean sentiment of the mentions, or 0 if none was scored.
+     */
+    public double getSentiment() {
+        return weight > 0 ? weightedSentiment / weight : 0;
+    }
+
+    /**
+     * Returns how far the mentions move a rolling sentiment towards their mean: the smoothing
+     * factor applied once per unit of weight.
+     *
+     * @param smoothing the smoothing factor of a single mention of weight 1
+     * @return the combined smoothing factor, 0 if no mention was scored
+     */
+    public double smoothingFactor(double smoothing) {
+        return 1 - Math.pow(1 - smoothing, weight);
+    }
+}
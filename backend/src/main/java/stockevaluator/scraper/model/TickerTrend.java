@@ -0,0 +1,60 @@
+package stockevaluator.scraper.model;
+
+import jakarta.persistence.*;
+
+/**
+ * The exponentially decayed mentions of a ticker at one half-life.
+ *
+ * <p>The id is a key like {@code TSLA/3600}. The weight is the sum of the weights of all
+ * mentions, each halved for every half-life that passed between the mention and the decay time;
+ * the weight squares are the same sum over the squared weights. Rows are merged by
+ * {@link stockevaluator.scraper.repository.TickerTrendRepository}, which decays both sides to the
+ * later decay time before adding them, so every instance can contribute its own mentions.</p>
+ */
+@Entity
+@Table(name = "ticker_trends")
+public class TickerTrend {
+    @Id
+    @Column(length = 191)
+    private String id;
+
+    private String symbol;
+    private Long halfLifeSeconds;
+    private Double weight;
+    private Double weightSquares;
+    private Long decayedAt;
+
+    public TickerTrend() {
+    }
+
+    public TickerTrend(String symbol, long halfLifeSeconds, double weight, double weightSquares, long decayedAt) {
+        this.id = symbol + "/" + halfLifeSeconds;
+        this.symbol = symbol;
+        this.halfLifeSeconds = halfLifeSeconds;
+        this.weight = weight;
+        this.weightSquares = weightSquares;
+        this.decayedAt = decayedAt;
+    }
+
+    // Getters and Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getSymbol() { return symbol; }
+    public void setSymbol(String symbol) { this.symbol = symbol; }
+
+    public Long getHalfLifeSeconds() { return halfLifeSeconds; }
+    public void setHalfLifeSeconds(Long halfLifeSeconds) { this.halfLifeSeconds = halfLifeSeconds; }
+
+    public Double getWeight() { return weight; }
+    public void setWeight(Double weight) { this.weight = weight; }
+
+    public Double getWeightSquares() { return weightSquares; }
+    public void setWeightSquares(Double weightSquares) { this.weightSquares = weightSquares; }
+
+    /**
+     * Returns the time in epoch milliseconds the sums were decayed to.
+     */
+    public Long getDecayedAt() { return decayedAt; }
+    public void setDecayedAt(Long decayedAt) { this.decayedAt = decayedAt; }
+}
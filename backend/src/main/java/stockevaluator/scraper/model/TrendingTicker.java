@@ -0,0 +1,13 @@
+package stockevaluator.scraper.model;
+
+/**
+ * A ticker among the most mentioned within a sliding window.
+ *
+ * @param symbol             the ticker symbol
+ * @param companyName        the company or fund name listed for the symbol, null if unknown
+ * @param mentions           the estimated number of posts and comments mentioning it, which may
+ *                           be slightly too high
+ * @param guaranteedMentions the number of mentions that is certain, which may be too low
+ */
+public record TrendingTicker(String symbol, String companyName, long mentions, long guaranteedMentions) {
+}
@@ -0,0 +1,44 @@
+package stockevaluator.scraper.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * The ticker mentions one node counted within a sliding window, published for the other nodes.
+ *
+ * <p>The id is a key like {@code node-1/PT1H}. The summary is a
+ * {@link stockevaluator.scraper.util.SpaceSaving.Summary} of the node's most mentioned tickers in
+ * the window at the time it was published. Summaries are written and read through
+ * {@link stockevaluator.scraper.repository.TrendingWindowRepository} using the database clock.</p>
+ */
+@Entity
+@Table(name = "trending_window_summaries")
+public class TrendingWindowSummary {
+    @Id
+    @Column(length = 191)
+    private String id;
+
+    private String node;
+    private String windowLength;
+
+    @Column(columnDefinition = "TEXT")
+    private String summary;
+
+    private LocalDateTime publishedAt;
+
+    // Getters and Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getNode() { return node; }
+    public void setNode(String node) { this.node = node; }
+
+    public String getWindowLength() { return windowLength; }
+    public void setWindowLength(String windowLength) { this.windowLength = windowLength; }
+
+    public String getSummary() { return summary; }
+    public void setSummary(String summary) { this.summary = summary; }
+
+    public LocalDateTime getPublishedAt() { return publishedAt; }
+    public void setPublishedAt(LocalDateTime publishedAt) { this.publishedAt = publishedAt; }
+}
@@ -0,0 +1,56 @@
+package stockevaluator.scraper.parser;
+
+import com.fasterxml.jackson.core.JsonParser;
+import stockevaluator.scraper.model.RedditComment;
+import stockevaluator.scraper.model.RedditPost;
+
+import java.io.IOException;
+
+/**
+ * Collects the stored fields of a single comment while its {@code data} object is being read.
+ */
+class CommentFields {
+
+    private final RedditComment comment = new RedditComment();
+    private String linkId;
+    private String linkTitle;
+    private String linkAuthor;
+
+    /**
+     * Reads the value of a field of the comment. The parser is positioned on the value token; the
+     * value is consumed if the field is stored and left untouched otherwise.
+     *
+     * @return true if the field is stored and was read
+     */
+    boolean read(String field, JsonParser parser) throws IOException {
+        switch (field) {
+            case "id" -> comment.setId(RedditListingReader.text(parser));
+            case "body" -> comment.setContent(RedditListingReader.text(parser));
+            case "author" -> comment.setAuthor(RedditListingReader.text(parser));
+            case "score" -> comment.setScore(parser.getValueAsInt());
+            case "created_utc" -> comment.setCreatedDate(RedditListingReader.toDateTime(parser.getValueAsLong()));
+            case "link_id" -> linkId = RedditListingReader.text(parser);
+            case "link_title" -> linkTitle = RedditListingReader.text(parser);
+            case "link_author" -> linkAuthor = RedditListingReader.text(parser);
+            default -> {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the comment, linked to a stub of its post if {@code link_id} was present, or null if
+     * the comment has no body.
+     */
+    RedditComment build() {
+        if (linkId != null) {
+            RedditPost post = new RedditPost();
+            post.setId(linkId.startsWith("t3_") ? linkId.substring(3) : linkId);
+            post.setTitle(linkTitle);
+            post.setAuthor(linkAuthor);
+            comment.setPost(post);
+        }
+        return comment.getContent() != null ? comment : null;
+    }
+}
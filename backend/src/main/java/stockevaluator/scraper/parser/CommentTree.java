@@ -0,0 +1,15 @@
+package stockevaluator.scraper.parser;
+
+import stockevaluator.scraper.model.RedditComment;
+
+import java.util.List;
+
+/**
+ * The comments read from a comment tree response together with the ids of the {@code more} stubs
+ * that still have to be expanded.
+ *
+ * @param comments the comments of the tree at every depth
+ * @param moreIds  the ids of unloaded comments listed by {@code more} stubs
+ */
+public record CommentTree(List<RedditComment> comments, List<String> moreIds) {
+}
@@ -0,0 +1,148 @@
+package stockevaluator.scraper.parser;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import stockevaluator.scraper.model.RedditComment;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Walks a comment tree with nested {@code replies} listings without recursion.
+ *
+ * <p>Every open JSON object or array of the tree is a frame on an explicit stack, so the depth of
+ * a thread only grows the stack on the heap and never the call stack. Comments are collected at
+ * every depth, and the ids listed by {@code more} stubs are collected for later expansion through
+ * {@code /api/morechildren}. "Continue this thread" stubs carry no ids and are ignored.</p>
+ */
+class CommentTreeWalker {
+
+    private enum FrameType { LISTING, LISTING_DATA, CHILDREN, THING, COMMENT, MORE }
+
+    private static final class Frame {
+        final FrameType type;
+        String kind;
+        CommentFields comment;
+
+        Frame(FrameType type) {
+            this.type = type;
+        }
+    }
+
+    private final JsonParser parser;
+    private final List<RedditComment> comments = new ArrayList<>();
+    private final List<String> moreIds = new ArrayList<>();
+
+    CommentTreeWalker(JsonParser parser) {
+        this.parser = parser;
+    }
+
+    /**
+     * Walks a listing object. The parser must be positioned on its START_OBJECT and is left on the
+     * matching END_OBJECT.
+     */
+    CommentTree walkListing() throws IOException {
+        return walk(new Frame(FrameType.LISTING));
+    }
+
+    /**
+     * Walks an array of things. The parser must be positioned on its START_ARRAY and is left on the
+     * matching END_ARRAY.
+     */
+    CommentTree walkChildren() throws IOException {
+        return walk(new Frame(FrameType.CHILDREN));
+    }
+
+    private CommentTree walk(Frame root) throws IOException {
+        Deque<Frame> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            Frame frame = stack.peek();
+            JsonToken token = parser.nextToken();
+            if (token == null) {
+                throw new IOException("Unexpected end of Reddit comment tree");
+            }
+            if (token == JsonToken.END_OBJECT || token == JsonToken.END_ARRAY) {
+                stack.pop();
+                if (frame.type == FrameType.COMMENT) {
+                    RedditComment comment = frame.comment.build();
+                    if (comment != null) {
+                        comments.add(comment);
+                    }
+                }
+                continue;
+            }
+            if (frame.type == FrameType.CHILDREN) {
+                if (token == JsonToken.START_OBJECT) {
+                    stack.push(new Frame(FrameType.THING));
+                } else {
+                    parser.skipChildren();
+                }
+                continue;
+            }
+            // Every other frame is an object, so the token is a field name followed by its value
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            Frame child = readField(frame, field, value);
+            if (child != null) {
+                stack.push(child);
+            }
+        }
+        return new CommentTree(comments, moreIds);
+    }
+
+    // Reads one field of an object frame and returns the frame to open for its value, if any
+    private Frame readField(Frame frame, String field, JsonToken value) throws IOException {
+        switch (frame.type) {
+            case LISTING -> {
+                if ("data".equals(field) && value == JsonToken.START_OBJECT) {
+                    return new Frame(FrameType.LISTING_DATA);
+                }
+            }
+            case LISTING_DATA -> {
+                if ("children".equals(field) && value == JsonToken.START_ARRAY) {
+                    return new Frame(FrameType.CHILDREN);
+                }
+            }
+            case THING -> {
+                if ("kind".equals(field)) {
+                    frame.kind = RedditListingReader.text(parser);
+                    return null;
+                }
+                if ("data".equals(field) && value == JsonToken.START_OBJECT) {
+                    if ("t1".equals(frame.kind)) {
+                        Frame comment = new Frame(FrameType.COMMENT);
+                        comment.comment = new CommentFields();
+                        return comment;
+                    }
+                    if ("more".equals(frame.kind)) {
+                        return new Frame(FrameType.MORE);
+                    }
+                }
+            }
+            case COMMENT -> {
+                if ("replies".equals(field) && value == JsonToken.START_OBJECT) {
+                    return new Frame(FrameType.LISTING);
+                }
+                if (frame.comment.read(field, parser)) {
+                    return null;
+                }
+            }
+            case MORE -> {
+                if ("children".equals(field) && value == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() == JsonToken.VALUE_STRING) {
+                        moreIds.add(parser.getText());
+                    }
+                    return null;
+                }
+            }
+            default -> {
+            }
+        }
+        parser.skipChildren();
+        return null;
+    }
+}
@@ -0,0 +1,14 @@
+package stockevaluator.scraper.parser;
+
+import java.util.List;
+
+/**
+ * One page of a Reddit listing together with its pagination cursors.
+ *
+ * @param items  the items of the page in listing order
+ * @param after  the fullname to pass as {@code after} for the next page, or null on the last page
+ * @param before the fullname to pass as {@code before} for newer items, or null
+ * @param <T>    the item type
+ */
+public record RedditListing<T>(List<T> items, String after, String before) {
+}
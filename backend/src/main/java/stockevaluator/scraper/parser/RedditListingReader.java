@@ -0,0 +1,243 @@
+package stockevaluator.scraper.parser;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+import stockevaluator.scraper.model.RedditComment;
+import stockevaluator.scraper.model.RedditPost;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming reader for Reddit listing responses.
+ *
+ * <p>Responses are read token by token straight from the response stream with Jackson's
+ * {@link JsonParser}, without materialising the body as a String or a JsonNode tree. Only the
+ * fields that are stored are read; every other field, including large nested objects such as
+ * {@code media} or {@code preview}, is skipped. Comment trees are walked iteratively by a
+ * {@link CommentTreeWalker}.</p>
+ */
+@Component
+public class RedditListingReader {
+
+    private static final String KIND_COMMENT = "t1";
+    private static final String KIND_POST = "t3";
+
+    private final JsonFactory jsonFactory;
+
+    public RedditListingReader(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    /**
+     * Reads a listing of posts, such as {@code /r/{subreddit}/hot}.
+     *
+     * @param in the response body
+     * @return the posts of the listing with its pagination cursors
+     * @throws IOException if the body cannot be read or is not a listing
+     */
+    public RedditListing<RedditPost> readPosts(InputStream in) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(in)) {
+            expect(parser.nextToken(), JsonToken.START_OBJECT);
+            return readListing(parser, KIND_POST, this::readPost);
+        }
+    }
+
+    /**
+     * Reads the comment tree of a {@code /comments/{postId}} response.
+     *
+     * <p>The response is an array of two listings; the first one, holding the post itself, is
+     * skipped. Replies are read at every depth.</p>
+     *
+     * @param in the response body
+     * @return the comments of the thread and the ids of its unloaded comments
+     * @throws IOException if the body cannot be read or has an unexpected shape
+     */
+    public CommentTree readComments(InputStream in) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(in)) {
+            expect(parser.nextToken(), JsonToken.START_ARRAY);
+            expect(parser.nextToken(), JsonToken.START_OBJECT);
+            parser.skipChildren();
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return new CommentTree(List.of(), List.of());
+            }
+            return new CommentTreeWalker(parser).walkListing();
+        }
+    }
+
+    /**
+     * Reads a {@code /api/morechildren} response, whose comments are returned as a flat list of
+     * things under {@code json.data.things}.
+     *
+     * @param in the response body
+     * @return the expanded comments and the ids of comments that are still unloaded
+     * @throws IOException if the body cannot be read or has an unexpected shape
+     */
+    public CommentTree readMoreChildren(InputStream in) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(in)) {
+            expect(parser.nextToken(), JsonToken.START_OBJECT);
+            if (!enterObject(parser, "json") || !enterObject(parser, "data")) {
+                return new CommentTree(List.of(), List.of());
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                if (parser.nextToken() == JsonToken.START_ARRAY && "things".equals(field)) {
+                    return new CommentTreeWalker(parser).walkChildren();
+                }
+                parser.skipChildren();
+            }
+            return new CommentTree(List.of(), List.of());
+        }
+    }
+
+    /**
+     * Reads a subreddit-wide comment listing, such as {@code /r/{subreddit}/comments}.
+     *
+     * <p>Each comment is linked to a stub of its parent post built from {@code link_id} and
+     * {@code link_title}; the stub only carries the id, title and author of the post.</p>
+     *
+     * @param in the response body
+     * @return the comments of the listing, newest first, with its pagination cursors
+     * @throws IOException if the body cannot be read or is not a listing
+     */
+    public RedditListing<RedditComment> readStreamComments(InputStream in) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(in)) {
+            expect(parser.nextToken(), JsonToken.START_OBJECT);
+            return readListing(parser, KIND_COMMENT, this::readComment);
+        }
+    }
+
+    /**
+     * Reads a listing object. The parser must be positioned on the START_OBJECT of the listing and
+     * is left on its matching END_OBJECT.
+     */
+    <T> RedditListing<T> readListing(JsonParser parser, String kind, ThingReader<T> thingReader)
+        throws IOException {
+        List<T> items = new ArrayList<>();
+        String after = null;
+        String before = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (!"data".equals(field) || value != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String dataField = parser.currentName();
+                JsonToken dataValue = parser.nextToken();
+                switch (dataField) {
+                    case "after" -> after = text(parser);
+                    case "before" -> before = text(parser);
+                    case "children" -> {
+                        if (dataValue == JsonToken.START_ARRAY) {
+                            readChildren(parser, kind, thingReader, items);
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+        return new RedditListing<>(items, after, before);
+    }
+
+    private <T> void readChildren(JsonParser parser, String kind, ThingReader<T> thingReader, List<T> items)
+        throws IOException {
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            String thingKind = null;
+            T item = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("kind".equals(field)) {
+                    thingKind = text(parser);
+                } else if ("data".equals(field) && value == JsonToken.START_OBJECT
+                    && (thingKind == null || kind.equals(thingKind))) {
+                    item = thingReader.read(parser);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (item != null && kind.equals(thingKind)) {
+                items.add(item);
+            }
+        }
+    }
+
+    private RedditPost readPost(JsonParser parser) throws IOException {
+        RedditPost post = new RedditPost();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "id" -> post.setId(text(parser));
+                case "title" -> post.setTitle(text(parser));
+                case "selftext" -> post.setContent(text(parser));
+                case "author" -> post.setAuthor(text(parser));
+                case "score" -> post.setScore(parser.getValueAsInt());
+                case "num_comments" -> post.setCommentsCount(parser.getValueAsInt());
+                case "link_flair_text" -> post.setFlair(text(parser));
+                case "created_utc" -> post.setCreatedDate(toDateTime(parser.getValueAsLong()));
+                default -> parser.skipChildren();
+            }
+        }
+        return post;
+    }
+
+    private RedditComment readComment(JsonParser parser) throws IOException {
+        CommentFields comment = new CommentFields();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if (!comment.read(field, parser)) {
+                parser.skipChildren();
+            }
+        }
+        return comment.build();
+    }
+
+    static String text(JsonParser parser) throws IOException {
+        return parser.currentToken() == JsonToken.VALUE_NULL ? null : parser.getText();
+    }
+
+    static LocalDateTime toDateTime(long epochSeconds) {
+        return LocalDateTime.ofInstant(Instant.ofEpochSecond(epochSeconds), ZoneId.systemDefault());
+    }
+
+    // Moves into the object value of the given field, skipping the fields before it
+    private static boolean enterObject(JsonParser parser, String name) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            if (parser.nextToken() == JsonToken.START_OBJECT && name.equals(field)) {
+                return true;
+            }
+            parser.skipChildren();
+        }
+        return false;
+    }
+
+    private static void expect(JsonToken actual, JsonToken expected) throws IOException {
+        if (actual != expected) {
+            throw new IOException("Unexpected Reddit response: expected " + expected + " but found " + actual);
+        }
+    }
+
+    /**
+     * Reads the {@code data} object of a single thing. The parser is positioned on the
+     * START_OBJECT of the data and must be left on its matching END_OBJECT.
+     */
+    @FunctionalInterface
+    interface ThingReader<T> {
+        T read(JsonParser parser) throws IOException;
+    }
+}
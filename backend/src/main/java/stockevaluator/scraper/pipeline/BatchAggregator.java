@@ -0,0 +1,66 @@
+package stockevaluator.scraper.pipeline;
+
+import stockevaluator.scraper.model.IngestBatch;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Merges the small per-thread pieces of the pipeline into write batches.
+ *
+ * <p>A batch is handed to the persist stage once it holds the configured number of rows, or once
+ * its oldest piece has waited for the linger time, or right away while the pipeline drains. Empty
+ * pieces complete immediately. Instances are not thread-safe and must be run by a single
+ * worker.</p>
+ */
+class BatchAggregator implements StageFunction<IngestItem, PendingWrite> {
+
+    private final int maxRows;
+    private final long lingerNanos;
+    private IngestBatch batch = new IngestBatch();
+    private List<IngestItem> items = new ArrayList<>();
+    private long firstItemNanos;
+
+    BatchAggregator(int maxRows, Duration linger) {
+        this.maxRows = maxRows;
+        this.lingerNanos = linger.toNanos();
+    }
+
+    @Override
+    public PendingWrite apply(IngestItem item) {
+        if (item.isEmpty()) {
+            item.getCycle().completed(0, 0, 0, 0);
+            return onIdle();
+        }
+        if (items.isEmpty()) {
+            firstItemNanos = System.nanoTime();
+        }
+        IngestBatch piece = item.getBatch();
+        batch.getPosts().addAll(piece.getPosts());
+        batch.getComments().addAll(piece.getComments());
+        batch.getCursors().addAll(piece.getCursors());
+        items.add(item);
+        return batch.size() >= maxRows ? flush() : onIdle();
+    }
+
+    @Override
+    public PendingWrite onIdle() {
+        if (items.isEmpty() || System.nanoTime() - firstItemNanos < lingerNanos) {
+            return null;
+        }
+        return flush();
+    }
+
+    @Override
+    public PendingWrite onDrain() {
+        return items.isEmpty() ? null : flush();
+    }
+
+    private PendingWrite flush() {
+        PendingWrite write = new PendingWrite(batch, items);
+        batch = new IngestBatch();
+        items = new ArrayList<>();
+        return write;
+    }
+}
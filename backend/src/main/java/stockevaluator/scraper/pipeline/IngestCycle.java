@@ -0,0 +1,127 @@
+package stockevaluator.scraper.pipeline;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Tracks the items one crawl cycle submitted to the pipeline until all of them are persisted.
+ *
+ * <p>The cycle counts its outstanding items and the posts and comments they carried. It is done
+ * once it was {@link #close() closed} and every item has been persisted or has failed. Every cycle
+ * has a run id under which its progress is checkpointed and belongs to the work unit whose lease
+ * it runs under; items dropped because the pipeline shut down mark the cycle as interrupted.</p>
+ */
+public class IngestCycle {
+
+    private final String runId = UUID.randomUUID().toString();
+    private final String name;
+    private final String unit;
+    // Starts at one for the open submission, released by close()
+    private final AtomicInteger pending = new AtomicInteger(1);
+    private final AtomicInteger postsRead = new AtomicInteger();
+    private final AtomicInteger commentsRead = new AtomicInteger();
+    private final AtomicInteger postsNew = new AtomicInteger();
+    private final AtomicInteger commentsNew = new AtomicInteger();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private volatile boolean interrupted;
+    private final CompletableFuture<IngestCycle> done = new CompletableFuture<>();
+
+    public IngestCycle(String name, String unit) {
+        this.name = name;
+        this.unit = unit;
+    }
+
+    /**
+     * Marks the end of the submission; the cycle completes once its items are processed.
+     */
+    public void close() {
+        release();
+    }
+
+    /**
+     * Waits until every item of the cycle was persisted or failed.
+     *
+     * @param timeout the maximum time to wait
+     * @return this cycle
+     * @throws InterruptedException if the calling thread is interrupted while waiting
+     * @throws TimeoutException     if the cycle did not complete in time
+     */
+    public IngestCycle await(Duration timeout) throws InterruptedException, TimeoutException {
+        try {
+            return done.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Runs an action once every item of the cycle was persisted, failed or dropped.
+     *
+     * @param action the action, run on the thread that completes the cycle
+     */
+    public void whenDone(Consumer<IngestCycle> action) {
+        done.thenAccept(action);
+    }
+
+    public String getRunId() { return runId; }
+
+    public String getName() { return name; }
+
+    public String getUnit() { return unit; }
+
+    public int getPostsRead() { return postsRead.get(); }
+
+    public int getCommentsRead() { return commentsRead.get(); }
+
+    public int getPostsNew() { return postsNew.get(); }
+
+    public int getCommentsNew() { return commentsNew.get(); }
+
+    public Throwable getFailure() { return failure.get(); }
+
+    public boolean isFailed() { return failure.get() != null; }
+
+    public boolean isInterrupted() { return interrupted; }
+
+    public boolean isDone() { return done.isDone(); }
+
+    void expect() {
+        pending.incrementAndGet();
+    }
+
+    void completed(int readPosts, int readComments, int newPosts, int newComments) {
+        postsRead.addAndGet(readPosts);
+        commentsRead.addAndGet(readComments);
+        postsNew.addAndGet(newPosts);
+        commentsNew.addAndGet(newComments);
+        release();
+    }
+
+    void failed(Throwable cause) {
+        failure.compareAndSet(null, cause);
+        release();
+    }
+
+    // An expected item that was dropped without being processed
+    void skipped() {
+        interrupted = true;
+        release();
+    }
+
+    void interrupt() {
+        interrupted = true;
+    }
+
+    private void release() {
+        if (pending.decrementAndGet() == 0) {
+            done.complete(this);
+        }
+    }
+}
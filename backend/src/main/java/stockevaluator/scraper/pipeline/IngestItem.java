@@ -0,0 +1,42 @@
+package stockevaluator.scraper.pipeline;
+
+import stockevaluator.scraper.model.IngestBatch;
+import stockevaluator.scraper.model.RedditPost;
+
+/**
+ * A unit of work travelling through the ingestion pipeline.
+ *
+ * <p>Items either carry a comment thread that still has to be fetched, or a piece of an
+ * ingestion batch that was already read, such as the posts of a listing or a page of the comment
+ * stream.</p>
+ */
+class IngestItem {
+
+    private final IngestCycle cycle;
+    private final RedditPost thread;
+    private IngestBatch batch;
+
+    private IngestItem(IngestCycle cycle, RedditPost thread, IngestBatch batch) {
+        this.cycle = cycle;
+        this.thread = thread;
+        this.batch = batch;
+    }
+
+    static IngestItem ofThread(IngestCycle cycle, RedditPost thread) {
+        return new IngestItem(cycle, thread, new IngestBatch());
+    }
+
+    static IngestItem ofBatch(IngestCycle cycle, IngestBatch batch) {
+        return new IngestItem(cycle, null, batch);
+    }
+
+    IngestCycle getCycle() { return cycle; }
+
+    RedditPost getThread() { return thread; }
+
+    IngestBatch getBatch() { return batch; }
+
+    void setBatch(IngestBatch batch) { this.batch = batch; }
+
+    boolean isEmpty() { return batch.isEmpty() && batch.getCursors().isEmpty(); }
+}
@@ -0,0 +1,14 @@
+package stockevaluator.scraper.pipeline;
+
+import stockevaluator.scraper.model.IngestBatch;
+
+import java.util.List;
+
+/**
+ * A merged write batch together with the pipeline items it was built from.
+ *
+ * @param batch the batch to persist
+ * @param items the items merged into the batch
+ */
+record PendingWrite(IngestBatch batch, List<IngestItem> items) {
+}
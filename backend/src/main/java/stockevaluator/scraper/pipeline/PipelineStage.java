@@ -0,0 +1,237 @@
+package stockevaluator.scraper.pipeline;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * One stage of the ingestion pipeline: a bounded input queue served by a fixed number of worker
+ * threads.
+ *
+ * <p>{@link #put(Object)} blocks while the queue is full, so a slow stage holds back the stages in
+ * front of it instead of buffering without bound. Every stage reports the items it processed and
+ * failed, its queue depth, how long items waited in the queue and how long they took to
+ * process, all tagged with the stage name.</p>
+ *
+ * <p>{@link #drain(Instant)} lets the workers finish what is queued and flush what the function
+ * still buffers before the stage is stopped.</p>
+ *
+ * @param <I> the input type of the stage
+ * @param <O> the output type passed on to the next stage
+ */
+@Slf4j
+public class PipelineStage<I, O> {
+
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private final String name;
+    private final int workers;
+    private final BlockingQueue<Envelope<I>> queue;
+    private final StageFunction<I, O> function;
+    private final PipelineStage<O, ?> next;
+    private final BiConsumer<I, Exception> failureHandler;
+    private final List<Thread> threads = new ArrayList<>();
+    private volatile boolean running;
+    private volatile boolean draining;
+    // Items put into the queue and items fully handled, including passing on their output
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong handled = new AtomicLong();
+    // The handled count at the last drain flush that left nothing buffered
+    private volatile long flushedThrough = -1;
+
+    private final Counter processed;
+    private final Counter failed;
+    private final Timer waitTimer;
+    private final Timer latencyTimer;
+
+    public PipelineStage(String name, int workers, int queueCapacity, StageFunction<I, O> function,
+                         PipelineStage<O, ?> next, BiConsumer<I, Exception> failureHandler, MeterRegistry registry) {
+        this.name = name;
+        this.workers = workers;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.function = function;
+        this.next = next;
+        this.failureHandler = failureHandler;
+        this.processed = Counter.builder("reddit.pipeline.items")
+            .description("Items processed by an ingestion pipeline stage")
+            .tag("stage", name)
+            .register(registry);
+        this.failed = Counter.builder("reddit.pipeline.failures")
+            .description("Items an ingestion pipeline stage failed to process")
+            .tag("stage", name)
+            .register(registry);
+        this.waitTimer = Timer.builder("reddit.pipeline.wait")
+            .description("Time items waited in the queue of an ingestion pipeline stage")
+            .tag("stage", name)
+            .register(registry);
+        this.latencyTimer = Timer.builder("reddit.pipeline.latency")
+            .description("Time an ingestion pipeline stage spent processing an item")
+            .tag("stage", name)
+            .register(registry);
+        Gauge.builder("reddit.pipeline.queue", queue, BlockingQueue::size)
+            .description("Items waiting in the queue of an ingestion pipeline stage")
+            .tag("stage", name)
+            .register(registry);
+    }
+
+    /**
+     * Adds an item to the queue of the stage, waiting while the queue is full.
+     *
+     * @param item the item to process
+     * @throws InterruptedException if the calling thread is interrupted while waiting
+     */
+    public void put(I item) throws InterruptedException {
+        submitted.incrementAndGet();
+        try {
+            queue.put(new Envelope<>(item, System.nanoTime()));
+        } catch (InterruptedException e) {
+            submitted.decrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * Waits until every queued item was processed and passed on and the function flushed its
+     * buffered state. While draining, idle workers flush instead of waiting for their usual
+     * idle trigger.
+     *
+     * @param deadline the time to give up waiting
+     * @return true if the stage drained before the deadline
+     * @throws InterruptedException if the calling thread is interrupted while waiting
+     */
+    public boolean drain(Instant deadline) throws InterruptedException {
+        draining = true;
+        while (!isDrained()) {
+            if (Instant.now().isAfter(deadline)) {
+                return false;
+            }
+            Thread.sleep(IDLE_POLL_MILLIS);
+        }
+        return true;
+    }
+
+    /**
+     * Removes every item that is still waiting in the queue.
+     *
+     * @return the removed items
+     */
+    public List<I> clear() {
+        List<Envelope<I>> envelopes = new ArrayList<>();
+        queue.drainTo(envelopes);
+        handled.addAndGet(envelopes.size());
+        return envelopes.stream().map(Envelope::item).toList();
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        for (int i = 0; i < workers; i++) {
+            Thread thread = new Thread(this::work, "reddit-" + name + "-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            threads.add(thread);
+        }
+    }
+
+    public synchronized void stop() {
+        running = false;
+        draining = false;
+        threads.forEach(Thread::interrupt);
+        threads.clear();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    private void work() {
+        try {
+            while (running) {
+                Envelope<I> envelope = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (envelope != null) {
+                    pass(process(envelope));
+                    handled.incrementAndGet();
+                } else if (draining) {
+                    long before = handled.get();
+                    O output = flush();
+                    pass(output);
+                    if (output == null) {
+                        flushedThrough = before;
+                    }
+                } else {
+                    pass(idle());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void pass(O output) throws InterruptedException {
+        if (output != null && next != null) {
+            next.put(output);
+        }
+    }
+
+    private boolean isDrained() {
+        long expected = submitted.get();
+        return handled.get() == expected && flushedThrough == expected;
+    }
+
+    private O process(Envelope<I> envelope) {
+        long start = System.nanoTime();
+        waitTimer.record(start - envelope.enqueuedNanos(), TimeUnit.NANOSECONDS);
+        try {
+            O output = function.apply(envelope.item());
+            processed.increment();
+            return output;
+        } catch (Exception e) {
+            failed.increment();
+            log.error("Ingestion stage {} failed to process an item", name, e);
+            failureHandler.accept(envelope.item(), e);
+            return null;
+        } finally {
+            latencyTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private O idle() {
+        try {
+            return function.onIdle();
+        } catch (Exception e) {
+            failed.increment();
+            log.error("Ingestion stage {} failed while idle", name, e);
+            return null;
+        }
+    }
+
+    private O flush() {
+        try {
+            return function.onDrain();
+        } catch (Exception e) {
+            failed.increment();
+            log.error("Ingestion stage {} failed to flush while draining", name, e);
+            return null;
+        }
+    }
+
+    private record Envelope<T>(T item, long enqueuedNanos) {
+    }
+}
@@ -0,0 +1,366 @@
+package stockevaluator.scraper.pipeline;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import stockevaluator.config.RedditIngestionProperties;
+import stockevaluator.config.RedditPipelineProperties;
+import stockevaluator.scraper.exception.RedditApiException;
+import stockevaluator.scraper.model.CrawlCursor;
+import stockevaluator.scraper.model.IngestBatch;
+import stockevaluator.scraper.model.IngestCheckpoint;
+import stockevaluator.scraper.model.RedditComment;
+import stockevaluator.scraper.model.RedditPost;
+import stockevaluator.scraper.parser.CommentTree;
+import stockevaluator.scraper.repository.RedditIngestRepository;
+import stockevaluator.scraper.service.CommentTreeCrawler;
+import stockevaluator.scraper.service.IngestLeaseManager;
+import stockevaluator.scraper.service.IngestRunTracker;
+import stockevaluator.scraper.service.IngestionStateTracker;
+import stockevaluator.scraper.service.RedditIngestWriter;
+import stockevaluator.scraper.service.SentimentAnalyzer;
+import stockevaluator.scraper.service.TickerMentionExtractor;
+import stockevaluator.scraper.service.TrendingScoreEngine;
+import stockevaluator.scraper.service.TrendingWindowService;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Staged ingestion pipeline connecting the Reddit fetchers to the database.
+ *
+ * <p>Work flows through four stages, each with its own workers and bounded queue:</p>
+ * <ol>
+ *   <li><b>fetch</b> reads comment threads from Reddit; the response is parsed while it streams
+ *   in, so fetching and parsing share this stage.</li>
+ *   <li><b>enrich</b> drops comments that were already ingested, extracts ticker mentions and scores
+ *   sentiment.</li>
+ *   <li><b>aggregate</b> merges the pieces into write batches.</li>
+ *   <li><b>persist</b> writes each batch in one transaction, records it as ingested and adds the
+ *   mentions of its new items to the trending scores and windows.</li>
+ * </ol>
+ *
+ * <p>A slow database fills the persist and aggregate queues, which blocks the enrich workers and
+ * in turn the fetchers and the crawl cycles submitting work, so backpressure reaches Reddit
+ * instead of piling up in memory.</p>
+ *
+ * <p>Each batch is committed together with the crawl cursors it advances and the checkpoints of
+ * the runs it contains, and ticker mentions are only counted for items that were not stored
+ * before. A batch lost in a crash therefore leaves nothing behind and is read again after the
+ * restart, while a committed one is never counted twice. On shutdown the pipeline stops before
+ * the database does: it rejects new work, drops the threads that were not fetched yet, lets the
+ * running fetches finish and drains every later stage in order, so the aggregated batches are
+ * flushed and committed before the context closes.</p>
+ */
+@Slf4j
+@Component
+public class RedditIngestPipeline implements SmartLifecycle {
+
+    // Started before and stopped after the web server, while the data source is still open
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+    private final CommentTreeCrawler commentTreeCrawler;
+    private final IngestionStateTracker stateTracker;
+    private final TickerMentionExtractor tickerExtractor;
+    private final SentimentAnalyzer sentimentAnalyzer;
+    private final RedditIngestWriter ingestWriter;
+    private final TrendingScoreEngine trendingEngine;
+    private final TrendingWindowService trendingWindows;
+    private final RedditIngestRepository ingestRepository;
+    private final IngestRunTracker runTracker;
+    private final IngestLeaseManager leaseManager;
+    private final TransactionTemplate transactionTemplate;
+    private final RedditPipelineProperties properties;
+    private final int writeBatchSize;
+
+    private final PipelineStage<PendingWrite, Void> persistStage;
+    private final PipelineStage<IngestItem, PendingWrite> aggregateStage;
+    private final PipelineStage<IngestItem, IngestItem> enrichStage;
+    private final PipelineStage<IngestItem, IngestItem> fetchStage;
+    private volatile boolean accepting;
+    private volatile boolean running;
+
+    public RedditIngestPipeline(CommentTreeCrawler commentTreeCrawler, IngestionStateTracker stateTracker,
+                                TickerMentionExtractor tickerExtractor, SentimentAnalyzer sentimentAnalyzer,
+                                RedditIngestWriter ingestWriter, TrendingScoreEngine trendingEngine,
+                                TrendingWindowService trendingWindows,
+                                RedditIngestRepository ingestRepository, IngestRunTracker runTracker,
+                                IngestLeaseManager leaseManager, TransactionTemplate transactionTemplate,
+                                RedditPipelineProperties properties, RedditIngestionProperties ingestionProperties,
+                                MeterRegistry meterRegistry) {
+        this.commentTreeCrawler = commentTreeCrawler;
+        this.stateTracker = stateTracker;
+        this.tickerExtractor = tickerExtractor;
+        this.sentimentAnalyzer = sentimentAnalyzer;
+        this.ingestWriter = ingestWriter;
+        this.trendingEngine = trendingEngine;
+        this.trendingWindows = trendingWindows;
+        this.ingestRepository = ingestRepository;
+        this.runTracker = runTracker;
+        this.leaseManager = leaseManager;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+        this.writeBatchSize = ingestionProperties.getWriteBatchSize();
+
+        this.persistStage = new PipelineStage<>("persist", properties.getPersistWorkers(),
+            properties.getPersistQueueCapacity(), this::persist, null, this::failWrite, meterRegistry);
+        this.aggregateStage = new PipelineStage<>("aggregate", 1, properties.getAggregateQueueCapacity(),
+            new BatchAggregator(ingestionProperties.getWriteBatchSize(), properties.getAggregateLinger()),
+            persistStage, RedditIngestPipeline::failItem, meterRegistry);
+        this.enrichStage = new PipelineStage<>("enrich", properties.getEnrichWorkers(),
+            properties.getEnrichQueueCapacity(), this::enrich, aggregateStage, RedditIngestPipeline::failItem,
+            meterRegistry);
+        this.fetchStage = new PipelineStage<>("fetch", properties.getFetchWorkers(),
+            properties.getFetchQueueCapacity(), this::fetch, enrichStage, RedditIngestPipeline::failItem,
+            meterRegistry);
+    }
+
+    @Override
+    public synchronized void start() {
+        persistStage.start();
+        aggregateStage.start();
+        enrichStage.start();
+        fetchStage.start();
+        running = true;
+        accepting = true;
+    }
+
+    /**
+     * Drains the pipeline for shutdown. Threads still waiting to be fetched are dropped; their
+     * crawled comment counts were not advanced, so they are fetched again after the restart.
+     */
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        accepting = false;
+        for (IngestItem item : fetchStage.clear()) {
+            item.getCycle().skipped();
+        }
+        Instant deadline = Instant.now().plus(properties.getDrainTimeout());
+        try {
+            for (PipelineStage<?, ?> stage : List.of(fetchStage, enrichStage, aggregateStage, persistStage)) {
+                if (!stage.drain(deadline)) {
+                    log.warn("Ingestion stage {} did not drain within {}, {} items left in its queue",
+                        stage.getName(), properties.getDrainTimeout(), stage.getQueueDepth());
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        fetchStage.stop();
+        enrichStage.stop();
+        aggregateStage.stop();
+        persistStage.stop();
+        runTracker.interruptOpenRuns();
+        running = false;
+        log.info("Ingestion pipeline drained and stopped");
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    /**
+     * Opens a new ingestion cycle, recorded as a run whose checkpoint advances with every batch
+     * committed for it.
+     *
+     * @param name the scope of the cycle, e.g. {@code crawl:wallstreetbets}
+     * @param unit the work unit whose lease the cycle runs under
+     * @return the new cycle
+     */
+    public IngestCycle openCycle(String name, String unit) {
+        return runTracker.open(name, unit);
+    }
+
+    /**
+     * Submits a comment thread to be fetched, waiting while the fetch queue is full.
+     *
+     * @param cycle  the cycle the thread belongs to
+     * @param thread the thread to crawl
+     * @throws InterruptedException       if the calling thread is interrupted while waiting
+     * @throws RejectedExecutionException if the pipeline is shutting down
+     */
+    public void submitThread(IngestCycle cycle, RedditPost thread) throws InterruptedException {
+        submit(cycle, fetchStage, IngestItem.ofThread(cycle, thread));
+    }
+
+    /**
+     * Submits items that were already read, such as listing posts or streamed comments, waiting
+     * while the enrich queue is full.
+     *
+     * @param cycle the cycle the items belong to
+     * @param batch the posts, comments and cursors to ingest
+     * @throws InterruptedException       if the calling thread is interrupted while waiting
+     * @throws RejectedExecutionException if the pipeline is shutting down
+     */
+    public void submitBatch(IngestCycle cycle, IngestBatch batch) throws InterruptedException {
+        submit(cycle, enrichStage, IngestItem.ofBatch(cycle, batch));
+    }
+
+    public RedditPipelineProperties getProperties() {
+        return properties;
+    }
+
+    private void submit(IngestCycle cycle, PipelineStage<IngestItem, ?> stage, IngestItem item)
+        throws InterruptedException {
+        if (!accepting) {
+            cycle.interrupt();
+            throw new RejectedExecutionException("The ingestion pipeline is shutting down");
+        }
+        cycle.expect();
+        try {
+            stage.put(item);
+        } catch (InterruptedException e) {
+            cycle.skipped();
+            throw e;
+        }
+    }
+
+    // Megathreads are crawled newest first, down to the last comment stored for them
+    private IngestItem fetch(IngestItem item) {
+        RedditPost post = item.getThread();
+        CommentTree tree;
+        try {
+            tree = commentTreeCrawler.isMegathread(post)
+                ? commentTreeCrawler.crawlNewest(post, stateTracker.getCursor(IngestionStateTracker.threadScope(post.getId())))
+                : commentTreeCrawler.crawl(post);
+        } catch (RedditApiException e) {
+            // The crawled count stays behind, so the thread is retried next cycle
+            log.warn("Failed to fetch comments for post {}: {}", post.getId(), e.getMessage());
+            return item;
+        }
+        // The thread piece carries its own copy of the post to record the crawled comment count,
+        // leaving the listing's post untouched until this piece is persisted
+        // Comments left unexpanded keep the crawled count behind, so the thread is crawled again
+        RedditPost crawled = copyOf(post);
+        List<RedditComment> comments = tree.comments();
+        crawled.setCrawledCommentsCount(post.getCommentsCount() != null
+            ? Math.max(0, post.getCommentsCount() - tree.moreIds().size()) : null);
+        for (RedditComment comment : comments) {
+            comment.setPost(crawled);
+        }
+        IngestBatch batch = item.getBatch();
+        batch.getPosts().add(crawled);
+        batch.getComments().addAll(comments);
+        CrawlCursor cursor = stateTracker.advanceThread(post.getId(), comments, tree.moreIds());
+        if (cursor != null) {
+            batch.getCursors().add(cursor);
+        }
+        return item;
+    }
+
+    private IngestItem enrich(IngestItem item) {
+        IngestBatch batch = item.getBatch();
+        for (RedditPost post : batch.getPosts()) {
+            if (post.getTickerMentions() == null) {
+                String text = post.getTitle() + " " + Objects.toString(post.getContent(), "");
+                post.setTickerMentions(tickerExtractor.extract(text));
+                post.setSentiment(sentimentAnalyzer.score(text));
+            }
+        }
+        // Skip comments that were already ingested before extracting mentions
+        batch.getComments().removeIf(comment -> comment.getPost() == null
+            || stateTracker.isSeenComment(comment.getPost().getId(), comment));
+        for (RedditComment comment : batch.getComments()) {
+            comment.setTickerMentions(tickerExtractor.extract(comment.getContent()));
+            comment.setSentiment(sentimentAnalyzer.score(comment.getContent()));
+        }
+        return item;
+    }
+
+    // The batch, its cursors and the checkpoints of its runs are committed together, and only while
+    // this node still holds the leases of the batch's work units
+    private Void persist(PendingWrite write) {
+        Set<String> units = new TreeSet<>();
+        write.items().forEach(item -> units.add(item.getCycle().getUnit()));
+        List<Progress> progress = new ArrayList<>();
+        IngestBatch fresh = transactionTemplate.execute(status -> {
+            leaseManager.checkHeld(units);
+            IngestBatch written = ingestWriter.write(write.batch());
+            progress.addAll(progressOf(write, written));
+            ingestRepository.checkpointRuns(checkpoints(progress), writeBatchSize);
+            return written;
+        });
+        stateTracker.markWritten(write.batch());
+        // Only committed mentions count, so a batch that is rolled back and read again counts once
+        trendingEngine.record(fresh);
+        trendingWindows.record(fresh);
+        for (Progress item : progress) {
+            item.cycle().completed(item.postsRead(), item.commentsRead(), item.postsNew(), item.commentsNew());
+        }
+        return null;
+    }
+
+    private static List<Progress> progressOf(PendingWrite write, IngestBatch fresh) {
+        Set<String> freshPosts = new HashSet<>();
+        fresh.getPosts().forEach(post -> freshPosts.add(post.getId()));
+        Set<String> freshComments = new HashSet<>();
+        fresh.getComments().forEach(comment -> freshComments.add(comment.getId()));
+        List<Progress> progress = new ArrayList<>();
+        for (IngestItem item : write.items()) {
+            IngestBatch piece = item.getBatch();
+            // A thread piece repeats its post only to record the crawled comment count
+            int postsRead = item.getThread() == null ? piece.getPosts().size() : 0;
+            int postsNew = (int) piece.getPosts().stream().filter(post -> freshPosts.remove(post.getId())).count();
+            int commentsNew = (int) piece.getComments().stream()
+                .filter(comment -> freshComments.contains(comment.getId())).count();
+            progress.add(new Progress(item.getCycle(), postsRead, piece.getComments().size(),
+                postsNew, commentsNew));
+        }
+        return progress;
+    }
+
+    private static List<IngestCheckpoint> checkpoints(List<Progress> progress) {
+        // Sorted by run id so that concurrent batches lock run rows in the same order
+        Map<String, IngestCheckpoint> byRun = new TreeMap<>();
+        for (Progress item : progress) {
+            byRun.merge(item.cycle().getRunId(),
+                new IngestCheckpoint(item.cycle().getRunId(), item.postsNew(), item.commentsNew()),
+                (a, b) -> new IngestCheckpoint(a.runId(), a.postsNew() + b.postsNew(), a.commentsNew() + b.commentsNew()));
+        }
+        return new ArrayList<>(byRun.values());
+    }
+
+    private static RedditPost copyOf(RedditPost post) {
+        RedditPost copy = new RedditPost();
+        copy.setId(post.getId());
+        copy.setTitle(post.getTitle());
+        copy.setContent(post.getContent());
+        copy.setAuthor(post.getAuthor());
+        copy.setScore(post.getScore());
+        copy.setCommentsCount(post.getCommentsCount());
+        copy.setCreatedDate(post.getCreatedDate());
+        copy.setFlair(post.getFlair());
+        return copy;
+    }
+
+    private void failWrite(PendingWrite write, Exception e) {
+        write.items().forEach(item -> item.getCycle().failed(e));
+    }
+
+    private static void failItem(IngestItem item, Exception e) {
+        item.getCycle().failed(e);
+    }
+
+    private record Progress(IngestCycle cycle, int postsRead, int commentsRead, int postsNew, int commentsNew) {
+    }
+}
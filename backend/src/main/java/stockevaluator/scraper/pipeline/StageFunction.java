@@ -0,0 +1,41 @@
+package stockevaluator.scraper.pipeline;
+
+/**
+ * The work done by one pipeline stage for every item it takes from its queue.
+ *
+ * @param <I> the input type of the stage
+ * @param <O> the output type passed on to the next stage
+ */
+@FunctionalInterface
+public interface StageFunction<I, O> {
+
+    /**
+     * Processes an item.
+     *
+     * @param item the item taken from the queue
+     * @return the item to pass on, or null to pass nothing on
+     * @throws Exception if the item cannot be processed
+     */
+    O apply(I item) throws Exception;
+
+    /**
+     * Called when no item arrived for a short while, e.g. to flush buffered state.
+     *
+     * @return the item to pass on, or null to pass nothing on
+     * @throws Exception if the buffered state cannot be processed
+     */
+    default O onIdle() throws Exception {
+        return null;
+    }
+
+    /**
+     * Called when no item arrived while the pipeline drains for shutdown, to flush all buffered
+     * state regardless of the usual idle trigger. Called again until it returns null.
+     *
+     * @return the item to pass on, or null once nothing is buffered
+     * @throws Exception if the buffered state cannot be processed
+     */
+    default O onDrain() throws Exception {
+        return null;
+    }
+}
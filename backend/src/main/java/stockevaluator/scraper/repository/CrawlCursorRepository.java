@@ -0,0 +1,14 @@
+package stockevaluator.scraper.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import stockevaluator.scraper.model.CrawlCursor;
+
+import java.util.List;
+
+@Repository
+public interface CrawlCursorRepository extends JpaRepository<CrawlCursor, String> {
+    List<CrawlCursor> findByScopeNotLike(String pattern);
+    List<CrawlCursor> findByScopeStartingWith(String prefix);
+}
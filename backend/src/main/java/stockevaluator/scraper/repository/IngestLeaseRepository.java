@@ -0,0 +1,129 @@
+package stockevaluator.scraper.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * JDBC access to the ingestion node registry and work unit leases.
+ *
+ * <p>All expiry times are computed with the database clock, so nodes with skewed clocks still
+ * agree on when a lease has expired. Taking a lease is a conditional update that only succeeds
+ * while the lease is free, expired or already owned by the caller.</p>
+ */
+@Repository
+public class IngestLeaseRepository {
+
+    private static final String HEARTBEAT = """
+        INSERT INTO ingest_nodes (id, started_at, heartbeat_at)
+        VALUES (?, NOW(3), NOW(3))
+        ON DUPLICATE KEY UPDATE heartbeat_at = NOW(3)""";
+
+    private static final String TAKE_LEASE = """
+        UPDATE ingest_leases SET owner = ?, acquired_at = NOW(3),
+            expires_at = TIMESTAMPADD(MICROSECOND, ?, NOW(3))
+        WHERE unit = ? AND (owner = ? OR owner IS NULL OR expires_at <= NOW(3))""";
+
+    private static final String CREATE_LEASE = """
+        INSERT IGNORE INTO ingest_leases (unit, owner, acquired_at, expires_at)
+        VALUES (?, ?, NOW(3), TIMESTAMPADD(MICROSECOND, ?, NOW(3)))""";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public IngestLeaseRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void heartbeat(String nodeId) {
+        jdbcTemplate.update(HEARTBEAT, nodeId);
+    }
+
+    /**
+     * Returns the ids of the nodes whose last heartbeat is younger than the given TTL.
+     */
+    public List<String> findLiveNodes(Duration ttl) {
+        return jdbcTemplate.queryForList("SELECT id FROM ingest_nodes"
+            + " WHERE heartbeat_at > TIMESTAMPADD(MICROSECOND, ?, NOW(3)) ORDER BY id", String.class, -micros(ttl));
+    }
+
+    public void deleteNode(String nodeId) {
+        jdbcTemplate.update("DELETE FROM ingest_nodes WHERE id = ?", nodeId);
+    }
+
+    public int deleteNodesSilentFor(Duration age) {
+        return jdbcTemplate.update("DELETE FROM ingest_nodes WHERE heartbeat_at < TIMESTAMPADD(MICROSECOND, ?, NOW(3))",
+            -micros(age));
+    }
+
+    /**
+     * Extends every unexpired lease of a node by the TTL.
+     *
+     * @return the number of leases renewed
+     */
+    public int renewLeases(String owner, Duration ttl) {
+        return jdbcTemplate.update("UPDATE ingest_leases SET expires_at = TIMESTAMPADD(MICROSECOND, ?, NOW(3))"
+            + " WHERE owner = ? AND expires_at > NOW(3)", micros(ttl), owner);
+    }
+
+    /**
+     * Returns the owner of every unexpired lease by work unit.
+     */
+    public Map<String, String> findLeaseOwners() {
+        Map<String, String> owners = new HashMap<>();
+        RowCallbackHandler handler = rs -> owners.put(rs.getString(1), rs.getString(2));
+        jdbcTemplate.query("SELECT unit, owner FROM ingest_leases WHERE owner IS NOT NULL AND expires_at > NOW(3)",
+            handler);
+        return owners;
+    }
+
+    /**
+     * Takes the lease on a unit if it is free, expired or already owned by the caller.
+     *
+     * @return true if the caller owns the lease afterwards
+     */
+    public boolean tryAcquire(String unit, String owner, Duration ttl) {
+        if (jdbcTemplate.update(TAKE_LEASE, owner, micros(ttl), unit, owner) > 0) {
+            return true;
+        }
+        return jdbcTemplate.update(CREATE_LEASE, unit, owner, micros(ttl)) > 0;
+    }
+
+    public void release(String unit, String owner) {
+        jdbcTemplate.update("UPDATE ingest_leases SET owner = NULL, expires_at = NOW(3) WHERE unit = ? AND owner = ?",
+            unit, owner);
+    }
+
+    public void releaseAll(String owner) {
+        jdbcTemplate.update("UPDATE ingest_leases SET owner = NULL, expires_at = NOW(3) WHERE owner = ?", owner);
+    }
+
+    /**
+     * Returns which of the given units the owner still holds, share-locking their lease rows until
+     * the end of the current transaction so the leases cannot change hands before it commits.
+     */
+    public Set<String> lockHeldUnits(Collection<String> units, String owner) {
+        if (units.isEmpty()) {
+            return Collections.emptySet();
+        }
+        List<Object> args = new ArrayList<>(units);
+        args.add(owner);
+        String placeholders = String.join(", ", Collections.nCopies(units.size(), "?"));
+        return new HashSet<>(jdbcTemplate.queryForList("SELECT unit FROM ingest_leases WHERE unit IN ("
+            + placeholders + ") AND owner = ? AND expires_at > NOW(3) LOCK IN SHARE MODE", String.class,
+            args.toArray()));
+    }
+
+    private static long micros(Duration duration) {
+        return duration.toNanos() / 1000;
+    }
+}
@@ -0,0 +1,13 @@
+package stockevaluator.scraper.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import stockevaluator.scraper.model.IngestRun;
+
+import java.util.List;
+
+@Repository
+public interface IngestRunRepository extends JpaRepository<IngestRun, String> {
+    List<IngestRun> findByStatus(IngestRun.Status status);
+}
@@ -0,0 +1,389 @@
+package stockevaluator.scraper.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import stockevaluator.scraper.model.CrawlCursor;
+import stockevaluator.scraper.model.IngestCheckpoint;
+import stockevaluator.scraper.model.IngestRun;
+import stockevaluator.scraper.model.RedditComment;
+import stockevaluator.scraper.model.RedditPost;
+import stockevaluator.scraper.model.TickerMentionTally;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.function.Consumer;
+
+/**
+ * JDBC batch writer for ingested Reddit data.
+ *
+ * <p>Posts and comments have assigned ids, so saving them through JPA turns every row into a
+ * SELECT followed by an INSERT or UPDATE, and re-creates their ticker mention collections. This
+ * repository writes them with native MySQL upserts sent in JDBC batches instead, which the driver
+ * rewrites into multi-row statements when {@code rewriteBatchedStatements} is enabled.</p>
+ *
+ * <p>Rewritten batches do not report which rows were inserted and which updated. Every upsert of
+ * posts and comments therefore stores a token unique to the write in the rows it inserts, and the
+ * inserted rows are read back by that token. A row another writer inserted first stays locked until
+ * that writer commits and keeps its token, so of several concurrent writers exactly one sees an item
+ * as new.</p>
+ */
+@Repository
+public class RedditIngestRepository {
+
+    // A stub row is taken over by the first write of the full post, which then counts as inserting it
+    private static final String UPSERT_POST = """
+        INSERT INTO reddit_posts (id, title, content, author, score, comments_count, crawled_comments_count,
+            created_date, sentiment, ingest_token)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+        ON DUPLICATE KEY UPDATE
+            ingest_token = IF(created_date IS NULL AND ingest_token IS NULL, VALUES(ingest_token), ingest_token),
+            created_date = COALESCE(created_date, VALUES(created_date)),
+            title = VALUES(title), content = VALUES(content),
+            score = VALUES(score), comments_count = VALUES(comments_count), sentiment = VALUES(sentiment),
+            crawled_comments_count = COALESCE(VALUES(crawled_comments_count), crawled_comments_count)""";
+
+    private static final String INSERT_POST_STUB = """
+        INSERT INTO reddit_posts (id, title, author)
+        VALUES (?, ?, ?)
+        ON DUPLICATE KEY UPDATE id = id""";
+
+    private static final String UPSERT_COMMENT = """
+        INSERT INTO reddit_comments (id, post_id, content, author, score, created_date, sentiment, ingest_token)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+        ON DUPLICATE KEY UPDATE content = VALUES(content), score = VALUES(score), sentiment = VALUES(sentiment)""";
+
+    private static final String INSERT_POST_MENTION = """
+        INSERT INTO post_ticker_mentions (post_id, ticker)
+        SELECT ?, ? FROM DUAL
+        WHERE NOT EXISTS (SELECT 1 FROM post_ticker_mentions WHERE post_id = ? AND ticker = ?)""";
+
+    private static final String INSERT_COMMENT_MENTION = """
+        INSERT INTO comment_ticker_mentions (comment_id, ticker)
+        SELECT ?, ? FROM DUAL
+        WHERE NOT EXISTS (SELECT 1 FROM comment_ticker_mentions WHERE comment_id = ? AND ticker = ?)""";
+
+    private static final String INCREMENT_TICKER = """
+        INSERT INTO tickers (symbol, company_name, mention_count, sentiment_score, trending_score)
+        VALUES (?, ?, ?, ?, 0)
+        ON DUPLICATE KEY UPDATE mention_count = mention_count + VALUES(mention_count),
+            company_name = COALESCE(VALUES(company_name), company_name),
+            sentiment_score = COALESCE(sentiment_score, 0)
+                + ? * (VALUES(sentiment_score) - COALESCE(sentiment_score, 0))""";
+
+    private static final String UPSERT_CURSOR = """
+        INSERT INTO crawl_cursors (scope, newest_created_utc, newest_fullname, backfill_fullname, updated_at)
+        VALUES (?, ?, ?, ?, ?)
+        ON DUPLICATE KEY UPDATE
+            newest_fullname = IF(newest_created_utc IS NULL OR VALUES(newest_created_utc) > newest_created_utc,
+                VALUES(newest_fullname), newest_fullname),
+            backfill_fullname = IF(newest_created_utc IS NULL OR VALUES(newest_created_utc) >= newest_created_utc,
+                VALUES(backfill_fullname), backfill_fullname),
+            newest_created_utc = GREATEST(COALESCE(newest_created_utc, VALUES(newest_created_utc)),
+                COALESCE(VALUES(newest_created_utc), newest_created_utc)),
+            updated_at = VALUES(updated_at)""";
+
+    private static final String CHECKPOINT_RUN = """
+        UPDATE ingest_runs SET batches_committed = batches_committed + 1,
+            posts_new = posts_new + ?, comments_new = comments_new + ?, checkpoint_at = ?
+        WHERE id = ?""";
+
+    private static final int ID_QUERY_CHUNK = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public RedditIngestRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Returns the ids of the given posts that were inserted by the upsert carrying the given token,
+     * including stub rows it turned into full posts. Must be called in the transaction of that
+     * upsert.
+     */
+    public Set<String> findPostIdsInsertedBy(String token, Collection<String> ids) {
+        return findIdsInsertedBy("reddit_posts", token, ids);
+    }
+
+    /**
+     * Returns the ids of the given comments that were inserted by the upsert carrying the given
+     * token. Must be called in the transaction of that upsert.
+     */
+    public Set<String> findCommentIdsInsertedBy(String token, Collection<String> ids) {
+        return findIdsInsertedBy("reddit_comments", token, ids);
+    }
+
+    /**
+     * Returns the comment count each stored post had when its comments were last crawled, 0 for
+     * stored posts whose comments were never crawled.
+     *
+     * @param ids the post ids to look up
+     * @return the crawled comment count per stored post id
+     */
+    public Map<String, Integer> findCrawledCommentCounts(Collection<String> ids) {
+        Map<String, Integer> counts = new HashMap<>();
+        if (ids.isEmpty()) {
+            return counts;
+        }
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        RowCallbackHandler handler = rs -> counts.put(rs.getString(1), rs.getInt(2));
+        jdbcTemplate.query("SELECT id, COALESCE(crawled_comments_count, 0) FROM reddit_posts"
+            + " WHERE id IN (" + placeholders + ")", handler, ids.toArray());
+        return counts;
+    }
+
+    public void forEachCommentIdSince(LocalDateTime since, Consumer<String> consumer) {
+        RowCallbackHandler handler = rs -> consumer.accept(rs.getString(1));
+        jdbcTemplate.query("SELECT id FROM reddit_comments WHERE created_date >= ?", handler, since);
+    }
+
+    /**
+     * Writes crawl cursors without ever moving a stored cursor back. The newest fullname only
+     * changes when the new timestamp is later, and the backfill floor only when it is not earlier,
+     * so a node crawling from a stale cursor cannot undo what the previous owner of the scope
+     * recorded. MySQL applies the assignments left to right, so the timestamp is updated last.
+     *
+     * @param cursors   the cursors to write
+     * @param batchSize the number of statements per JDBC batch
+     * @return the number of cursors written
+     */
+    public int upsertCursors(Collection<CrawlCursor> cursors, int batchSize) {
+        jdbcTemplate.batchUpdate(UPSERT_CURSOR, cursors, batchSize, (ps, cursor) -> {
+            ps.setString(1, cursor.getScope());
+            ps.setObject(2, cursor.getNewestCreatedUtc(), Types.BIGINT);
+            ps.setString(3, cursor.getNewestFullname());
+            ps.setString(4, cursor.getBackfillFullname());
+            ps.setObject(5, cursor.getUpdatedAt());
+        });
+        return cursors.size();
+    }
+
+    /**
+     * Deletes the cursors of the scopes with the given prefix that have not moved since the cutoff.
+     *
+     * @param scopePrefix the prefix of the scopes, e.g. {@code thread:}
+     * @param cutoff      the oldest update time kept
+     * @return the number of cursors deleted
+     */
+    public int deleteCursorsUpdatedBefore(String scopePrefix, LocalDateTime cutoff) {
+        return jdbcTemplate.update("DELETE FROM crawl_cursors WHERE scope LIKE ? AND updated_at < ?",
+            scopePrefix + "%", cutoff);
+    }
+
+    /**
+     * Advances the checkpoints of the runs that contributed to a batch. Must be called in the
+     * transaction that writes the batch, so a checkpoint never covers uncommitted items.
+     *
+     * @param checkpoints the progress per run
+     * @param batchSize   the number of statements per JDBC batch
+     * @return the number of runs updated
+     */
+    public int checkpointRuns(Collection<IngestCheckpoint> checkpoints, int batchSize) {
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.batchUpdate(CHECKPOINT_RUN, checkpoints, batchSize, (ps, checkpoint) -> {
+            ps.setInt(1, checkpoint.postsNew());
+            ps.setInt(2, checkpoint.commentsNew());
+            ps.setObject(3, now);
+            ps.setString(4, checkpoint.runId());
+        });
+        return checkpoints.size();
+    }
+
+    public void finishRun(String runId, IngestRun.Status status) {
+        jdbcTemplate.update("UPDATE ingest_runs SET status = ?, finished_at = ? WHERE id = ?",
+            status.name(), LocalDateTime.now(), runId);
+    }
+
+    public int deleteRunsFinishedBefore(LocalDateTime cutoff) {
+        return jdbcTemplate.update("DELETE FROM ingest_runs WHERE finished_at < ?", cutoff);
+    }
+
+    /**
+     * Inserts or updates posts. Inserted posts are marked with the token of the write, so that
+     * {@link #findPostIdsInsertedBy} can tell them apart from posts another writer stored first.
+     */
+    public int upsertPosts(Collection<RedditPost> posts, String token, int batchSize) {
+        jdbcTemplate.batchUpdate(UPSERT_POST, posts, batchSize, (ps, post) -> {
+            ps.setString(1, post.getId());
+            ps.setString(2, post.getTitle());
+            ps.setString(3, post.getContent());
+            ps.setString(4, post.getAuthor());
+            setInteger(ps, 5, post.getScore());
+            setInteger(ps, 6, post.getCommentsCount());
+            setInteger(ps, 7, post.getCrawledCommentsCount());
+            ps.setObject(8, post.getCreatedDate());
+            setDouble(ps, 9, post.getSentiment());
+            ps.setString(10, token);
+        });
+        return posts.size();
+    }
+
+    /**
+     * Inserts a minimal row for posts that are not stored yet, leaving stored posts untouched.
+     * Used for the parents of comments read from a subreddit-wide comment stream.
+     */
+    public int insertPostStubs(Collection<RedditPost> posts, int batchSize) {
+        jdbcTemplate.batchUpdate(INSERT_POST_STUB, posts, batchSize, (ps, post) -> {
+            ps.setString(1, post.getId());
+            ps.setString(2, post.getTitle());
+            ps.setString(3, post.getAuthor());
+        });
+        return posts.size();
+    }
+
+    /**
+     * Inserts or updates comments. Inserted comments are marked with the token of the write, so that
+     * {@link #findCommentIdsInsertedBy} can tell them apart from comments another writer stored
+     * first.
+     */
+    public int upsertComments(Collection<RedditComment> comments, String token, int batchSize) {
+        jdbcTemplate.batchUpdate(UPSERT_COMMENT, comments, batchSize, (ps, comment) -> {
+            ps.setString(1, comment.getId());
+            ps.setString(2, comment.getPost() != null ? comment.getPost().getId() : null);
+            ps.setString(3, comment.getContent());
+            ps.setString(4, comment.getAuthor());
+            setInteger(ps, 5, comment.getScore());
+            ps.setObject(6, comment.getCreatedDate());
+            setDouble(ps, 7, comment.getSentiment());
+            ps.setString(8, token);
+        });
+        return comments.size();
+    }
+
+    public int insertPostMentions(Collection<RedditPost> posts, int batchSize) {
+        List<Map.Entry<String, String>> rows = new ArrayList<>();
+        for (RedditPost post : posts) {
+            addMentionRows(rows, post.getId(), post.getTickerMentions());
+        }
+        return insertMentions(INSERT_POST_MENTION, rows, batchSize);
+    }
+
+    public int insertCommentMentions(Collection<RedditComment> comments, int batchSize) {
+        List<Map.Entry<String, String>> rows = new ArrayList<>();
+        for (RedditComment comment : comments) {
+            addMentionRows(rows, comment.getId(), comment.getTickerMentions());
+        }
+        return insertMentions(INSERT_COMMENT_MENTION, rows, batchSize);
+    }
+
+    /**
+     * Atomically adds the given mentions to the ticker counters, creating missing tickers.
+     *
+     * <p>The increment is applied by the database, so concurrent writers cannot lose updates. Rows
+     * are sent in symbol order so that concurrent batches lock tickers in the same order. The
+     * rolling sentiment of a ticker moves towards the sentiment of its new mentions as far as their
+     * weight allows; a new ticker starts at that sentiment.</p>
+     *
+     * @param tallies      the new mentions per ticker symbol
+     * @param companyNames the company name per symbol, stored for tickers that have one
+     * @param smoothing    the smoothing factor of the rolling sentiment per unit of mention weight
+     * @param batchSize    the number of statements per JDBC batch
+     * @return the number of tickers updated
+     */
+    public int incrementTickerMentions(SortedMap<String, TickerMentionTally> tallies, Map<String, String> companyNames,
+                                       double smoothing, int batchSize) {
+        jdbcTemplate.batchUpdate(INCREMENT_TICKER, tallies.entrySet(), batchSize, (ps, entry) -> {
+            TickerMentionTally tally = entry.getValue();
+            ps.setString(1, entry.getKey());
+            ps.setString(2, companyNames.get(entry.getKey()));
+            ps.setInt(3, tally.getMentions());
+            ps.setDouble(4, tally.getSentiment());
+            ps.setDouble(5, tally.smoothingFactor(smoothing));
+        });
+        return tallies.size();
+    }
+
+    /**
+     * Sets the company name of stored tickers whose name is missing or differs from the given one.
+     *
+     * @param companyNames the company name per symbol
+     * @param batchSize    the number of statements per JDBC batch
+     * @return the number of tickers updated
+     */
+    public int updateCompanyNames(Map<String, String> companyNames, int batchSize) {
+        List<Map.Entry<String, String>> changed = new ArrayList<>();
+        RowCallbackHandler handler = rs -> {
+            String name = companyNames.get(rs.getString(1));
+            if (name != null && !name.equals(rs.getString(2))) {
+                changed.add(Map.entry(rs.getString(1), name));
+            }
+        };
+        jdbcTemplate.query("SELECT symbol, company_name FROM tickers", handler);
+        jdbcTemplate.batchUpdate("UPDATE tickers SET company_name = ? WHERE symbol = ?", changed, batchSize,
+            (ps, entry) -> {
+                ps.setString(1, entry.getValue());
+                ps.setString(2, entry.getKey());
+            });
+        return changed.size();
+    }
+
+    private Set<String> findIdsInsertedBy(String table, String token, Collection<String> ids) {
+        Set<String> inserted = new HashSet<>();
+        List<String> chunk = new ArrayList<>(Math.min(ids.size(), ID_QUERY_CHUNK));
+        for (String id : ids) {
+            chunk.add(id);
+            if (chunk.size() == ID_QUERY_CHUNK) {
+                inserted.addAll(queryIdsInsertedBy(table, token, chunk));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            inserted.addAll(queryIdsInsertedBy(table, token, chunk));
+        }
+        return inserted;
+    }
+
+    private List<String> queryIdsInsertedBy(String table, String token, List<String> ids) {
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        List<Object> args = new ArrayList<>(ids);
+        args.add(token);
+        return jdbcTemplate.queryForList("SELECT id FROM " + table + " WHERE id IN (" + placeholders + ")"
+            + " AND ingest_token = ?", String.class, args.toArray());
+    }
+
+    private int insertMentions(String sql, List<Map.Entry<String, String>> rows, int batchSize) {
+        jdbcTemplate.batchUpdate(sql, rows, batchSize, (ps, row) -> {
+            ps.setString(1, row.getKey());
+            ps.setString(2, row.getValue());
+            ps.setString(3, row.getKey());
+            ps.setString(4, row.getValue());
+        });
+        return rows.size();
+    }
+
+    private static void addMentionRows(List<Map.Entry<String, String>> rows, String ownerId, Set<String> tickers) {
+        if (tickers == null) {
+            return;
+        }
+        for (String ticker : tickers) {
+            rows.add(Map.entry(ownerId, ticker));
+        }
+    }
+
+    private static void setInteger(PreparedStatement ps, int index, Integer value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.INTEGER);
+        } else {
+            ps.setInt(index, value);
+        }
+    }
+
+    private static void setDouble(PreparedStatement ps, int index, Double value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.DOUBLE);
+        } else {
+            ps.setDouble(index, value);
+        }
+    }
+}
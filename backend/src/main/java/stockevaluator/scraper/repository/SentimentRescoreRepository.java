@@ -0,0 +1,141 @@
+package stockevaluator.scraper.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import stockevaluator.scraper.model.StoredText;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * JDBC access for re-scoring the sentiment of the stored posts and comments.
+ *
+ * <p>Items are read in chunks in id order, each chunk starting after the last id of the previous
+ * one, so every query is a range scan of the primary key no matter how far the job has got.</p>
+ */
+@Repository
+public class SentimentRescoreRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SentimentRescoreRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public long countPosts() {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM reddit_posts", Long.class);
+        return count != null ? count : 0;
+    }
+
+    public long countComments() {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM reddit_comments", Long.class);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * Returns the next posts in id order, with their title and body as text.
+     *
+     * @param afterId the last id of the previous chunk, empty for the first chunk
+     * @param limit   the maximum number of posts
+     */
+    public List<StoredText> findPostsAfter(String afterId, int limit) {
+        return jdbcTemplate.query("SELECT id, CONCAT_WS(' ', title, content), score FROM reddit_posts"
+            + " WHERE id > ? ORDER BY id LIMIT ?", (rs, row) -> toStoredText(rs), afterId, limit);
+    }
+
+    /**
+     * Returns the next comments in id order.
+     *
+     * @param afterId the last id of the previous chunk, empty for the first chunk
+     * @param limit   the maximum number of comments
+     */
+    public List<StoredText> findCommentsAfter(String afterId, int limit) {
+        return jdbcTemplate.query("SELECT id, content, score FROM reddit_comments"
+            + " WHERE id > ? ORDER BY id LIMIT ?", (rs, row) -> toStoredText(rs), afterId, limit);
+    }
+
+    public Map<String, List<String>> findPostMentions(Collection<String> postIds) {
+        return findMentions("SELECT post_id, ticker FROM post_ticker_mentions WHERE post_id IN ", postIds);
+    }
+
+    public Map<String, List<String>> findCommentMentions(Collection<String> commentIds) {
+        return findMentions("SELECT comment_id, ticker FROM comment_ticker_mentions WHERE comment_id IN ", commentIds);
+    }
+
+    public void updatePostSentiments(List<StoredText> posts, double[] sentiments, int batchSize) {
+        updateSentiments("UPDATE reddit_posts SET sentiment = ? WHERE id = ?", posts, sentiments, batchSize);
+    }
+
+    public void updateCommentSentiments(List<StoredText> comments, double[] sentiments, int batchSize) {
+        updateSentiments("UPDATE reddit_comments SET sentiment = ? WHERE id = ?", comments, sentiments, batchSize);
+    }
+
+    /**
+     * Returns the rolling sentiment of every ticker that has one.
+     */
+    public Map<String, Double> findTickerSentiments() {
+        Map<String, Double> sentiments = new HashMap<>();
+        RowCallbackHandler handler = rs -> sentiments.put(rs.getString(1), rs.getDouble(2));
+        jdbcTemplate.query("SELECT symbol, sentiment_score FROM tickers WHERE sentiment_score IS NOT NULL", handler);
+        return sentiments;
+    }
+
+    /**
+     * Replaces the rolling sentiment of the given tickers, keeping whatever ingestion moved them by
+     * since the given snapshot was taken. The stored value becomes the rebuilt one plus the
+     * difference between the current value and the snapshot, clamped to the sentiment range.
+     *
+     * @param sentiments the rebuilt sentiment per ticker symbol
+     * @param snapshot   the sentiment per ticker symbol when the rebuild started, missing for tickers
+     *                   that had none
+     * @param batchSize  the number of statements per JDBC batch
+     * @return the number of tickers updated
+     */
+    public int mergeTickerSentiments(SortedMap<String, Double> sentiments, Map<String, Double> snapshot,
+                                     int batchSize) {
+        jdbcTemplate.batchUpdate("UPDATE tickers SET sentiment_score = GREATEST(-1, LEAST(1,"
+                + " ? + COALESCE(sentiment_score, 0) - ?)) WHERE symbol = ?", sentiments.entrySet(), batchSize,
+            (ps, entry) -> {
+                ps.setDouble(1, entry.getValue());
+                ps.setDouble(2, snapshot.getOrDefault(entry.getKey(), 0.0));
+                ps.setString(3, entry.getKey());
+            });
+        return sentiments.size();
+    }
+
+    private void updateSentiments(String sql, List<StoredText> items, double[] sentiments, int batchSize) {
+        List<Integer> indexes = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            indexes.add(i);
+        }
+        jdbcTemplate.batchUpdate(sql, indexes, batchSize, (ps, index) -> {
+            ps.setDouble(1, sentiments[index]);
+            ps.setString(2, items.get(index).id());
+        });
+    }
+
+    private Map<String, List<String>> findMentions(String sql, Collection<String> ids) {
+        Map<String, List<String>> mentions = new HashMap<>();
+        if (ids.isEmpty()) {
+            return mentions;
+        }
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        RowCallbackHandler handler = rs -> mentions.computeIfAbsent(rs.getString(1), id -> new ArrayList<>())
+            .add(rs.getString(2));
+        jdbcTemplate.query(sql + "(" + placeholders + ")", handler, ids.toArray());
+        return mentions;
+    }
+
+    private static StoredText toStoredText(ResultSet rs) throws SQLException {
+        int score = rs.getInt(3);
+        return new StoredText(rs.getString(1), rs.getString(2), rs.wasNull() ? null : score);
+    }
+}
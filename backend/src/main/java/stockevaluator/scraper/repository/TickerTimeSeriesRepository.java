@@ -0,0 +1,106 @@
+package stockevaluator.scraper.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import stockevaluator.scraper.model.TickerMentionBucket;
+import stockevaluator.scraper.model.TickerMentionBucket.Resolution;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * JDBC access to the mention buckets of tickers.
+ *
+ * <p>New mentions are added to the stored buckets with one upsert per bucket: counters and sums
+ * are added and the author bitmaps or-ed together, which needs the bitwise operators on binary
+ * strings of MySQL 8.</p>
+ */
+@Repository
+public class TickerTimeSeriesRepository {
+
+    private static final String ADD_TO_BUCKET = """
+        INSERT INTO ticker_mention_buckets (id, symbol, resolution, bucket_start, mentions, score_sum,
+            sentiment_weight, sentiment_sum, authors)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+        ON DUPLICATE KEY UPDATE
+            mentions = mentions + VALUES(mentions),
+            score_sum = score_sum + VALUES(score_sum),
+            sentiment_weight = sentiment_weight + VALUES(sentiment_weight),
+            sentiment_sum = sentiment_sum + VALUES(sentiment_sum),
+            authors = authors | VALUES(authors)""";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TickerTimeSeriesRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Adds buckets to the stored ones. Pass them sorted by id so that concurrent writers lock the
+     * rows in the same order.
+     *
+     * @return the number of buckets written
+     */
+    public int addToBuckets(Collection<TickerMentionBucket> buckets, int batchSize) {
+        jdbcTemplate.batchUpdate(ADD_TO_BUCKET, buckets, batchSize, (ps, bucket) -> {
+            ps.setString(1, bucket.getId());
+            ps.setString(2, bucket.getSymbol());
+            ps.setString(3, bucket.getResolution().name());
+            ps.setObject(4, bucket.getBucketStart());
+            ps.setInt(5, bucket.getMentions());
+            ps.setLong(6, bucket.getScoreSum());
+            ps.setDouble(7, bucket.getSentimentWeight());
+            ps.setDouble(8, bucket.getSentimentSum());
+            ps.setBytes(9, bucket.getAuthors());
+        });
+        return buckets.size();
+    }
+
+    /**
+     * Returns the buckets of a ticker and resolution that start in the given range, oldest first.
+     *
+     * @param from the start of the first bucket
+     * @param to   the end of the range, exclusive
+     */
+    public List<TickerMentionBucket> findSeries(String symbol, Resolution resolution, LocalDateTime from,
+                                                LocalDateTime to) {
+        return jdbcTemplate.query("SELECT bucket_start, mentions, score_sum, sentiment_weight, sentiment_sum,"
+            + " authors FROM ticker_mention_buckets WHERE id >= ? AND id < ? ORDER BY id", (rs, row) -> {
+                TickerMentionBucket bucket = new TickerMentionBucket();
+                bucket.setSymbol(symbol);
+                bucket.setResolution(resolution);
+                bucket.setBucketStart(rs.getObject(1, LocalDateTime.class));
+                bucket.setMentions(rs.getInt(2));
+                bucket.setScoreSum(rs.getLong(3));
+                bucket.setSentimentWeight(rs.getDouble(4));
+                bucket.setSentimentSum(rs.getDouble(5));
+                bucket.setAuthors(rs.getBytes(6));
+                return bucket;
+            }, TickerMentionBucket.idOf(symbol, resolution, from), TickerMentionBucket.idOf(symbol, resolution, to));
+    }
+
+    /**
+     * Passes the symbol, start and mention count of every bucket of a resolution that starts at or
+     * after the given time.
+     */
+    public void forEachBucketSince(Resolution resolution, LocalDateTime since, Consumer<TickerMentionBucket> consumer) {
+        RowCallbackHandler handler = rs -> {
+            TickerMentionBucket bucket = new TickerMentionBucket();
+            bucket.setSymbol(rs.getString(1));
+            bucket.setResolution(resolution);
+            bucket.setBucketStart(rs.getObject(2, LocalDateTime.class));
+            bucket.setMentions(rs.getInt(3));
+            consumer.accept(bucket);
+        };
+        jdbcTemplate.query("SELECT symbol, bucket_start, mentions FROM ticker_mention_buckets"
+            + " WHERE resolution = ? AND bucket_start >= ?", handler, resolution.name(), since);
+    }
+
+    public int deleteBucketsBefore(Resolution resolution, LocalDateTime cutoff) {
+        return jdbcTemplate.update("DELETE FROM ticker_mention_buckets WHERE resolution = ? AND bucket_start < ?",
+            resolution.name(), cutoff);
+    }
+}
@@ -0,0 +1,73 @@
+package stockevaluator.scraper.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import stockevaluator.scraper.model.TickerTrend;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC access to the decayed mention sums of tickers and their trending scores.
+ *
+ * <p>A stored row and a new one are merged by decaying the older of the two to the decay time of
+ * the newer and adding them up. Decayed sums add up no matter who collected them, so instances
+ * that ingest different subreddits merge their mentions into the same rows.</p>
+ */
+@Repository
+public class TickerTrendRepository {
+
+    // MySQL assigns left to right, so decayed_at still holds the stored time until the last assignment
+    private static final String MERGE_TREND = """
+        INSERT INTO ticker_trends (id, symbol, half_life_seconds, weight, weight_squares, decayed_at)
+        VALUES (?, ?, ?, ?, ?, ?)
+        ON DUPLICATE KEY UPDATE
+            weight = weight * POW(0.5, GREATEST(VALUES(decayed_at) - decayed_at, 0) / (1000 * half_life_seconds))
+                + VALUES(weight) * POW(0.5, GREATEST(decayed_at - VALUES(decayed_at), 0) / (1000 * half_life_seconds)),
+            weight_squares = weight_squares
+                * POW(0.5, GREATEST(VALUES(decayed_at) - decayed_at, 0) / (1000 * half_life_seconds))
+                + VALUES(weight_squares)
+                * POW(0.5, GREATEST(decayed_at - VALUES(decayed_at), 0) / (1000 * half_life_seconds)),
+            decayed_at = GREATEST(decayed_at, VALUES(decayed_at))""";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TickerTrendRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Merges decayed sums into the stored ones, all or none of them.
+     *
+     * @return the number of rows merged
+     */
+    @Transactional
+    public int mergeTrends(Collection<TickerTrend> trends, int batchSize) {
+        jdbcTemplate.batchUpdate(MERGE_TREND, trends, batchSize, (ps, trend) -> {
+            ps.setString(1, trend.getId());
+            ps.setString(2, trend.getSymbol());
+            ps.setLong(3, trend.getHalfLifeSeconds());
+            ps.setDouble(4, trend.getWeight());
+            ps.setDouble(5, trend.getWeightSquares());
+            ps.setLong(6, trend.getDecayedAt());
+        });
+        return trends.size();
+    }
+
+    public List<TickerTrend> findAll() {
+        return jdbcTemplate.query("SELECT symbol, half_life_seconds, weight, weight_squares, decayed_at"
+            + " FROM ticker_trends", (rs, row) -> new TickerTrend(rs.getString(1), rs.getLong(2), rs.getDouble(3),
+            rs.getDouble(4), rs.getLong(5)));
+    }
+
+    public int updateTrendingScores(Map<String, Double> scores, int batchSize) {
+        jdbcTemplate.batchUpdate("UPDATE tickers SET trending_score = ? WHERE symbol = ?", scores.entrySet(),
+            batchSize, (ps, entry) -> {
+                ps.setDouble(1, entry.getValue());
+                ps.setString(2, entry.getKey());
+            });
+        return scores.size();
+    }
+}
@@ -0,0 +1,72 @@
+package stockevaluator.scraper.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC access to the sliding window summaries the nodes publish for each other.
+ *
+ * <p>Publication times are taken from the database clock, so nodes with skewed clocks still agree
+ * on which summaries are recent.</p>
+ */
+@Repository
+public class TrendingWindowRepository {
+
+    private static final String PUBLISH = """
+        INSERT INTO trending_window_summaries (id, node, window_length, summary, published_at)
+        VALUES (?, ?, ?, ?, NOW(3))
+        ON DUPLICATE KEY UPDATE summary = VALUES(summary), published_at = NOW(3)""";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TrendingWindowRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Replaces the summaries of a node.
+     *
+     * @param summaries the encoded summaries by window length
+     */
+    public void publish(String node, Map<String, String> summaries) {
+        jdbcTemplate.batchUpdate(PUBLISH, summaries.entrySet(), summaries.size(), (ps, entry) -> {
+            ps.setString(1, node + "/" + entry.getKey());
+            ps.setString(2, node);
+            ps.setString(3, entry.getKey());
+            ps.setString(4, entry.getValue());
+        });
+    }
+
+    /**
+     * Returns the encoded summaries of the other nodes published within the given age, by window
+     * length.
+     */
+    public Map<String, List<String>> findPeerSummaries(String node, Duration maxAge) {
+        Map<String, List<String>> summaries = new HashMap<>();
+        RowCallbackHandler handler = rs -> summaries.computeIfAbsent(rs.getString(1), window -> new ArrayList<>())
+            .add(rs.getString(2));
+        jdbcTemplate.query("SELECT window_length, summary FROM trending_window_summaries WHERE node <> ?"
+            + " AND published_at > TIMESTAMPADD(MICROSECOND, ?, NOW(3))", handler, node, -micros(maxAge));
+        return summaries;
+    }
+
+    public int deleteNode(String node) {
+        return jdbcTemplate.update("DELETE FROM trending_window_summaries WHERE node = ?", node);
+    }
+
+    public int deletePublishedBefore(Duration age) {
+        return jdbcTemplate.update("DELETE FROM trending_window_summaries"
+            + " WHERE published_at < TIMESTAMPADD(MICROSECOND, ?, NOW(3))", -micros(age));
+    }
+
+    private static long micros(Duration duration) {
+        return duration.toNanos() / 1000;
+    }
+}
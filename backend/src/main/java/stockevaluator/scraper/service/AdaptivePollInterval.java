@@ -0,0 +1,145 @@
+package stockevaluator.scraper.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import stockevaluator.config.RedditCrawlProperties.Adaptive;
+import stockevaluator.config.RedditCrawlProperties.CrawlPlan;
+import stockevaluator.scraper.pipeline.IngestCycle;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+/**
+ * Chooses the delay before the next cycle of a crawl plan from the rate of new items it observed
+ * and from US market hours.
+ *
+ * <p>The rate is the number of new posts and comments a cycle found divided by the time since the
+ * previous cycle started, smoothed with an exponentially weighted moving average. The first
+ * cycle after startup only starts the clock, because its new items cover the whole downtime. The
+ * chosen interval and the reason for it are exposed as {@code reddit.crawl.interval} and
+ * {@code reddit.crawl.interval.reason}, tagged with the plan.</p>
+ *
+ * <p>Instances are confined to the scheduling of one plan, whose cycles never overlap.</p>
+ */
+class AdaptivePollInterval {
+
+    enum Reason { FIXED, WARMUP, BUSY, QUIET, MARKET_OPEN, MARKET_CLOSED, FAILURE, MIN_BOUND, MAX_BOUND }
+
+    private final CrawlPlan plan;
+    private final Adaptive adaptive;
+    private final ZoneId marketZone;
+    private final LocalTime marketOpen;
+    private final LocalTime marketClose;
+
+    private Instant lastStart;
+    // New items per second, NaN until a full interval was observed
+    private double rate = Double.NaN;
+    private volatile Duration interval;
+    private volatile Reason reason;
+
+    AdaptivePollInterval(CrawlPlan plan, Adaptive adaptive, MeterRegistry registry) {
+        this.plan = plan;
+        this.adaptive = adaptive;
+        this.marketZone = ZoneId.of(adaptive.getMarketZone());
+        this.marketOpen = LocalTime.parse(adaptive.getMarketOpen());
+        this.marketClose = LocalTime.parse(adaptive.getMarketClose());
+        this.interval = plan.getPollInterval();
+        this.reason = adaptive.isEnabled() ? Reason.WARMUP : Reason.FIXED;
+        Gauge.builder("reddit.crawl.interval", this, poll -> poll.interval.toMillis() / 1000.0)
+            .description("Current poll interval of the crawl plan")
+            .tag("plan", plan.getSubreddit())
+            .baseUnit("seconds")
+            .register(registry);
+        for (Reason candidate : Reason.values()) {
+            Gauge.builder("reddit.crawl.interval.reason", this, poll -> poll.reason == candidate ? 1 : 0)
+                .description("Why the crawl plan polls at its current interval, 1 for the active reason")
+                .tag("plan", plan.getSubreddit())
+                .tag("reason", candidate.name().toLowerCase())
+                .register(registry);
+        }
+    }
+
+    /**
+     * Records a finished cycle and returns the delay before the next one.
+     *
+     * @param startedAt when the cycle started
+     * @param cycle     the persisted cycle, or null if the cycle failed
+     * @param now       the current time
+     * @return the delay before the next cycle
+     */
+    Duration next(Instant startedAt, IngestCycle cycle, Instant now) {
+        if (!adaptive.isEnabled()) {
+            return interval;
+        }
+        Instant previousStart = lastStart;
+        lastStart = startedAt;
+
+        Duration base = plan.getPollInterval();
+        Duration next;
+        Reason why;
+        if (cycle == null) {
+            next = scale(interval, adaptive.getFailureFactor());
+            why = Reason.FAILURE;
+        } else {
+            if (previousStart != null) {
+                double seconds = Math.max(1, Duration.between(previousStart, startedAt).toMillis() / 1000.0);
+                double observed = (cycle.getPostsNew() + cycle.getCommentsNew()) / seconds;
+                rate = Double.isNaN(rate) ? observed : adaptive.getSmoothing() * observed
+                    + (1 - adaptive.getSmoothing()) * rate;
+            }
+            if (Double.isNaN(rate)) {
+                next = base;
+                why = Reason.WARMUP;
+            } else {
+                next = rate > 0 ? Duration.ofMillis((long) (adaptive.getTargetNewItems() / rate * 1000))
+                    : plan.getMaxPollInterval();
+                why = next.compareTo(base) < 0 ? Reason.BUSY : Reason.QUIET;
+            }
+            if (isMarketOpen(now)) {
+                if (next.compareTo(base) > 0) {
+                    next = base;
+                    why = Reason.MARKET_OPEN;
+                }
+            } else {
+                next = scale(next, adaptive.getOffHoursFactor());
+                why = Reason.MARKET_CLOSED;
+            }
+        }
+        if (next.compareTo(plan.getMinPollInterval()) < 0) {
+            next = plan.getMinPollInterval();
+            why = Reason.MIN_BOUND;
+        } else if (next.compareTo(plan.getMaxPollInterval()) > 0) {
+            next = plan.getMaxPollInterval();
+            why = Reason.MAX_BOUND;
+        }
+        interval = next;
+        reason = why;
+        return next;
+    }
+
+    Duration getInterval() {
+        return interval;
+    }
+
+    Reason getReason() {
+        return reason;
+    }
+
+    private boolean isMarketOpen(Instant now) {
+        ZonedDateTime local = now.atZone(marketZone);
+        DayOfWeek day = local.getDayOfWeek();
+        if (day == DayOfWeek.SATURDAY || day == DayOfWeek.SUNDAY) {
+            return false;
+        }
+        LocalTime time = local.toLocalTime();
+        return !time.isBefore(marketOpen) && time.isBefore(marketClose);
+    }
+
+    private static Duration scale(Duration duration, double factor) {
+        return Duration.ofMillis((long) (duration.toMillis() * factor));
+    }
+}
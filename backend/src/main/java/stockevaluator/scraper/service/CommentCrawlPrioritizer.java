@@ -0,0 +1,90 @@
+package stockevaluator.scraper.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import stockevaluator.config.RedditIngestionProperties;
+import stockevaluator.scraper.model.RedditPost;
+import stockevaluator.scraper.repository.RedditIngestRepository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decides which comment threads are worth re-crawling in an ingestion cycle.
+ *
+ * <p>The listing already reports {@code num_comments} for every post. A thread is only crawled
+ * again when that count grew since the last crawl, and threads are ranked by how much they grew.
+ * At most the configured crawl budget of threads is crawled per cycle; threads over budget keep
+ * their growth and are reconsidered in the next cycle.</p>
+ */
+@Slf4j
+@Service
+public class CommentCrawlPrioritizer {
+
+    private final RedditIngestRepository ingestRepository;
+    private final RedditIngestionProperties properties;
+    private final Counter selectedCounter;
+    private final Counter unchangedCounter;
+    private final Counter overBudgetCounter;
+
+    public CommentCrawlPrioritizer(RedditIngestRepository ingestRepository, RedditIngestionProperties properties,
+                                   MeterRegistry meterRegistry) {
+        this.ingestRepository = ingestRepository;
+        this.properties = properties;
+        this.selectedCounter = crawlCounter(meterRegistry, "selected");
+        this.unchangedCounter = crawlCounter(meterRegistry, "unchanged");
+        this.overBudgetCounter = crawlCounter(meterRegistry, "over_budget");
+    }
+
+    /**
+     * Selects the threads to crawl, ordered by comment growth.
+     *
+     * @param posts the posts read from the listing
+     * @return the posts whose comments should be crawled, at most the crawl budget
+     */
+    public List<RedditPost> select(List<RedditPost> posts) {
+        Map<String, Integer> crawled = ingestRepository.findCrawledCommentCounts(
+            posts.stream().map(RedditPost::getId).toList());
+
+        List<Candidate> candidates = new ArrayList<>();
+        for (RedditPost post : posts) {
+            int current = post.getCommentsCount() != null ? post.getCommentsCount() : 0;
+            Integer previous = crawled.get(post.getId());
+            int growth = previous == null ? current : current - previous;
+            if (growth > 0) {
+                candidates.add(new Candidate(post, growth));
+            }
+        }
+        candidates.sort(Comparator.comparingInt(Candidate::growth).reversed());
+
+        int budget = properties.getCommentCrawlBudget();
+        List<RedditPost> selected = new ArrayList<>();
+        for (Candidate candidate : candidates) {
+            if (selected.size() == budget) {
+                break;
+            }
+            selected.add(candidate.post());
+        }
+
+        selectedCounter.increment(selected.size());
+        unchangedCounter.increment(posts.size() - candidates.size());
+        overBudgetCounter.increment(candidates.size() - selected.size());
+        log.debug("Crawling {} of {} threads ({} unchanged, {} over budget)", selected.size(), posts.size(),
+            posts.size() - candidates.size(), candidates.size() - selected.size());
+        return selected;
+    }
+
+    private static Counter crawlCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("reddit.ingest.comment_crawl")
+            .description("Comment threads considered for crawling, by outcome")
+            .tag("outcome", outcome)
+            .register(meterRegistry);
+    }
+
+    private record Candidate(RedditPost post, int growth) {
+    }
+}
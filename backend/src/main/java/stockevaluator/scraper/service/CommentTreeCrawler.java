@@ -0,0 +1,190 @@
+package stockevaluator.scraper.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import stockevaluator.config.RedditIngestionProperties;
+import stockevaluator.scraper.client.RedditApiClient;
+import stockevaluator.scraper.client.RedditRequestPriority;
+import stockevaluator.scraper.exception.RedditApiException;
+import stockevaluator.scraper.model.CrawlCursor;
+import stockevaluator.scraper.model.RedditComment;
+import stockevaluator.scraper.model.RedditPost;
+import stockevaluator.scraper.parser.CommentTree;
+import stockevaluator.scraper.parser.RedditListingReader;
+import stockevaluator.scraper.util.SeenIdSet;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.Semaphore;
+import java.util.function.LongPredicate;
+
+/**
+ * Crawls the comment tree of a thread.
+ *
+ * <p>The thread is first read with its nested replies. The comments Reddit leaves out of that
+ * response are listed by {@code more} stubs; their ids are expanded through
+ * {@code /api/morechildren} in batches of up to 100 until none are left or the per-thread request
+ * budget is spent. Reddit allows only one morechildren request per client at a time, so those
+ * requests are serialised across all comment workers.</p>
+ *
+ * <p>Unloaded ids are expanded newest first. Megathreads such as the daily discussion threads are
+ * too large to re-read every cycle. They are read sorted by {@code sort=new} instead, and only the
+ * unloaded comments newer than the thread's crawl cursor, or not newer than its backfill floor,
+ * are expanded, so the delta is read first and the budget left over works down the backlog.</p>
+ *
+ * <p>Ids still unexpanded when the budget is spent are returned with the comments; the newest of
+ * them becomes the thread's backfill floor, so that later crawls expand them.</p>
+ */
+@Slf4j
+@Service
+public class CommentTreeCrawler {
+
+    private static final int MORE_CHILDREN_BATCH = 100;
+    private static final int THREAD_LIMIT = 500;
+    private static final Comparator<String> NEWEST_FIRST =
+        Comparator.comparingLong((String id) -> SeenIdSet.parse(id)).reversed();
+
+    private final RedditApiClient redditApiClient;
+    private final RedditListingReader listingReader;
+    private final RedditIngestionProperties properties;
+    private final Semaphore moreChildrenPermit = new Semaphore(1, true);
+    private final Counter moreChildrenRequests;
+    private final Counter unexpandedComments;
+
+    public CommentTreeCrawler(RedditApiClient redditApiClient, RedditListingReader listingReader,
+                              RedditIngestionProperties properties, MeterRegistry meterRegistry) {
+        this.redditApiClient = redditApiClient;
+        this.listingReader = listingReader;
+        this.properties = properties;
+        this.moreChildrenRequests = Counter.builder("reddit.ingest.morechildren.requests")
+            .description("Requests sent to expand unloaded comments")
+            .register(meterRegistry);
+        this.unexpandedComments = Counter.builder("reddit.ingest.morechildren.unexpanded")
+            .description("Unloaded comment ids left over when a thread's request budget was spent")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Returns whether a thread is a megathread, detected by its comment count or its flair.
+     *
+     * @param post the thread
+     * @return true if the thread should be crawled incrementally
+     */
+    public boolean isMegathread(RedditPost post) {
+        if (post.getCommentsCount() != null && post.getCommentsCount() >= properties.getMegathreadMinComments()) {
+            return true;
+        }
+        return post.getFlair() != null && properties.getMegathreadFlairs().stream()
+            .anyMatch(flair -> flair.equalsIgnoreCase(post.getFlair().trim()));
+    }
+
+    /**
+     * Reads every comment of a thread within the thread request budget.
+     *
+     * @param post the thread to crawl
+     * @return the comments of the thread, each one once, and the ids of the comments left unexpanded
+     *     when the budget was spent
+     * @throws RedditApiException if the thread itself cannot be read
+     */
+    public CommentTree crawl(RedditPost post) {
+        return crawl(post, null, properties.getThreadRequestBudget(), id -> true);
+    }
+
+    /**
+     * Reads the comments of a megathread that are newer than its crawl cursor, and as many of the
+     * comments from its backfill floor down as the budget leaves room for, newest first.
+     *
+     * @param post   the megathread to crawl
+     * @param cursor the crawl cursor of the thread, or null if it was never crawled
+     * @return the comments newer than the cursor or not newer than its backfill floor, each one
+     *     once, and the ids of those comments that were left unexpanded when the budget was spent
+     * @throws RedditApiException if the thread itself cannot be read
+     */
+    public CommentTree crawlNewest(RedditPost post, CrawlCursor cursor) {
+        long newest = cursor != null ? SeenIdSet.parse(cursor.getNewestFullname()) : -1;
+        long backfill = cursor != null ? SeenIdSet.parse(cursor.getBackfillFullname()) : -1;
+        LongPredicate wanted = id -> newest < 0 || id > newest || backfill >= 0 && id <= backfill;
+        CommentTree tree = crawl(post, "new", properties.getMegathreadRequestBudget(), wanted);
+        tree.comments().removeIf(comment -> !wanted.test(SeenIdSet.parse(comment.getId())));
+        return tree;
+    }
+
+    // Reddit ids grow over time, so a comment id at or below the cursor was stored by an earlier
+    // crawl unless it lies at or below the backfill floor. Only wanted unloaded ids are expanded; replies
+    // newer than the cursor may sit under any top-level comment, so reading a stored comment does
+    // not end the crawl.
+    private CommentTree crawl(RedditPost post, String sort, int budget, LongPredicate wanted) {
+        String sortParam = sort != null ? "&sort=" + sort : "";
+        CommentTree tree = redditApiClient.get("/comments/" + post.getId() + "?limit=" + THREAD_LIMIT + sortParam,
+            RedditRequestPriority.BACKGROUND, response -> listingReader.readComments(response.getEntity().getContent()));
+        Map<String, RedditComment> comments = new LinkedHashMap<>();
+        addAll(comments, tree.comments());
+
+        Queue<String> pending = new PriorityQueue<>(NEWEST_FIRST);
+        addWanted(pending, tree.moreIds(), wanted);
+        int requests = 1;
+        while (!pending.isEmpty() && requests < budget) {
+            List<String> ids = new ArrayList<>(MORE_CHILDREN_BATCH);
+            while (!pending.isEmpty() && ids.size() < MORE_CHILDREN_BATCH) {
+                ids.add(pending.poll());
+            }
+            CommentTree expanded;
+            try {
+                expanded = fetchMoreChildren(post, ids, sortParam);
+            } catch (RedditApiException e) {
+                // Keep what was read so far; the rest is left for the next crawl of the thread
+                log.warn("Failed to expand comments of post {}: {}", post.getId(), e.getMessage());
+                pending.addAll(ids);
+                break;
+            }
+            requests++;
+            addAll(comments, expanded.comments());
+            addWanted(pending, expanded.moreIds(), wanted);
+        }
+        if (!pending.isEmpty()) {
+            unexpandedComments.increment(pending.size());
+            log.debug("Left {} comments of post {} unexpanded after {} requests", pending.size(), post.getId(),
+                requests);
+        }
+        return new CommentTree(new ArrayList<>(comments.values()), new ArrayList<>(pending));
+    }
+
+    private CommentTree fetchMoreChildren(RedditPost post, List<String> ids, String sortParam) {
+        String path = "/api/morechildren?api_type=json&limit_children=false&link_id=t3_" + post.getId()
+            + sortParam + "&children=" + String.join(",", ids);
+        try {
+            moreChildrenPermit.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RedditApiException("Interrupted while waiting to expand comments", e);
+        }
+        try {
+            moreChildrenRequests.increment();
+            return redditApiClient.get(path, RedditRequestPriority.BACKGROUND,
+                response -> listingReader.readMoreChildren(response.getEntity().getContent()));
+        } finally {
+            moreChildrenPermit.release();
+        }
+    }
+
+    private static void addAll(Map<String, RedditComment> comments, List<RedditComment> read) {
+        for (RedditComment comment : read) {
+            comments.putIfAbsent(comment.getId(), comment);
+        }
+    }
+
+    private static void addWanted(Queue<String> pending, List<String> moreIds, LongPredicate wanted) {
+        for (String id : moreIds) {
+            if (wanted.test(SeenIdSet.parse(id))) {
+                pending.add(id);
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package stockevaluator.scraper.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import stockevaluator.scraper.pipeline.IngestCycle;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Throughput and lag metrics of a single crawl plan, tagged with the plan's subreddit.
+ *
+ * <p>The lag is the number of seconds since the plan last completed a cycle, so a plan that keeps
+ * failing or is starved by the rate limit shows a growing lag.</p>
+ */
+class CrawlPlanMetrics {
+
+    private final Timer successTimer;
+    private final Timer failureTimer;
+    private final Counter postsRead;
+    private final Counter postsNew;
+    private final Counter commentsRead;
+    private final Counter commentsNew;
+    private final AtomicLong lastSuccessMillis = new AtomicLong(System.currentTimeMillis());
+
+    CrawlPlanMetrics(String plan, MeterRegistry registry) {
+        this.successTimer = cycleTimer(plan, "success", registry);
+        this.failureTimer = cycleTimer(plan, "failure", registry);
+        this.postsRead = itemCounter(plan, "post", "read", registry);
+        this.postsNew = itemCounter(plan, "post", "new", registry);
+        this.commentsRead = itemCounter(plan, "comment", "read", registry);
+        this.commentsNew = itemCounter(plan, "comment", "new", registry);
+        Gauge.builder("reddit.crawl.lag", this, CrawlPlanMetrics::getLagSeconds)
+            .description("Seconds since the crawl plan last completed a cycle")
+            .tag("plan", plan)
+            .baseUnit("seconds")
+            .register(registry);
+    }
+
+    void recordSuccess(long startNanos, IngestCycle cycle) {
+        successTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        postsRead.increment(cycle.getPostsRead());
+        commentsRead.increment(cycle.getCommentsRead());
+        postsNew.increment(cycle.getPostsNew());
+        commentsNew.increment(cycle.getCommentsNew());
+        lastSuccessMillis.set(System.currentTimeMillis());
+    }
+
+    void recordFailure(long startNanos) {
+        failureTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    double getLagSeconds() {
+        return (System.currentTimeMillis() - lastSuccessMillis.get()) / 1000.0;
+    }
+
+    private static Timer cycleTimer(String plan, String outcome, MeterRegistry registry) {
+        return Timer.builder("reddit.crawl.cycle")
+            .description("Duration of crawl plan cycles")
+            .tag("plan", plan)
+            .tag("outcome", outcome)
+            .register(registry);
+    }
+
+    private static Counter itemCounter(String plan, String kind, String state, MeterRegistry registry) {
+        return Counter.builder("reddit.crawl.items")
+            .description("Items read by a crawl plan and how many of them were new")
+            .tag("plan", plan)
+            .tag("kind", kind)
+            .tag("state", state)
+            .register(registry);
+    }
+}
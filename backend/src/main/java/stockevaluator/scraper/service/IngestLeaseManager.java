@@ -0,0 +1,235 @@
+package stockevaluator.scraper.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import stockevaluator.config.RedditClusterProperties;
+import stockevaluator.config.RedditCrawlProperties;
+import stockevaluator.config.RedditCrawlProperties.CrawlPlan;
+import stockevaluator.scraper.exception.LeaseLostException;
+import stockevaluator.scraper.repository.IngestLeaseRepository;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shares the ingestion work between all running backend instances through leases in the database.
+ *
+ * <p>The work unit is a subreddit: its crawl plan, the threads and megathreads that plan crawls
+ * and its comment stream. A subreddit's items never show up under another subreddit, so two nodes
+ * never ingest the same item. Every heartbeat a node renews its leases, counts the live nodes and
+ * compares its leases with its fair share, the number of units divided by the number of live
+ * nodes, rounded up. It gives up leases above its share and takes free or expired ones below it.
+ * A node that dies stops renewing; its leases expire after the TTL and are taken over by the
+ * others, and a node that joins is handed units as the others shed theirs.</p>
+ *
+ * <p>A {@link UnitAcquiredEvent} is published for every unit taken over, before the unit counts as
+ * held, so that state the previous owner moved on can be reloaded first.</p>
+ *
+ * <p>The heartbeat runs on its own thread so that long crawl cycles on the task scheduler cannot
+ * let the leases expire. Before a batch is committed, the pipeline checks that the leases of its
+ * units are still held, locking them until the commit (see {@link #checkHeld(Collection)}).</p>
+ */
+@Slf4j
+@Service
+public class IngestLeaseManager {
+
+    private static final String UNIT_PREFIX = "subreddit:";
+
+    private final IngestLeaseRepository leaseRepository;
+    private final RedditClusterProperties properties;
+    private final RedditCrawlProperties crawlProperties;
+    private final ApplicationEventPublisher eventPublisher;
+    private final String nodeId;
+    private final ScheduledExecutorService heartbeatExecutor;
+    private volatile Set<String> held = Collections.emptySet();
+    private volatile long heldUntilNanos;
+    private volatile int liveNodes = 1;
+
+    public IngestLeaseManager(IngestLeaseRepository leaseRepository, RedditClusterProperties properties,
+                              RedditCrawlProperties crawlProperties, ApplicationEventPublisher eventPublisher,
+                              MeterRegistry meterRegistry) {
+        this.leaseRepository = leaseRepository;
+        this.properties = properties;
+        this.crawlProperties = crawlProperties;
+        this.eventPublisher = eventPublisher;
+        this.nodeId = properties.getNodeId() != null && !properties.getNodeId().isBlank()
+            ? properties.getNodeId() : defaultNodeId();
+        this.heartbeatExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "reddit-lease-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("reddit.cluster.leases", this, manager -> manager.held.size())
+            .description("Ingestion work units leased by this node")
+            .register(meterRegistry);
+        Gauge.builder("reddit.cluster.nodes", this, manager -> manager.liveNodes)
+            .description("Live nodes sharing the ingestion work")
+            .register(meterRegistry);
+    }
+
+    public static String unitOf(String subreddit) {
+        return UNIT_PREFIX + subreddit;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!properties.isEnabled()) {
+            log.info("Ingestion leases are disabled, node {} runs all ingestion work", nodeId);
+            return;
+        }
+        log.info("Joining ingestion as node {}", nodeId);
+        heartbeatExecutor.scheduleWithFixedDelay(this::heartbeat, 0,
+            properties.getHeartbeatInterval().toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        heartbeatExecutor.shutdownNow();
+        if (!properties.isEnabled()) {
+            return;
+        }
+        held = Collections.emptySet();
+        try {
+            // Hand the units over right away instead of letting the other nodes wait for the TTL
+            leaseRepository.releaseAll(nodeId);
+            leaseRepository.deleteNode(nodeId);
+        } catch (Exception e) {
+            log.warn("Could not release the ingestion leases of node {}: {}", nodeId, e.getMessage());
+        }
+    }
+
+    /**
+     * Returns whether this node currently runs the work of a unit.
+     *
+     * @param unit the work unit, see {@link #unitOf(String)}
+     * @return true if the unit's lease is held and was renewed within the TTL
+     */
+    public boolean owns(String unit) {
+        if (!properties.isEnabled()) {
+            return true;
+        }
+        return held.contains(unit) && System.nanoTime() < heldUntilNanos;
+    }
+
+    /**
+     * Verifies inside the current transaction that this node still holds the leases of the given
+     * units and keeps them from changing hands until the transaction ends.
+     *
+     * @param units the work units a batch belongs to
+     * @throws LeaseLostException if a lease was lost
+     */
+    public void checkHeld(Collection<String> units) {
+        if (!properties.isEnabled() || units.isEmpty()) {
+            return;
+        }
+        Set<String> stillHeld = leaseRepository.lockHeldUnits(units, nodeId);
+        for (String unit : units) {
+            if (!stillHeld.contains(unit)) {
+                throw new LeaseLostException("Node " + nodeId + " no longer holds the lease on " + unit);
+            }
+        }
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Returns the ids of the live nodes, for deciding whether work recorded by another node was
+     * abandoned.
+     */
+    public List<String> findLiveNodes() {
+        return properties.isEnabled() ? leaseRepository.findLiveNodes(properties.getLeaseTtl()) : List.of(nodeId);
+    }
+
+    void heartbeat() {
+        try {
+            long started = System.nanoTime();
+            Duration ttl = properties.getLeaseTtl();
+            leaseRepository.heartbeat(nodeId);
+            leaseRepository.renewLeases(nodeId, ttl);
+
+            List<String> nodes = leaseRepository.findLiveNodes(ttl);
+            liveNodes = Math.max(1, nodes.size());
+            List<String> units = units();
+            int share = (units.size() + liveNodes - 1) / liveNodes;
+
+            Map<String, String> owners = leaseRepository.findLeaseOwners();
+            TreeSet<String> mine = new TreeSet<>();
+            for (String unit : units) {
+                if (nodeId.equals(owners.get(unit))) {
+                    mine.add(unit);
+                }
+            }
+            // Shed the units above the fair share so that nodes which joined can take them
+            while (mine.size() > share) {
+                String unit = mine.pollLast();
+                leaseRepository.release(unit, nodeId);
+                log.info("Released ingestion unit {} to rebalance across {} nodes", unit, liveNodes);
+            }
+            // Start at a node-specific offset so that nodes do not all compete for the same free unit
+            int offset = Math.floorMod(nodeId.hashCode(), Math.max(1, units.size()));
+            for (int i = 0; i < units.size() && mine.size() < share; i++) {
+                String unit = units.get((offset + i) % units.size());
+                if (!owners.containsKey(unit) && leaseRepository.tryAcquire(unit, nodeId, ttl)) {
+                    eventPublisher.publishEvent(new UnitAcquiredEvent(unit, unit.substring(UNIT_PREFIX.length())));
+                    mine.add(unit);
+                    log.info("Acquired ingestion unit {} ({} of {} units across {} nodes)", unit, mine.size(),
+                        units.size(), liveNodes);
+                }
+            }
+            held = Collections.unmodifiableSet(mine);
+            heldUntilNanos = started + ttl.toNanos();
+            leaseRepository.deleteNodesSilentFor(ttl.multipliedBy(10));
+        } catch (Exception e) {
+            // The held leases stay usable until their TTL runs out, after which this node stops working
+            log.warn("Ingestion lease heartbeat of node {} failed: {}", nodeId, e.getMessage());
+        }
+    }
+
+    private List<String> units() {
+        List<String> units = new ArrayList<>();
+        for (CrawlPlan plan : crawlProperties.getPlans()) {
+            if (plan.getSubreddit() != null && !plan.getSubreddit().isBlank()) {
+                units.add(unitOf(plan.getSubreddit()));
+            }
+        }
+        return units;
+    }
+
+    private static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "node";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    /**
+     * Published when this node takes over a work unit.
+     *
+     * @param unit      the work unit
+     * @param subreddit the subreddit of the unit
+     */
+    public record UnitAcquiredEvent(String unit, String subreddit) {
+    }
+}
@@ -0,0 +1,119 @@
+package stockevaluator.scraper.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import stockevaluator.config.RedditPipelineProperties;
+import stockevaluator.scraper.model.IngestRun;
+import stockevaluator.scraper.pipeline.IngestCycle;
+import stockevaluator.scraper.repository.IngestRunRepository;
+import stockevaluator.scraper.repository.RedditIngestRepository;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records every ingestion cycle as an {@link IngestRun}.
+ *
+ * <p>A run row is created when a cycle opens and finished with its outcome once the cycle is
+ * done; the pipeline advances its checkpoint with every committed batch in between. Runs that
+ * are still running although their node is no longer live, or that this node started before a
+ * restart, were cut off. They are marked as interrupted when the application becomes ready and
+ * then hourly, and the next cycle of the same scope resumes from the crawl cursors and crawled
+ * comment counts their last committed batch left behind.</p>
+ */
+@Slf4j
+@Service
+public class IngestRunTracker {
+
+    private final IngestRunRepository runRepository;
+    private final RedditIngestRepository ingestRepository;
+    private final RedditPipelineProperties properties;
+    private final IngestLeaseManager leaseManager;
+    private final LocalDateTime bootTime = LocalDateTime.now();
+    private final Map<String, IngestCycle> openCycles = new ConcurrentHashMap<>();
+
+    public IngestRunTracker(IngestRunRepository runRepository, RedditIngestRepository ingestRepository,
+                            RedditPipelineProperties properties, IngestLeaseManager leaseManager) {
+        this.runRepository = runRepository;
+        this.ingestRepository = ingestRepository;
+        this.properties = properties;
+        this.leaseManager = leaseManager;
+    }
+
+    /**
+     * Opens a cycle and records it as a running run.
+     *
+     * @param name the scope of the cycle, e.g. {@code crawl:wallstreetbets}
+     * @param unit the work unit the cycle runs under
+     * @return the new cycle
+     */
+    public IngestCycle open(String name, String unit) {
+        IngestCycle cycle = new IngestCycle(name, unit);
+        runRepository.save(new IngestRun(cycle.getRunId(), name, leaseManager.getNodeId(), LocalDateTime.now()));
+        openCycles.put(cycle.getRunId(), cycle);
+        cycle.whenDone(this::finish);
+        return cycle;
+    }
+
+    /**
+     * Marks the runs whose cycles could not finish before shutdown as interrupted.
+     */
+    public void interruptOpenRuns() {
+        for (IngestCycle cycle : openCycles.values()) {
+            if (openCycles.remove(cycle.getRunId()) != null) {
+                log.info("Ingestion run {} ({}) interrupted by shutdown", cycle.getRunId(), cycle.getName());
+                ingestRepository.finishRun(cycle.getRunId(), IngestRun.Status.INTERRUPTED);
+            }
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverInterruptedRuns() {
+        try {
+            Set<String> liveNodes = new HashSet<>(leaseManager.findLiveNodes());
+            for (IngestRun run : runRepository.findByStatus(IngestRun.Status.RUNNING)) {
+                boolean mine = leaseManager.getNodeId().equals(run.getNode());
+                if (mine ? !run.getStartedAt().isBefore(bootTime) : liveNodes.contains(run.getNode())) {
+                    continue;
+                }
+                log.info("Ingestion run {} ({}) was cut off after {} committed batches; its scope resumes "
+                    + "from the crawl cursors", run.getId(), run.getName(), run.getBatchesCommitted());
+                run.setStatus(IngestRun.Status.INTERRUPTED);
+                run.setFinishedAt(LocalDateTime.now());
+                runRepository.save(run);
+            }
+        } catch (Exception e) {
+            log.warn("Could not check for interrupted ingestion runs: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelay = 3600000)
+    public void pruneRuns() {
+        recoverInterruptedRuns();
+        LocalDateTime cutoff = LocalDateTime.now().minus(properties.getRunRetention());
+        int pruned = ingestRepository.deleteRunsFinishedBefore(cutoff);
+        if (pruned > 0) {
+            log.debug("Pruned {} finished ingestion runs", pruned);
+        }
+    }
+
+    private void finish(IngestCycle cycle) {
+        if (openCycles.remove(cycle.getRunId()) == null) {
+            return;
+        }
+        IngestRun.Status status = cycle.isFailed() ? IngestRun.Status.FAILED
+            : cycle.isInterrupted() ? IngestRun.Status.INTERRUPTED
+            : IngestRun.Status.COMPLETED;
+        try {
+            ingestRepository.finishRun(cycle.getRunId(), status);
+        } catch (Exception e) {
+            log.warn("Could not record the end of ingestion run {}: {}", cycle.getRunId(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package stockevaluator.scraper.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import stockevaluator.config.RedditIngestionProperties;
+import stockevaluator.scraper.model.CrawlCursor;
+import stockevaluator.scraper.model.IngestBatch;
+import stockevaluator.scraper.model.RedditComment;
+import stockevaluator.scraper.model.RedditPost;
+import stockevaluator.scraper.repository.CrawlCursorRepository;
+import stockevaluator.scraper.repository.RedditIngestRepository;
+import stockevaluator.scraper.util.SeenIdSet;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks what the ingester has already stored so that unchanged items can be skipped.
+ *
+ * <p>Comment ids that were written recently are kept in a {@link SeenIdSet}, seeded from the
+ * database on first use. Every crawl scope also has a persisted {@link CrawlCursor} holding the
+ * newest item seen in it; comments older than what the seen-id set still covers are treated as
+ * seen when they are not newer than the cursor of their thread and lie above its backfill floor.</p>
+ *
+ * <p>Cursors computed for a batch only take effect once {@link #markWritten(IngestBatch)} is called
+ * after the batch has been committed, so a failed write never causes items to be skipped.</p>
+ *
+ * <p>There is a thread cursor for every thread ever crawled, so those are loaded per thread on first
+ * use rather than up front. Thread cursors that have not moved within the seen-id retention are
+ * pruned hourly from the database and from memory; a thread crawled again after that is simply read
+ * in full.</p>
+ *
+ * <p>When this node takes over a subreddit from another node, the cursors of its listings and
+ * comment stream are read again and the cached thread cursors are dropped, so the new owner carries
+ * on from where the previous one got to. Cursors never move back, neither here nor in the
+ * database.</p>
+ */
+@Slf4j
+@Service
+public class IngestionStateTracker {
+
+    private static final String LISTING_SCOPE_PREFIX = "listing:";
+    private static final String THREAD_SCOPE_PREFIX = "thread:";
+    private static final String STREAM_SCOPE_PREFIX = "stream:";
+
+    private final CrawlCursorRepository cursorRepository;
+    private final RedditIngestRepository ingestRepository;
+    private final RedditIngestionProperties properties;
+    private final SeenIdSet seenComments;
+    private final Map<String, CrawlCursor> cursors = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    public IngestionStateTracker(CrawlCursorRepository cursorRepository, RedditIngestRepository ingestRepository,
+                                 RedditIngestionProperties properties) {
+        this.cursorRepository = cursorRepository;
+        this.ingestRepository = ingestRepository;
+        this.properties = properties;
+        this.seenComments = new SeenIdSet(properties.getSeenIdCapacity());
+    }
+
+    public static String listingScope(String subreddit, String listing) {
+        return LISTING_SCOPE_PREFIX + subreddit + "/" + listing;
+    }
+
+    public static String threadScope(String postId) {
+        return THREAD_SCOPE_PREFIX + postId;
+    }
+
+    public static String streamScope(String subreddit) {
+        return STREAM_SCOPE_PREFIX + subreddit;
+    }
+
+    /**
+     * Returns whether a comment of the given thread has already been ingested.
+     *
+     * @param postId  the id of the thread the comment belongs to
+     * @param comment the parsed comment
+     * @return true if the comment can be skipped
+     */
+    public boolean isSeenComment(String postId, RedditComment comment) {
+        ensureLoaded();
+        if (seenComments.contains(comment.getId())) {
+            return true;
+        }
+        if (!seenComments.isBelowFloor(comment.getId())) {
+            return false;
+        }
+        CrawlCursor cursor = getCursor(threadScope(postId));
+        if (cursor == null || cursor.getNewestCreatedUtc() == null || comment.getCreatedDate() == null) {
+            return false;
+        }
+        long backfill = SeenIdSet.parse(cursor.getBackfillFullname());
+        return toEpochSecond(comment.getCreatedDate()) <= cursor.getNewestCreatedUtc()
+            && (backfill < 0 || SeenIdSet.parse(comment.getId()) > backfill);
+    }
+
+    public CrawlCursor getCursor(String scope) {
+        ensureLoaded();
+        CrawlCursor cursor = cursors.get(scope);
+        if (cursor != null || !scope.startsWith(THREAD_SCOPE_PREFIX)) {
+            return cursor;
+        }
+        cursor = cursorRepository.findById(scope).orElse(null);
+        if (cursor == null) {
+            return null;
+        }
+        // A cursor committed in the meantime is newer than the one just read
+        CrawlCursor committed = cursors.putIfAbsent(scope, cursor);
+        return committed != null ? committed : cursor;
+    }
+
+    /**
+     * Computes the advanced cursor of a listing scope after the given posts were read.
+     *
+     * @param scope the listing scope
+     * @param posts the posts read from the listing
+     * @return the advanced cursor, or null if no post is newer than the current cursor
+     */
+    public CrawlCursor advanceListing(String scope, List<RedditPost> posts) {
+        CrawlCursor next = null;
+        for (RedditPost post : posts) {
+            next = advance(scope, next, "t3_" + post.getId(), post.getCreatedDate());
+        }
+        return next;
+    }
+
+    /**
+     * Computes the advanced cursor of a comment thread after the given comments were read.
+     *
+     * <p>The cursor keeps two watermarks. Its newest item moves to the newest comment read, so the
+     * next crawl starts from the delta after it. Its backfill floor becomes the newest comment left
+     * unexpanded, or is cleared once nothing was left, so that the budget later crawls have to spare
+     * works down the backlog from there.</p>
+     *
+     * @param postId        the id of the thread
+     * @param comments      the comments read from the thread
+     * @param unexpandedIds the ids of comments of the thread that were not read
+     * @return the advanced cursor, or null if neither watermark moved
+     */
+    public CrawlCursor advanceThread(String postId, List<RedditComment> comments, List<String> unexpandedIds) {
+        String scope = threadScope(postId);
+        CrawlCursor current = getCursor(scope);
+        CrawlCursor next = advanceComments(scope, comments);
+        String backfill = null;
+        long floor = -1;
+        for (String id : unexpandedIds) {
+            long value = SeenIdSet.parse(id);
+            if (value > floor) {
+                floor = value;
+                backfill = "t1_" + id;
+            }
+        }
+        String currentBackfill = current != null ? current.getBackfillFullname() : null;
+        if (next == null && Objects.equals(backfill, currentBackfill)) {
+            return null;
+        }
+        if (next == null) {
+            next = current != null
+                ? new CrawlCursor(scope, current.getNewestCreatedUtc(), current.getNewestFullname(), LocalDateTime.now())
+                : new CrawlCursor(scope, null, null, LocalDateTime.now());
+        }
+        next.setBackfillFullname(backfill);
+        return next;
+    }
+
+    /**
+     * Computes the advanced cursor of a comment scope after the given comments were read.
+     *
+     * @param scope    the comment scope, a thread or a subreddit comment stream
+     * @param comments the comments read in the scope
+     * @return the advanced cursor, or null if no comment is newer than the current cursor
+     */
+    public CrawlCursor advanceComments(String scope, List<RedditComment> comments) {
+        CrawlCursor next = null;
+        for (RedditComment comment : comments) {
+            next = advance(scope, next, "t1_" + comment.getId(), comment.getCreatedDate());
+        }
+        return next;
+    }
+
+    /**
+     * Records a committed batch: its comment ids become seen and its cursors take effect.
+     *
+     * @param batch the batch that was written
+     */
+    public void markWritten(IngestBatch batch) {
+        for (RedditComment comment : batch.getComments()) {
+            seenComments.add(comment.getId());
+        }
+        for (CrawlCursor cursor : batch.getCursors()) {
+            cursors.merge(cursor.getScope(), cursor, IngestionStateTracker::later);
+        }
+    }
+
+    /**
+     * Reloads the cursors of a subreddit this node has just taken over, which its previous owner
+     * may have moved on since they were loaded here.
+     */
+    @EventListener
+    public void onUnitAcquired(IngestLeaseManager.UnitAcquiredEvent event) {
+        if (!loaded) {
+            return;
+        }
+        String subreddit = event.subreddit();
+        try {
+            List<CrawlCursor> stored = new ArrayList<>(
+                cursorRepository.findByScopeStartingWith(LISTING_SCOPE_PREFIX + subreddit + "/"));
+            cursorRepository.findById(streamScope(subreddit)).ifPresent(stored::add);
+            for (CrawlCursor cursor : stored) {
+                cursors.merge(cursor.getScope(), cursor, IngestionStateTracker::later);
+            }
+            // Thread scopes do not name their subreddit; they are read again on next use
+            cursors.keySet().removeIf(scope -> scope.startsWith(THREAD_SCOPE_PREFIX));
+            log.debug("Reloaded {} crawl cursors of r/{}", stored.size(), subreddit);
+        } catch (Exception e) {
+            log.warn("Could not reload the crawl cursors of r/{}: {}", subreddit, e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelay = 3600000)
+    public void pruneThreadCursors() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(properties.getSeenIdRetention());
+        cursors.entrySet().removeIf(entry -> entry.getKey().startsWith(THREAD_SCOPE_PREFIX)
+            && (entry.getValue().getUpdatedAt() == null || entry.getValue().getUpdatedAt().isBefore(cutoff)));
+        try {
+            int pruned = ingestRepository.deleteCursorsUpdatedBefore(THREAD_SCOPE_PREFIX, cutoff);
+            if (pruned > 0) {
+                log.debug("Pruned {} thread cursors not moved since {}", pruned, cutoff);
+            }
+        } catch (Exception e) {
+            log.warn("Could not prune thread cursors: {}", e.getMessage());
+        }
+    }
+
+    private CrawlCursor advance(String scope, CrawlCursor pending, String fullname, LocalDateTime createdDate) {
+        if (createdDate == null) {
+            return pending;
+        }
+        CrawlCursor current = pending != null ? pending : getCursor(scope);
+        long created = toEpochSecond(createdDate);
+        if (current != null && current.getNewestCreatedUtc() != null && created <= current.getNewestCreatedUtc()) {
+            return pending;
+        }
+        return new CrawlCursor(scope, created, fullname, LocalDateTime.now());
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+            for (CrawlCursor cursor : cursorRepository.findByScopeNotLike(THREAD_SCOPE_PREFIX + "%")) {
+                cursors.put(cursor.getScope(), cursor);
+            }
+            LocalDateTime since = LocalDateTime.now().minus(properties.getSeenIdRetention());
+            ingestRepository.forEachCommentIdSince(since, seenComments::add);
+            log.info("Loaded {} listing and stream cursors and {} recently ingested comment ids", cursors.size(),
+                seenComments.size());
+            loaded = true;
+        }
+    }
+
+    // Mirrors the cursor upsert: a cursor with an earlier newest item never replaces a later one
+    private static CrawlCursor later(CrawlCursor current, CrawlCursor next) {
+        Long currentNewest = current.getNewestCreatedUtc();
+        Long nextNewest = next.getNewestCreatedUtc();
+        return currentNewest != null && (nextNewest == null || nextNewest < currentNewest) ? current : next;
+    }
+
+    static long toEpochSecond(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+}
@@ -0,0 +1,169 @@
+package stockevaluator.scraper.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import stockevaluator.config.RedditCrawlProperties;
+import stockevaluator.config.RedditCrawlProperties.CrawlPlan;
+import stockevaluator.config.RedditIngestionProperties;
+import stockevaluator.scraper.client.RedditApiClient;
+import stockevaluator.scraper.client.RedditRequestPriority;
+import stockevaluator.scraper.exception.RedditApiException;
+import stockevaluator.scraper.model.CrawlCursor;
+import stockevaluator.scraper.model.IngestBatch;
+import stockevaluator.scraper.model.RedditComment;
+import stockevaluator.scraper.parser.RedditListing;
+import stockevaluator.scraper.parser.RedditListingReader;
+import stockevaluator.scraper.pipeline.IngestCycle;
+import stockevaluator.scraper.pipeline.RedditIngestPipeline;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ingests comments from the subreddit-wide latest-comments listing.
+ *
+ * <p>The stream is polled for every crawl plan that has its comment stream enabled. A single
+ * request to {@code /r/{subreddit}/comments} returns up to 100 of the newest comments
+ * across all threads, including threads that are not on the hot listing. The listing is polled
+ * with the fullname of the newest comment seen so far as the {@code before} cursor, so every poll
+ * only returns comments that are newer, and further pages are read while they come back full.
+ * Comments are linked to their post through {@code link_id} and handed to the same ingestion
+ * pipeline as the listing crawl.</p>
+ *
+ * <p>Reddit answers an empty page when the cursor comment was deleted. Once the cursor is older
+ * than the configured stale age and a poll comes back empty, the newest page is read without a
+ * cursor instead and already ingested comments are dropped.</p>
+ *
+ * <p>A poll waits until its comments are persisted, which can take up to the pipeline's cycle
+ * timeout, so the streams are polled on a thread of their own rather than the shared task
+ * scheduler.</p>
+ */
+@Slf4j
+@Service
+public class RedditCommentStreamService {
+
+    private final RedditApiClient redditApiClient;
+    private final RedditListingReader listingReader;
+    private final RedditIngestPipeline ingestPipeline;
+    private final IngestionStateTracker stateTracker;
+    private final RedditIngestionProperties properties;
+    private final RedditCrawlProperties crawlProperties;
+    private final IngestLeaseManager leaseManager;
+    private final ScheduledExecutorService pollExecutor;
+
+    public RedditCommentStreamService(RedditApiClient redditApiClient, RedditListingReader listingReader,
+                                      RedditIngestPipeline ingestPipeline, IngestionStateTracker stateTracker,
+                                      RedditIngestionProperties properties,
+                                      RedditCrawlProperties crawlProperties, IngestLeaseManager leaseManager) {
+        this.redditApiClient = redditApiClient;
+        this.listingReader = listingReader;
+        this.ingestPipeline = ingestPipeline;
+        this.stateTracker = stateTracker;
+        this.properties = properties;
+        this.crawlProperties = crawlProperties;
+        this.leaseManager = leaseManager;
+        this.pollExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "reddit-comment-stream");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (crawlProperties.getPlans().stream().anyMatch(CrawlPlan::isCommentStream)) {
+            pollExecutor.scheduleWithFixedDelay(this::pollCommentStreams, 0,
+                properties.getStreamInterval().toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        pollExecutor.shutdown();
+    }
+
+    public void pollCommentStreams() {
+        for (CrawlPlan plan : crawlProperties.getPlans()) {
+            // The stream belongs to the subreddit's work unit, run by the node holding its lease
+            if (plan.isCommentStream() && leaseManager.owns(IngestLeaseManager.unitOf(plan.getSubreddit()))) {
+                pollCommentStream(plan.getSubreddit());
+            }
+        }
+    }
+
+    public void pollCommentStream(String subreddit) {
+        String scope = IngestionStateTracker.streamScope(subreddit);
+        try {
+            List<RedditComment> comments = readNewComments(subreddit, stateTracker.getCursor(scope));
+
+            // Advance over everything that was read, even comments that turn out to be known
+            IngestBatch batch = new IngestBatch();
+            CrawlCursor cursor = stateTracker.advanceComments(scope, comments);
+            if (cursor != null) {
+                batch.getCursors().add(cursor);
+            }
+            batch.getComments().addAll(comments);
+
+            // Known comments are dropped and mentions extracted by the pipeline
+            IngestCycle cycle = ingestPipeline.openCycle("stream:" + subreddit, IngestLeaseManager.unitOf(subreddit));
+            try {
+                ingestPipeline.submitBatch(cycle, batch);
+            } finally {
+                cycle.close();
+            }
+            cycle.await(ingestPipeline.getProperties().getCycleTimeout());
+            if (cycle.isFailed()) {
+                log.warn("Reddit comment stream poll of r/{} was not persisted: {}", subreddit,
+                    cycle.getFailure().getMessage());
+            }
+        } catch (RedditApiException e) {
+            log.warn("Reddit comment stream poll of r/{} aborted: {}", subreddit, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RejectedExecutionException e) {
+            log.info("Reddit comment stream poll of r/{} stopped: {}", subreddit, e.getMessage());
+        } catch (Exception e) {
+            log.error("Reddit comment stream poll of r/{} failed", subreddit, e);
+        }
+    }
+
+    private List<RedditComment> readNewComments(String subreddit, CrawlCursor cursor) {
+        String before = cursor != null ? cursor.getNewestFullname() : null;
+        List<RedditComment> comments = new ArrayList<>();
+        for (int page = 0; page < properties.getStreamMaxPages(); page++) {
+            List<RedditComment> items = readPage(subreddit, before).items();
+            if (items.isEmpty() && page == 0 && before != null && isStale(cursor)) {
+                log.info("Comment stream cursor {} returned nothing, restarting from the newest comments", before);
+                before = null;
+                items = readPage(subreddit, null).items();
+            }
+            comments.addAll(items);
+            // Without a cursor only the newest page is read; with one, keep paging while pages are full
+            if (before == null || items.size() < properties.getStreamPageSize()) {
+                break;
+            }
+            before = "t1_" + items.get(0).getId();
+        }
+        return comments;
+    }
+
+    private RedditListing<RedditComment> readPage(String subreddit, String before) {
+        String path = "/r/" + subreddit + "/comments?limit=" + properties.getStreamPageSize()
+            + (before != null ? "&before=" + before : "");
+        return redditApiClient.get(path, RedditRequestPriority.LISTING,
+            response -> listingReader.readStreamComments(response.getEntity().getContent()));
+    }
+
+    private boolean isStale(CrawlCursor cursor) {
+        return cursor.getNewestCreatedUtc() == null || cursor.getNewestCreatedUtc()
+            < Instant.now().minus(properties.getStreamStaleAfter()).getEpochSecond();
+    }
+}
@@ -0,0 +1,116 @@
+package stockevaluator.scraper.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import stockevaluator.config.RedditClusterProperties;
+import stockevaluator.config.RedditCrawlProperties;
+import stockevaluator.config.RedditCrawlProperties.CrawlPlan;
+import stockevaluator.scraper.pipeline.IngestCycle;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Schedules every configured crawl plan.
+ *
+ * <p>Each plan schedules its next cycle once the current one has finished, so a slow plan never
+ * causes runs of the same plan to overlap. The delay before the next cycle is chosen by the
+ * plan's {@link AdaptivePollInterval}, which follows the rate of new items and market hours.</p>
+ *
+ * <p>A cycle holds its thread until the cycle is persisted, for up to the pipeline's cycle timeout.
+ * The plans therefore run on a pool of their own with a thread per plan, leaving the shared task
+ * scheduler to the short periodic tasks.</p>
+ *
+ * <p>Every instance schedules every plan, but a cycle only runs on the node holding the lease of
+ * the plan's subreddit. Other nodes check again after a heartbeat interval, so a plan moves to a
+ * new node soon after its lease does.</p>
+ */
+@Slf4j
+@Component
+public class RedditCrawlScheduler {
+
+    private final ScheduledExecutorService crawlExecutor;
+    private final RedditDataService dataService;
+    private final RedditCrawlProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final IngestLeaseManager leaseManager;
+    private final RedditClusterProperties clusterProperties;
+    private final Map<String, ScheduledFuture<?>> scheduled = new HashMap<>();
+    private boolean stopped;
+
+    public RedditCrawlScheduler(RedditDataService dataService, RedditCrawlProperties properties,
+                                MeterRegistry meterRegistry, IngestLeaseManager leaseManager,
+                                RedditClusterProperties clusterProperties) {
+        AtomicInteger threads = new AtomicInteger();
+        this.crawlExecutor = Executors.newScheduledThreadPool(Math.max(1, properties.getPlans().size()), runnable -> {
+            Thread thread = new Thread(runnable, "reddit-crawl-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.dataService = dataService;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.leaseManager = leaseManager;
+        this.clusterProperties = clusterProperties;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        for (CrawlPlan plan : properties.getPlans()) {
+            if (plan.getSubreddit() == null || plan.getSubreddit().isBlank() || plan.getListings().isEmpty()) {
+                log.warn("Ignoring incomplete crawl plan {}", plan);
+                continue;
+            }
+            AdaptivePollInterval interval = new AdaptivePollInterval(plan, properties.getAdaptive(), meterRegistry);
+            schedule(plan, interval, Duration.ZERO);
+            log.info("Scheduled crawl of r/{} {} ({} pages) every {}{}", plan.getSubreddit(), plan.getListings(),
+                plan.getPageDepth(), plan.getPollInterval(), properties.getAdaptive().isEnabled()
+                    ? ", adapting between " + plan.getMinPollInterval() + " and " + plan.getMaxPollInterval() : "");
+        }
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        stopped = true;
+        scheduled.values().forEach(future -> future.cancel(false));
+        scheduled.clear();
+        crawlExecutor.shutdown();
+    }
+
+    private void run(CrawlPlan plan, AdaptivePollInterval interval) {
+        if (!leaseManager.owns(IngestLeaseManager.unitOf(plan.getSubreddit()))) {
+            schedule(plan, interval, clusterProperties.getHeartbeatInterval());
+            return;
+        }
+        Instant startedAt = Instant.now();
+        Duration delay = interval.getInterval();
+        try {
+            IngestCycle cycle = dataService.crawl(plan);
+            delay = interval.next(startedAt, cycle, Instant.now());
+            log.debug("Next crawl of r/{} in {} ({})", plan.getSubreddit(), delay, interval.getReason());
+        } catch (RuntimeException e) {
+            log.error("Crawl of r/{} failed", plan.getSubreddit(), e);
+        } finally {
+            schedule(plan, interval, delay);
+        }
+    }
+
+    private synchronized void schedule(CrawlPlan plan, AdaptivePollInterval interval, Duration delay) {
+        if (stopped) {
+            return;
+        }
+        scheduled.put(plan.getSubreddit(),
+            crawlExecutor.schedule(() -> run(plan, interval), delay.toMillis(), TimeUnit.MILLISECONDS));
+    }
+}
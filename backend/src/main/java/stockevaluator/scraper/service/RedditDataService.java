@@ -1,163 +1,148 @@
 package stockevaluator.scraper.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import org.apache.hc.client5.http.classic.methods.HttpGet;
-import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
-import org.apache.hc.client5.http.impl.classic.HttpClients;
-import org.apache.hc.core5.http.io.entity.EntityUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import stockevaluator.config.RedditConfig;
-import stockevaluator.scraper.model.RedditComment;
+import stockevaluator.config.RedditCrawlProperties.CrawlPlan;
+import stockevaluator.scraper.client.RedditApiClient;
+import stockevaluator.scraper.client.RedditRequestPriority;
+import stockevaluator.scraper.exception.RedditApiException;
+import stockevaluator.scraper.model.CrawlCursor;
+import stockevaluator.scraper.model.IngestBatch;
 import stockevaluator.scraper.model.RedditPost;
-import stockevaluator.scraper.model.Ticker;
-import stockevaluator.scraper.repository.RedditCommentRepository;
-import stockevaluator.scraper.repository.RedditPostRepository;
-import stockevaluator.scraper.repository.TickerRepository;
-
-import java.time.Instant;
-import java.time.LocalDateTime;
-import java.time.ZoneId;
-import java.util.HashSet;
-import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
+import stockevaluator.scraper.parser.RedditListing;
+import stockevaluator.scraper.parser.RedditListingReader;
+import stockevaluator.scraper.pipeline.IngestCycle;
+import stockevaluator.scraper.pipeline.RedditIngestPipeline;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+
+@Slf4j
 @Service
 public class RedditDataService {
 
     @Autowired
-    private RedditConfig redditConfig;
+    private RedditApiClient redditApiClient;
 
     @Autowired
-    private RedditPostRepository postRepository;
+    private IngestionStateTracker stateTracker;
 
     @Autowired
-    private RedditCommentRepository commentRepository;
+    private CommentCrawlPrioritizer crawlPrioritizer;
 
     @Autowired
-    private TickerRepository tickerRepository;
-
-    private final ObjectMapper objectMapper = new ObjectMapper();
-    private static final Pattern TICKER_PATTERN = Pattern.compile("\\$([A-Z]{1,5})");
-
-    @Scheduled(fixedRate = 300000) // Run every 5 minutes
-    public void fetchAndStoreRedditData() {
-        try (CloseableHttpClient client = HttpClients.createDefault()) {
-            // Fetch posts from r/wallstreetbets
-            HttpGet request = new HttpGet("https://oauth.reddit.com/r/wallstreetbets/hot");
-            request.setHeader("Authorization", "Bearer " + redditConfig.getAccessToken());
-            request.setHeader("User-Agent", "StockEvaluator/1.0.0");
-
-            client.execute(request, response -> {
-                String json = EntityUtils.toString(response.getEntity());
-                JsonNode root = objectMapper.readTree(json);
-                JsonNode posts = root.path("data").path("children");
-
-                for (JsonNode post : posts) {
-                    JsonNode data = post.path("data");
-                    RedditPost redditPost = new RedditPost();
-                    redditPost.setId(data.path("id").asText());
-                    redditPost.setTitle(data.path("title").asText());
-                    redditPost.setContent(data.path("selftext").asText());
-                    redditPost.setAuthor(data.path("author").asText());
-                    redditPost.setScore(data.path("score").asInt());
-                    redditPost.setCommentsCount(data.path("num_comments").asInt());
-                    redditPost.setCreatedDate(LocalDateTime.ofInstant(
-                        Instant.ofEpochSecond(data.path("created_utc").asLong()),
-                        ZoneId.systemDefault()
-                    ));
-
-                    // Extract ticker mentions
-                    Set<String> tickerMentions = extractTickerMentions(
-                        data.path("title").asText() + " " + data.path("selftext").asText()
-                    );
-                    redditPost.setTickerMentions(tickerMentions);
+    private RedditListingReader listingReader;
 
-                    // Save post
-                    postRepository.save(redditPost);
-
-                    // Update ticker statistics
-                    updateTickerStatistics(tickerMentions);
+    @Autowired
+    private RedditIngestPipeline ingestPipeline;
 
-                    // Fetch comments
-                    fetchComments(redditPost.getId());
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, CrawlPlanMetrics> planMetrics = new ConcurrentHashMap<>();
+
+    /**
+     * Runs one cycle of a crawl plan: reads every listing of the plan, hands the posts and the
+     * comment threads that grew to the ingestion pipeline and waits until all of it is persisted.
+     *
+     * @param plan the crawl plan to run
+     * @return the persisted cycle, or null if the cycle failed or was cut short
+     */
+    public IngestCycle crawl(CrawlPlan plan) {
+        CrawlPlanMetrics metrics = planMetrics.computeIfAbsent(plan.getSubreddit(),
+            subreddit -> new CrawlPlanMetrics(subreddit, meterRegistry));
+        long start = System.nanoTime();
+        try {
+            // Read every listing of the plan; a post listed in several of them is kept once
+            IngestBatch batch = new IngestBatch();
+            Map<String, RedditPost> postsById = new LinkedHashMap<>();
+            for (String listing : plan.getListings()) {
+                String scope = IngestionStateTracker.listingScope(plan.getSubreddit(), listing);
+                List<RedditPost> listed = fetchListing(plan, listing, stateTracker.getCursor(scope));
+                addCursor(batch, stateTracker.advanceListing(scope, listed));
+                for (RedditPost post : listed) {
+                    postsById.putIfAbsent(post.getId(), post);
                 }
-                return null;
-            });
+            }
+            batch.getPosts().addAll(postsById.values());
+
+            // Pick the threads before the posts are written, which updates their comment counts
+            List<RedditPost> threads = crawlPrioritizer.select(batch.getPosts());
+            IngestCycle cycle = ingestPipeline.openCycle("crawl:" + plan.getSubreddit(),
+                IngestLeaseManager.unitOf(plan.getSubreddit()));
+            try {
+                ingestPipeline.submitBatch(cycle, batch);
+                for (RedditPost thread : threads) {
+                    ingestPipeline.submitThread(cycle, thread);
+                }
+            } finally {
+                cycle.close();
+            }
+            cycle.await(ingestPipeline.getProperties().getCycleTimeout());
+            if (cycle.isFailed()) {
+                metrics.recordFailure(start);
+                log.warn("Reddit crawl of r/{} was only partly persisted: {}", plan.getSubreddit(),
+                    cycle.getFailure().getMessage());
+            } else if (cycle.isInterrupted()) {
+                metrics.recordFailure(start);
+                log.info("Reddit crawl of r/{} was cut short by shutdown", plan.getSubreddit());
+            } else {
+                metrics.recordSuccess(start, cycle);
+                return cycle;
+            }
+        } catch (RedditApiException e) {
+            metrics.recordFailure(start);
+            log.warn("Reddit crawl of r/{} aborted: {}", plan.getSubreddit(), e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            metrics.recordFailure(start);
+        } catch (RejectedExecutionException e) {
+            metrics.recordFailure(start);
+            log.info("Reddit crawl of r/{} stopped: {}", plan.getSubreddit(), e.getMessage());
         } catch (Exception e) {
-            e.printStackTrace();
+            metrics.recordFailure(start);
+            log.error("Reddit crawl of r/{} failed", plan.getSubreddit(), e);
         }
+        return null;
     }
 
-    private void fetchComments(String postId) {
-        try (CloseableHttpClient client = HttpClients.createDefault()) {
-            HttpGet request = new HttpGet("https://oauth.reddit.com/comments/" + postId);
-            request.setHeader("Authorization", "Bearer " + redditConfig.getAccessToken());
-            request.setHeader("User-Agent", "StockEvaluator/1.0.0");
-
-            client.execute(request, response -> {
-                String json = EntityUtils.toString(response.getEntity());
-                JsonNode root = objectMapper.readTree(json);
-                JsonNode comments = root.path(1).path("data").path("children");
-
-                for (JsonNode comment : comments) {
-                    JsonNode data = comment.path("data");
-                    if (data.has("body")) {
-                        RedditComment redditComment = new RedditComment();
-                        redditComment.setId(data.path("id").asText());
-                        redditComment.setContent(data.path("body").asText());
-                        redditComment.setAuthor(data.path("author").asText());
-                        redditComment.setScore(data.path("score").asInt());
-                        redditComment.setCreatedDate(LocalDateTime.ofInstant(
-                            Instant.ofEpochSecond(data.path("created_utc").asLong()),
-                            ZoneId.systemDefault()
-                        ));
-
-                        // Extract ticker mentions
-                        Set<String> tickerMentions = extractTickerMentions(data.path("body").asText());
-                        redditComment.setTickerMentions(tickerMentions);
-
-                        // Save comment
-                        commentRepository.save(redditComment);
-
-                        // Update ticker statistics
-                        updateTickerStatistics(tickerMentions);
-                    }
-                }
-                return null;
-            });
-        } catch (Exception e) {
-            e.printStackTrace();
+    // Follows the after cursor up to the page depth of the plan
+    private List<RedditPost> fetchListing(CrawlPlan plan, String listing, CrawlCursor cursor) {
+        List<RedditPost> posts = new ArrayList<>();
+        String after = null;
+        for (int page = 0; page < plan.getPageDepth(); page++) {
+            String path = "/r/" + plan.getSubreddit() + "/" + listing + "?limit=" + plan.getPageSize()
+                + (after != null ? "&after=" + after : "");
+            RedditListing<RedditPost> result = redditApiClient.get(path, RedditRequestPriority.LISTING,
+                response -> listingReader.readPosts(response.getEntity().getContent()));
+            posts.addAll(result.items());
+            after = result.after();
+            if (after == null || result.items().isEmpty() || reachedCursor(listing, result.items(), cursor)) {
+                break;
+            }
         }
+        return posts;
     }
 
-    private Set<String> extractTickerMentions(String text) {
-        Set<String> tickers = new HashSet<>();
-        Matcher matcher = TICKER_PATTERN.matcher(text);
-        while (matcher.find()) {
-            tickers.add(matcher.group(1));
+    // The new listing is ordered by creation time, so paging past the stored cursor only re-reads posts
+    private static boolean reachedCursor(String listing, List<RedditPost> page, CrawlCursor cursor) {
+        if (!"new".equals(listing) || cursor == null || cursor.getNewestCreatedUtc() == null) {
+            return false;
         }
-        return tickers;
+        RedditPost oldest = page.get(page.size() - 1);
+        return oldest.getCreatedDate() != null
+            && IngestionStateTracker.toEpochSecond(oldest.getCreatedDate()) <= cursor.getNewestCreatedUtc();
     }
 
-    private void updateTickerStatistics(Set<String> tickerMentions) {
-        for (String ticker : tickerMentions) {
-            Ticker tickerEntity = tickerRepository.findById(ticker)
-                .orElse(new Ticker());
-            
-            if (tickerEntity.getSymbol() == null) {
-                tickerEntity.setSymbol(ticker);
-                tickerEntity.setMentionCount(1);
-                tickerEntity.setSentimentScore(0.0);
-                tickerEntity.setTrendingScore(0.0);
-            } else {
-                tickerEntity.setMentionCount(tickerEntity.getMentionCount() + 1);
-            }
-            
-            tickerRepository.save(tickerEntity);
+    private static void addCursor(IngestBatch batch, CrawlCursor cursor) {
+        if (cursor != null) {
+            batch.getCursors().add(cursor);
         }
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,173 @@
+package stockevaluator.scraper.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import stockevaluator.config.RedditIngestionProperties;
+import stockevaluator.config.SentimentProperties;
+import stockevaluator.scraper.model.IngestBatch;
+import stockevaluator.scraper.model.RedditComment;
+import stockevaluator.scraper.model.RedditPost;
+import stockevaluator.scraper.model.TickerMentionTally;
+import stockevaluator.scraper.repository.RedditIngestRepository;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes a batch of ingested posts and comments in a single transaction.
+ *
+ * <p>Posts are written before comments so that comment rows can reference them; comments whose
+ * post is not part of the batch get a stub row for it. They are followed by the
+ * ticker mention rows of the items that are new. Mentions are then tallied per symbol in memory and applied to the
+ * ticker counters and rolling sentiments with one atomic update per distinct symbol, and added to the per-minute,
+ * hour and day buckets of the {@link TickerTimeSeriesService}. Every write reports the number
+ * of rows written and the achieved rows per second.</p>
+ *
+ * <p>Tickers carry the company name of the {@link TickerDictionary}. New tickers get it when they
+ * are first counted; stored tickers are brought up to date with the dictionary on startup.</p>
+ */
+@Slf4j
+@Service
+public class RedditIngestWriter {
+
+    private final RedditIngestRepository ingestRepository;
+    private final RedditIngestionProperties properties;
+    private final TickerDictionary tickerDictionary;
+    private final SentimentProperties sentimentProperties;
+    private final TickerTimeSeriesService timeSeriesService;
+    private final Timer writeTimer;
+    private final Counter rowCounter;
+
+    public RedditIngestWriter(RedditIngestRepository ingestRepository, RedditIngestionProperties properties,
+                              TickerDictionary tickerDictionary, SentimentProperties sentimentProperties,
+                              TickerTimeSeriesService timeSeriesService, MeterRegistry meterRegistry) {
+        this.ingestRepository = ingestRepository;
+        this.properties = properties;
+        this.tickerDictionary = tickerDictionary;
+        this.sentimentProperties = sentimentProperties;
+        this.timeSeriesService = timeSeriesService;
+        this.writeTimer = Timer.builder("reddit.ingest.write")
+            .description("Time spent writing an ingestion batch")
+            .register(meterRegistry);
+        this.rowCounter = Counter.builder("reddit.ingest.rows")
+            .description("Rows written by the ingestion batch writer")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Writes a batch and returns the items that were not stored before.
+     *
+     * <p>All posts and comments are upserted, but mention rows and ticker counters are only
+     * written for items this write inserted, so re-reading an item never counts its mentions twice,
+     * not even when several writers store the same item at once.</p>
+     *
+     * @param batch the batch to write
+     * @return a batch holding only the newly stored posts and comments
+     */
+    @Transactional
+    public IngestBatch write(IngestBatch batch) {
+        IngestBatch fresh = new IngestBatch();
+        if (batch.isEmpty() && batch.getCursors().isEmpty()) {
+            return fresh;
+        }
+        int batchSize = properties.getWriteBatchSize();
+        long start = System.nanoTime();
+
+        String token = UUID.randomUUID().toString();
+        int rows = ingestRepository.upsertPosts(batch.getPosts(), token, batchSize);
+        rows += ingestRepository.insertPostStubs(missingParents(batch), batchSize);
+        rows += ingestRepository.upsertComments(batch.getComments(), token, batchSize);
+
+        Set<String> inserted = new HashSet<>(ingestRepository.findPostIdsInsertedBy(token,
+            batch.getPosts().stream().map(RedditPost::getId).toList()));
+        for (RedditPost post : batch.getPosts()) {
+            if (inserted.remove(post.getId())) {
+                fresh.getPosts().add(post);
+            }
+        }
+        inserted = new HashSet<>(ingestRepository.findCommentIdsInsertedBy(token,
+            batch.getComments().stream().map(RedditComment::getId).toList()));
+        for (RedditComment comment : batch.getComments()) {
+            if (inserted.remove(comment.getId())) {
+                fresh.getComments().add(comment);
+            }
+        }
+
+        rows += ingestRepository.insertPostMentions(fresh.getPosts(), batchSize);
+        rows += ingestRepository.insertCommentMentions(fresh.getComments(), batchSize);
+        rows += ingestRepository.incrementTickerMentions(tallyMentions(fresh), tickerDictionary.getCompanyNames(),
+            sentimentProperties.getTickerSmoothing(), batchSize);
+        rows += timeSeriesService.addMentions(fresh);
+        rows += ingestRepository.upsertCursors(batch.getCursors(), batchSize);
+
+        long elapsed = System.nanoTime() - start;
+        writeTimer.record(elapsed, TimeUnit.NANOSECONDS);
+        rowCounter.increment(rows);
+        log.info("Wrote {} posts, {} comments ({} new) as {} rows in {} ms, {} rows/s",
+            batch.getPosts().size(), batch.getComments().size(), fresh.size(), rows,
+            TimeUnit.NANOSECONDS.toMillis(elapsed), Math.round(rows / Math.max(elapsed / 1e9, 1e-6)));
+        return fresh;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void syncCompanyNames() {
+        try {
+            int updated = ingestRepository.updateCompanyNames(tickerDictionary.getCompanyNames(),
+                properties.getWriteBatchSize());
+            if (updated > 0) {
+                log.info("Updated the company name of {} tickers", updated);
+            }
+        } catch (Exception e) {
+            log.warn("Could not update the company names of tickers: {}", e.getMessage());
+        }
+    }
+
+    // Parents of comments whose post is not part of the batch, e.g. comments read from a stream
+    private static Collection<RedditPost> missingParents(IngestBatch batch) {
+        Set<String> postIds = new HashSet<>();
+        for (RedditPost post : batch.getPosts()) {
+            postIds.add(post.getId());
+        }
+        Map<String, RedditPost> parents = new LinkedHashMap<>();
+        for (RedditComment comment : batch.getComments()) {
+            RedditPost parent = comment.getPost();
+            if (parent != null && !postIds.contains(parent.getId())) {
+                parents.putIfAbsent(parent.getId(), parent);
+            }
+        }
+        return parents.values();
+    }
+
+    private static SortedMap<String, TickerMentionTally> tallyMentions(IngestBatch batch) {
+        SortedMap<String, TickerMentionTally> tallies = new TreeMap<>();
+        for (RedditPost post : batch.getPosts()) {
+            addMentions(tallies, post.getTickerMentions(), post.getSentiment(), post.getScore());
+        }
+        for (RedditComment comment : batch.getComments()) {
+            addMentions(tallies, comment.getTickerMentions(), comment.getSentiment(), comment.getScore());
+        }
+        return tallies;
+    }
+
+    private static void addMentions(Map<String, TickerMentionTally> tallies, Set<String> tickers, Double sentiment,
+                                    Integer score) {
+        if (tickers != null) {
+            for (String ticker : tickers) {
+                tallies.computeIfAbsent(ticker, symbol -> new TickerMentionTally()).add(sentiment, score);
+            }
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package stockevaluator.scraper.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+import stockevaluator.config.SentimentProperties;
+import stockevaluator.scraper.util.ResourceLines;
+import stockevaluator.scraper.util.TokenTable;
+
+import java.util.List;
+
+/**
+ * Scores the sentiment of a post or comment with a lexicon and the rules of VADER.
+ *
+ * <p>Every token found in the lexicon contributes its valence, adjusted by the tokens around it:
+ * a negation among the three tokens before it flips and dampens it, an intensifier or dampener
+ * there strengthens or weakens it, and a token in capitals within otherwise lower case text is
+ * emphasised. Valences after a "but" count three times as much as those before it, exclamation
+ * marks strengthen the total, and the total is normalised to a score from -1 to 1. Emojis are
+ * tokens of their own, and two adjacent tokens can form a phrase such as "paper hands".</p>
+ *
+ * <p>Scoring walks the text once and looks tokens up by their offsets, so it allocates nothing.
+ * Instances are thread-safe.</p>
+ */
+@Slf4j
+@Component
+public class SentimentAnalyzer {
+
+    private static final double NEGATION_SCALAR = -0.74;
+    private static final double BOOSTER_INCREMENT = 0.293;
+    private static final double CAPS_INCREMENT = 0.733;
+    private static final double EXCLAMATION_INCREMENT = 0.292;
+    private static final int MAX_EXCLAMATIONS = 4;
+    private static final double NORMALIZATION_ALPHA = 15;
+
+    private static final List<String> NEGATIONS = List.of("not", "no", "never", "none", "nobody", "nothing",
+        "nowhere", "neither", "nor", "cannot", "cant", "dont", "doesnt", "didnt", "isnt", "arent", "wasnt",
+        "werent", "wont", "wouldnt", "shouldnt", "couldnt", "aint", "without", "rarely", "seldom", "despite");
+    private static final List<String> INTENSIFIERS = List.of("absolutely", "amazingly", "completely",
+        "deeply", "especially", "exceptionally", "extremely", "fucking", "fuckin", "hella", "highly", "hugely",
+        "incredibly", "insanely", "more", "most", "particularly", "purely", "quite", "really", "so", "super",
+        "thoroughly", "totally", "tremendously", "truly", "utterly", "very");
+    private static final List<String> DAMPENERS = List.of("almost", "barely", "hardly", "kinda", "less",
+        "little", "marginally", "occasionally", "partly", "scarcely", "slightly", "somewhat", "sorta");
+
+    private final TokenTable lexicon;
+    private final TokenTable negations;
+    private final TokenTable boosters;
+
+    public SentimentAnalyzer(ResourceLoader resourceLoader, SentimentProperties properties) {
+        TokenTable.Builder builder = TokenTable.builder();
+        for (String line : ResourceLines.read(resourceLoader, properties.getLexiconFile())) {
+            String[] columns = line.split("\t");
+            try {
+                builder.put(columns[0].trim(), Double.parseDouble(columns[1].trim()));
+            } catch (RuntimeException e) {
+                log.warn("Ignoring malformed lexicon line '{}'", line);
+            }
+        }
+        this.lexicon = builder.build();
+
+        TokenTable.Builder negationBuilder = TokenTable.builder();
+        NEGATIONS.forEach(token -> negationBuilder.put(token, 1));
+        this.negations = negationBuilder.build();
+        TokenTable.Builder boosterBuilder = TokenTable.builder();
+        INTENSIFIERS.forEach(token -> boosterBuilder.put(token, BOOSTER_INCREMENT));
+        DAMPENERS.forEach(token -> boosterBuilder.put(token, -BOOSTER_INCREMENT));
+        this.boosters = boosterBuilder.build();
+        log.info("Loaded {} sentiment lexicon entries from {}", lexicon.size(), properties.getLexiconFile());
+    }
+
+    /**
+     * Scores a text.
+     *
+     * @param text the text of a post or comment
+     * @return the sentiment from -1 (most negative) to 1 (most positive), 0 if the text is neutral
+     */
+    public double score(CharSequence text) {
+        if (text == null || text.length() == 0) {
+            return 0;
+        }
+        int length = text.length();
+        boolean lowerCase = hasLowerCase(text);
+        double sum = 0;
+        double beforeBut = 0;
+        boolean but = false;
+        int exclamations = 0;
+        // Offsets of the three tokens before the current one, the most recent first
+        int start1 = -1;
+        int end1 = -1;
+        int start2 = -1;
+        int end2 = -1;
+        int start3 = -1;
+        int end3 = -1;
+        double previous = 0;
+
+        int i = 0;
+        while (i < length) {
+            char c = text.charAt(i);
+            int start = i;
+            if (c == '!') {
+                exclamations++;
+                i++;
+                continue;
+            }
+            if (isWordChar(c)) {
+                do {
+                    i++;
+                } while (i < length && isWordChar(text.charAt(i)));
+            } else {
+                int codePoint = Character.codePointAt(text, i);
+                i += Character.charCount(codePoint);
+                if (Character.getType(codePoint) != Character.OTHER_SYMBOL) {
+                    continue;
+                }
+            }
+            int end = i;
+            while (start < end && isApostrophe(text.charAt(start))) {
+                start++;
+            }
+            while (end > start && isApostrophe(text.charAt(end - 1))) {
+                end--;
+            }
+            if (start == end) {
+                continue;
+            }
+
+            double valence = lexicon.valueOf(text, start, end);
+            // A phrase of this and the previous token replaces the valence of the previous token
+            if (start1 >= 0 && (start == end1 || start - end1 == 1 && text.charAt(end1) == ' ')) {
+                double phrase = lexicon.valueOf(text, start1, end);
+                if (!Double.isNaN(phrase)) {
+                    sum -= previous;
+                    valence = phrase;
+                    start = start1;
+                    start1 = start2;
+                    end1 = end2;
+                    start2 = start3;
+                    end2 = end3;
+                    start3 = -1;
+                    end3 = -1;
+                }
+            }
+
+            double contribution = 0;
+            if (isBut(text, start, end)) {
+                beforeBut += sum;
+                sum = 0;
+                but = true;
+            } else if (!Double.isNaN(valence) && valence != 0) {
+                if (lowerCase && isCapitals(text, start, end)) {
+                    valence += Math.copySign(CAPS_INCREMENT, valence);
+                }
+                valence += boost(text, start1, end1, valence, 1.0)
+                    + boost(text, start2, end2, valence, 0.95)
+                    + boost(text, start3, end3, valence, 0.9);
+                if (isNegation(text, start1, end1) || isNegation(text, start2, end2)
+                    || isNegation(text, start3, end3)) {
+                    valence *= NEGATION_SCALAR;
+                }
+                contribution = valence;
+                sum += contribution;
+            }
+            previous = contribution;
+            start3 = start2;
+            end3 = end2;
+            start2 = start1;
+            end2 = end1;
+            start1 = start;
+            end1 = end;
+        }
+
+        double total = but ? beforeBut * 0.5 + sum * 1.5 : sum;
+        if (total != 0) {
+            total += Math.copySign(Math.min(exclamations, MAX_EXCLAMATIONS) * EXCLAMATION_INCREMENT, total);
+        }
+        double score = total / Math.sqrt(total * total + NORMALIZATION_ALPHA);
+        return Math.max(-1, Math.min(1, score));
+    }
+
+    // Intensifiers push the valence away from zero and dampeners towards it
+    private double boost(CharSequence text, int start, int end, double valence, double decay) {
+        if (start < 0) {
+            return 0;
+        }
+        double increment = boosters.valueOf(text, start, end);
+        if (Double.isNaN(increment)) {
+            return 0;
+        }
+        return (valence < 0 ? -increment : increment) * decay;
+    }
+
+    private boolean isNegation(CharSequence text, int start, int end) {
+        if (start < 0) {
+            return false;
+        }
+        if (end - start >= 3 && (text.charAt(end - 1) | 0x20) == 't' && isApostrophe(text.charAt(end - 2))
+            && (text.charAt(end - 3) | 0x20) == 'n') {
+            return true;
+        }
+        return negations.contains(text, start, end);
+    }
+
+    private static boolean isBut(CharSequence text, int start, int end) {
+        return end - start == 3 && (text.charAt(start) | 0x20) == 'b' && (text.charAt(start + 1) | 0x20) == 'u'
+            && (text.charAt(start + 2) | 0x20) == 't';
+    }
+
+    private static boolean isCapitals(CharSequence text, int start, int end) {
+        boolean letter = false;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (Character.isLowerCase(c)) {
+                return false;
+            }
+            letter |= Character.isLetter(c);
+        }
+        return letter;
+    }
+
+    private static boolean hasLowerCase(CharSequence text) {
+        for (int i = 0, length = text.length(); i < length; i++) {
+            if (Character.isLowerCase(text.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || isApostrophe(c);
+    }
+
+    private static boolean isApostrophe(char c) {
+        return c == '\'' || c == '\u2019';
+    }
+}
@@ -0,0 +1,242 @@
+package stockevaluator.scraper.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import stockevaluator.config.RedditIngestionProperties;
+import stockevaluator.config.SentimentProperties;
+import stockevaluator.scraper.model.SentimentRescoreStatus;
+import stockevaluator.scraper.model.StoredText;
+import stockevaluator.scraper.model.TickerMentionTally;
+import stockevaluator.scraper.repository.SentimentRescoreRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+/**
+ * Re-scores the sentiment of every stored post and comment and rebuilds the rolling sentiment of
+ * every ticker, for when the lexicon or the scoring rules changed.
+ *
+ * <p>The job runs in the background on its own thread. It reads posts and then comments in
+ * keyset-paginated chunks, scores each chunk on a fork-join pool whose workers run at low
+ * priority, and writes the scores back in JDBC batches. The request threads are never involved, so
+ * the API keeps answering while the job runs.</p>
+ *
+ * <p>The rolling ticker sentiments are rebuilt from the new scores by replaying the mentions chunk
+ * by chunk, the way ingestion applies its batches. Posts come before comments and each is
+ * replayed in id order, which for Reddit ids is roughly the order they were created in.</p>
+ *
+ * <p>Ingestion keeps moving the ticker sentiments while the job runs. The job therefore takes a
+ * snapshot of them when it starts and, instead of overwriting them at the end, adds to each
+ * rebuilt sentiment how far ingestion moved the ticker since the snapshot. Mentions ingested
+ * during the run that the scan also reached are counted by both, which for a run of minutes
+ * against a history of months is negligible.</p>
+ */
+@Slf4j
+@Service
+public class SentimentRescoreJob {
+
+    private static final Duration LOG_INTERVAL = Duration.ofSeconds(10);
+
+    private final SentimentRescoreRepository rescoreRepository;
+    private final SentimentAnalyzer sentimentAnalyzer;
+    private final SentimentProperties properties;
+    private final int batchSize;
+    private final ExecutorService executor;
+    private final AtomicLong postsDone = new AtomicLong();
+    private final AtomicLong commentsDone = new AtomicLong();
+    private volatile String state = "IDLE";
+    private volatile String phase;
+    private volatile long postsTotal;
+    private volatile long commentsTotal;
+    private volatile int tickersUpdated;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String error;
+    private volatile boolean cancelled;
+
+    public SentimentRescoreJob(SentimentRescoreRepository rescoreRepository, SentimentAnalyzer sentimentAnalyzer,
+                               SentimentProperties properties, RedditIngestionProperties ingestionProperties) {
+        this.rescoreRepository = rescoreRepository;
+        this.sentimentAnalyzer = sentimentAnalyzer;
+        this.properties = properties;
+        this.batchSize = ingestionProperties.getWriteBatchSize();
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sentiment-rescore");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts a job unless one is running.
+     *
+     * @return true if a job was started, false if one is already running
+     */
+    public synchronized boolean start() {
+        if ("RUNNING".equals(state)) {
+            return false;
+        }
+        state = "RUNNING";
+        phase = null;
+        postsTotal = 0;
+        commentsTotal = 0;
+        postsDone.set(0);
+        commentsDone.set(0);
+        tickersUpdated = 0;
+        startedAt = Instant.now();
+        finishedAt = null;
+        error = null;
+        cancelled = false;
+        executor.execute(this::run);
+        return true;
+    }
+
+    /**
+     * Asks a running job to stop after its current chunk. Scores written so far are kept.
+     *
+     * @return true if a job was running
+     */
+    public boolean cancel() {
+        if (!"RUNNING".equals(state)) {
+            return false;
+        }
+        cancelled = true;
+        return true;
+    }
+
+    public SentimentRescoreStatus getStatus() {
+        long done = postsDone.get() + commentsDone.get();
+        Instant start = startedAt;
+        Instant end = finishedAt != null ? finishedAt : Instant.now();
+        double seconds = start != null ? Duration.between(start, end).toMillis() / 1000.0 : 0;
+        return new SentimentRescoreStatus(state, phase, postsTotal, postsDone.get(), commentsTotal,
+            commentsDone.get(), tickersUpdated, seconds > 0 ? Math.round(done / seconds * 10) / 10.0 : 0,
+            start, finishedAt, error);
+    }
+
+    @PreDestroy
+    public void stop() {
+        cancelled = true;
+        executor.shutdownNow();
+    }
+
+    private void run() {
+        int parallelism = properties.getRescoreParallelism() > 0 ? properties.getRescoreParallelism()
+            : Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        ForkJoinPool pool = new ForkJoinPool(parallelism, SentimentRescoreJob::newWorker, null, false);
+        try {
+            postsTotal = rescoreRepository.countPosts();
+            commentsTotal = rescoreRepository.countComments();
+            log.info("Re-scoring the sentiment of {} posts and {} comments on {} workers", postsTotal,
+                commentsTotal, parallelism);
+            Map<String, Double> snapshot = rescoreRepository.findTickerSentiments();
+            SortedMap<String, Double> rolling = new TreeMap<>();
+
+            phase = "POSTS";
+            rescore(pool, rolling, postsDone, postsTotal, true);
+            phase = "COMMENTS";
+            rescore(pool, rolling, commentsDone, commentsTotal, false);
+            if (cancelled) {
+                finish("CANCELLED");
+                log.info("Sentiment re-scoring cancelled after {} posts and {} comments", postsDone.get(),
+                    commentsDone.get());
+                return;
+            }
+
+            phase = "TICKERS";
+            tickersUpdated = rescoreRepository.mergeTickerSentiments(rolling, snapshot, batchSize);
+            finish("COMPLETED");
+            SentimentRescoreStatus status = getStatus();
+            log.info("Re-scored {} posts and {} comments and rebuilt {} ticker sentiments in {} s, {} items/s",
+                status.postsDone(), status.commentsDone(), status.tickersUpdated(),
+                Duration.between(status.startedAt(), status.finishedAt()).toSeconds(), status.itemsPerSecond());
+        } catch (Exception e) {
+            log.error("Sentiment re-scoring failed in phase {}", phase, e);
+            error = e.getMessage();
+            finish("FAILED");
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private void rescore(ForkJoinPool pool, Map<String, Double> rolling, AtomicLong done, long total,
+                         boolean posts) {
+        int chunkSize = properties.getRescoreChunkSize();
+        String afterId = "";
+        long nextLog = System.nanoTime() + LOG_INTERVAL.toNanos();
+        while (!cancelled) {
+            List<StoredText> chunk = posts ? rescoreRepository.findPostsAfter(afterId, chunkSize)
+                : rescoreRepository.findCommentsAfter(afterId, chunkSize);
+            if (chunk.isEmpty()) {
+                return;
+            }
+            double[] sentiments = new double[chunk.size()];
+            pool.submit(() -> IntStream.range(0, sentiments.length).parallel()
+                .forEach(i -> sentiments[i] = sentimentAnalyzer.score(chunk.get(i).text()))).join();
+
+            List<String> ids = chunk.stream().map(StoredText::id).toList();
+            Map<String, List<String>> mentions;
+            if (posts) {
+                rescoreRepository.updatePostSentiments(chunk, sentiments, batchSize);
+                mentions = rescoreRepository.findPostMentions(ids);
+            } else {
+                rescoreRepository.updateCommentSentiments(chunk, sentiments, batchSize);
+                mentions = rescoreRepository.findCommentMentions(ids);
+            }
+            replay(rolling, chunk, sentiments, mentions);
+
+            afterId = chunk.get(chunk.size() - 1).id();
+            done.addAndGet(chunk.size());
+            if (System.nanoTime() >= nextLog) {
+                nextLog = System.nanoTime() + LOG_INTERVAL.toNanos();
+                log.info("Re-scored {} of {} {}, {} items/s", done.get(), total, posts ? "posts" : "comments",
+                    getStatus().itemsPerSecond());
+            }
+        }
+    }
+
+    // Moves the rolling sentiments the way RedditIngestWriter does for a written batch
+    private void replay(Map<String, Double> rolling, List<StoredText> chunk, double[] sentiments,
+                        Map<String, List<String>> mentions) {
+        SortedMap<String, TickerMentionTally> tallies = new TreeMap<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            List<String> tickers = mentions.get(chunk.get(i).id());
+            if (tickers != null) {
+                for (String ticker : tickers) {
+                    tallies.computeIfAbsent(ticker, symbol -> new TickerMentionTally())
+                        .add(sentiments[i], chunk.get(i).score());
+                }
+            }
+        }
+        for (Map.Entry<String, TickerMentionTally> entry : tallies.entrySet()) {
+            TickerMentionTally tally = entry.getValue();
+            Double current = rolling.get(entry.getKey());
+            rolling.put(entry.getKey(), current == null ? tally.getSentiment()
+                : current + tally.smoothingFactor(properties.getTickerSmoothing()) * (tally.getSentiment() - current));
+        }
+    }
+
+    private void finish(String finalState) {
+        finishedAt = Instant.now();
+        phase = null;
+        state = finalState;
+    }
+
+    private static ForkJoinWorkerThread newWorker(ForkJoinPool pool) {
+        ForkJoinWorkerThread worker = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        worker.setName("sentiment-rescore-" + worker.getPoolIndex());
+        worker.setPriority(Thread.MIN_PRIORITY);
+        return worker;
+    }
+}
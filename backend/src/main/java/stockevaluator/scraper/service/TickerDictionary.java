@@ -0,0 +1,192 @@
+package stockevaluator.scraper.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+import stockevaluator.config.TickerProperties;
+import stockevaluator.scraper.util.AhoCorasick;
+import stockevaluator.scraper.util.ResourceLines;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The universe of ticker symbols that can be mentioned, loaded from the configured listing file,
+ * together with the company names, products, people and nicknames that stand for them.
+ *
+ * <p>Symbols and aliases are compiled into one {@link AhoCorasick} automaton that ignores case,
+ * so a text is matched against both in a single pass. The automaton's pattern ids index the
+ * tables of this class: a pattern can be a symbol, an alias, or both, such as "Uber" which is
+ * read as UBER when written in capitals and as an alias otherwise.</p>
+ */
+@Slf4j
+@Component
+public class TickerDictionary {
+
+    private static final String ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789 &-.'";
+    private static final int MAX_SYMBOL_LENGTH = 5;
+
+    private final AhoCorasick mentionMatcher;
+    private final String[] symbols;
+    private final boolean[] stopWords;
+    private final String[] aliasTargets;
+    private final String[] aliasForms;
+    private final Map<String, String> companyNames;
+
+    public TickerDictionary(ResourceLoader resourceLoader, TickerProperties properties) {
+        Map<String, String> names = new HashMap<>();
+        for (String line : ResourceLines.read(resourceLoader, properties.getSymbolsFile())) {
+            int separator = line.indexOf('|');
+            String symbol = (separator < 0 ? line : line.substring(0, separator)).trim();
+            // Skips the header and footer of the listing as well as symbols with a class suffix
+            if (isSymbol(symbol)) {
+                String name = separator < 0 ? "" : line.substring(separator + 1);
+                int nextSeparator = name.indexOf('|');
+                names.putIfAbsent(symbol, (nextSeparator < 0 ? name : name.substring(0, nextSeparator)).trim());
+            }
+        }
+        Set<String> stopWordSet = new HashSet<>();
+        for (String line : ResourceLines.read(resourceLoader, properties.getStopWordsFile())) {
+            stopWordSet.add(line.trim().toUpperCase());
+        }
+
+        AhoCorasick.Builder builder = AhoCorasick.builder(ALPHABET, true);
+        List<String> symbolList = new ArrayList<>(names.keySet());
+        Collections.sort(symbolList);
+        List<Pattern> patterns = new ArrayList<>();
+        for (String symbol : symbolList) {
+            patterns.add(new Pattern(symbol));
+            builder.add(symbol);
+        }
+        int aliases = 0;
+        for (String line : ResourceLines.read(resourceLoader, properties.getAliasesFile())) {
+            String[] columns = line.split("\\|");
+            String symbol = columns[0].trim();
+            if (!names.containsKey(symbol)) {
+                log.warn("Ignoring aliases of {}, which is not a listed symbol", symbol);
+                continue;
+            }
+            for (int i = 1; i < columns.length; i++) {
+                String alias = columns[i].trim();
+                if (alias.isEmpty()) {
+                    continue;
+                }
+                int pattern;
+                try {
+                    pattern = builder.add(alias);
+                } catch (IllegalArgumentException e) {
+                    log.warn("Ignoring alias '{}' of {}: {}", alias, symbol, e.getMessage());
+                    continue;
+                }
+                if (pattern == patterns.size()) {
+                    patterns.add(new Pattern(null));
+                }
+                Pattern entry = patterns.get(pattern);
+                if (entry.aliasTarget != null && !entry.aliasTarget.equals(symbol)) {
+                    log.warn("Ignoring alias '{}' of {}, it already stands for {}", alias, symbol, entry.aliasTarget);
+                    continue;
+                }
+                entry.aliasTarget = symbol;
+                entry.aliasForm = alias.equals(alias.toLowerCase()) ? null : alias;
+                aliases++;
+            }
+        }
+
+        this.symbols = new String[patterns.size()];
+        this.stopWords = new boolean[patterns.size()];
+        this.aliasTargets = new String[patterns.size()];
+        this.aliasForms = new String[patterns.size()];
+        for (int pattern = 0; pattern < patterns.size(); pattern++) {
+            Pattern entry = patterns.get(pattern);
+            symbols[pattern] = entry.symbol;
+            stopWords[pattern] = entry.symbol != null && stopWordSet.contains(entry.symbol);
+            aliasTargets[pattern] = entry.aliasTarget;
+            aliasForms[pattern] = entry.aliasForm;
+        }
+        this.mentionMatcher = builder.build();
+        this.companyNames = Collections.unmodifiableMap(names);
+        log.info("Loaded {} ticker symbols from {} and {} aliases from {}", names.size(),
+            properties.getSymbolsFile(), aliases, properties.getAliasesFile());
+    }
+
+    public AhoCorasick getMentionMatcher() {
+        return mentionMatcher;
+    }
+
+    /**
+     * Returns the symbol matched by a pattern of {@link #getMentionMatcher()}, or null if the
+     * pattern is only an alias.
+     */
+    public String symbolOf(int pattern) {
+        return symbols[pattern];
+    }
+
+    /**
+     * Returns whether the symbol of a pattern is also a common word that only counts as a cashtag.
+     */
+    public boolean isStopWord(int pattern) {
+        return stopWords[pattern];
+    }
+
+    /**
+     * Returns the symbol an alias pattern stands for, or null if the pattern is not an alias.
+     */
+    public String aliasTargetOf(int pattern) {
+        return aliasTargets[pattern];
+    }
+
+    /**
+     * Returns the capitalisation an alias must be written in, or null if it matches in any case.
+     */
+    public String aliasFormOf(int pattern) {
+        return aliasForms[pattern];
+    }
+
+    public boolean contains(String symbol) {
+        return companyNames.containsKey(symbol);
+    }
+
+    /**
+     * Returns the company or fund name listed for a symbol, or null if the symbol is unknown.
+     */
+    public String companyNameOf(String symbol) {
+        return companyNames.get(symbol);
+    }
+
+    public Map<String, String> getCompanyNames() {
+        return companyNames;
+    }
+
+    public int size() {
+        return companyNames.size();
+    }
+
+    private static boolean isSymbol(String value) {
+        if (value.isEmpty() || value.length() > MAX_SYMBOL_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 'A' || c > 'Z') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class Pattern {
+
+        private final String symbol;
+        private String aliasTarget;
+        private String aliasForm;
+
+        Pattern(String symbol) {
+            this.symbol = symbol;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package stockevaluator.scraper.service;
+
+import org.springframework.stereotype.Component;
+import stockevaluator.config.TickerProperties;
+import stockevaluator.scraper.util.AhoCorasick;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Extracts the ticker symbols mentioned in the text of a post or comment.
+ *
+ * <p>Shared by every ingestion mode so that posts and comments are tagged the same way no matter
+ * which crawl found them.</p>
+ *
+ * <p>Only symbols of the {@link TickerDictionary} are extracted, found in one pass of its
+ * automaton. A cashtag such as {@code $TSLA} or {@code $tsla} always counts. A bare symbol only
+ * counts when it stands as a whole word written in capitals and is not a stop word, so that
+ * "A", "IT" or "DD" in a sentence are not read as tickers. In shouted text short bare symbols are
+ * dropped as well, since there every short word looks like one.</p>
+ *
+ * <p>Company names and nicknames such as "Tesla" or "the mouse" are linked to their symbol in the
+ * same pass, when they stand as whole words in the capitalisation the dictionary asks for.</p>
+ */
+@Component
+public class TickerMentionExtractor {
+
+    private static final int MIN_SHOUTING_LETTERS = 12;
+
+    private final TickerDictionary dictionary;
+    private final TickerProperties properties;
+
+    public TickerMentionExtractor(TickerDictionary dictionary, TickerProperties properties) {
+        this.dictionary = dictionary;
+        this.properties = properties;
+    }
+
+    public Set<String> extract(String text) {
+        Set<String> tickers = new HashSet<>();
+        if (text == null || text.isEmpty()) {
+            return tickers;
+        }
+        Mentions mentions = new Mentions(text, tickers);
+        dictionary.getMentionMatcher().scan(text, mentions);
+        mentions.addBareSymbols();
+        return tickers;
+    }
+
+    /**
+     * Collects the matches of one scan. Cashtags are added right away; bare symbols are held back
+     * until the whole text is seen, because whether it is shouted is only known at the end.
+     */
+    private final class Mentions implements AhoCorasick.MatchHandler {
+
+        private final String text;
+        private final Set<String> tickers;
+        private int[] bare;
+        private int bareCount;
+        private boolean shortBare;
+        private int symbolLetters;
+        private int symbolCapitals;
+
+        Mentions(String text, Set<String> tickers) {
+            this.text = text;
+            this.tickers = tickers;
+        }
+
+        @Override
+        public void onMatch(int pattern, int start, int end) {
+            if (end < text.length() && Character.isLetterOrDigit(text.charAt(end))) {
+                return;
+            }
+            char before = start > 0 ? text.charAt(start - 1) : ' ';
+            if (dictionary.symbolOf(pattern) != null && onSymbol(pattern, before, start, end)) {
+                return;
+            }
+            String target = dictionary.aliasTargetOf(pattern);
+            if (target != null && !Character.isLetterOrDigit(before) && before != '$'
+                && isAliasForm(pattern, start, end)) {
+                tickers.add(target);
+            }
+        }
+
+        // Returns whether the match was taken as a cashtag or a bare symbol
+        private boolean onSymbol(int pattern, char before, int start, int end) {
+            if (before == '$') {
+                if (start < 2 || !Character.isLetterOrDigit(text.charAt(start - 2))) {
+                    tickers.add(dictionary.symbolOf(pattern));
+                    countSymbolLetters(start, end);
+                    return true;
+                }
+                return false;
+            }
+            if (Character.isLetterOrDigit(before) || end - start < properties.getMinBareLength()
+                || dictionary.isStopWord(pattern) || !isCapitals(start, end)) {
+                return false;
+            }
+            if (bare == null) {
+                bare = new int[4];
+            } else if (bareCount == bare.length) {
+                bare = Arrays.copyOf(bare, bareCount * 2);
+            }
+            bare[bareCount++] = pattern;
+            shortBare |= end - start <= properties.getShoutingSymbolLength();
+            countSymbolLetters(start, end);
+            return true;
+        }
+
+        void addBareSymbols() {
+            boolean shouting = shortBare && isShouting();
+            for (int i = 0; i < bareCount; i++) {
+                String symbol = dictionary.symbolOf(bare[i]);
+                if (!shouting || symbol.length() > properties.getShoutingSymbolLength()) {
+                    tickers.add(symbol);
+                }
+            }
+        }
+
+        // Counts the capitals among the letters that are not part of a symbol
+        private boolean isShouting() {
+            int letters = -symbolLetters;
+            int capitals = -symbolCapitals;
+            for (int i = 0, length = text.length(); i < length; i++) {
+                char c = text.charAt(i);
+                if (Character.isLetter(c)) {
+                    letters++;
+                    if (Character.isUpperCase(c)) {
+                        capitals++;
+                    }
+                }
+            }
+            return letters >= MIN_SHOUTING_LETTERS && capitals >= properties.getShoutingRatio() * letters;
+        }
+
+        // Aliases written with capitals in the dictionary must appear as written or in capitals
+        private boolean isAliasForm(int pattern, int start, int end) {
+            String form = dictionary.aliasFormOf(pattern);
+            if (form == null || text.startsWith(form, start)) {
+                return true;
+            }
+            for (int i = start; i < end; i++) {
+                if (Character.isLowerCase(text.charAt(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean isCapitals(int start, int end) {
+            for (int i = start; i < end; i++) {
+                if (!Character.isUpperCase(text.charAt(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void countSymbolLetters(int start, int end) {
+            symbolLetters += end - start;
+            for (int i = start; i < end; i++) {
+                if (Character.isUpperCase(text.charAt(i))) {
+                    symbolCapitals++;
+                }
+            }
+        }
+    }
+}
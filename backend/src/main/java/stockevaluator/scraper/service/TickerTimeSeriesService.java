@@ -0,0 +1,166 @@
+package stockevaluator.scraper.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import stockevaluator.config.RedditIngestionProperties;
+import stockevaluator.config.TickerTimeSeriesProperties;
+import stockevaluator.scraper.model.IngestBatch;
+import stockevaluator.scraper.model.RedditComment;
+import stockevaluator.scraper.model.RedditPost;
+import stockevaluator.scraper.model.TickerMentionBucket;
+import stockevaluator.scraper.model.TickerMentionBucket.Resolution;
+import stockevaluator.scraper.model.TickerMentionPoint;
+import stockevaluator.scraper.model.TickerMentionTally;
+import stockevaluator.scraper.repository.TickerTimeSeriesRepository;
+import stockevaluator.scraper.util.LinearCounting;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Keeps the mentions of every ticker per minute, hour and day, and serves them as time series.
+ *
+ * <p>The mentions of a written batch are first added up per bucket in memory and then added to
+ * the stored buckets with one upsert each, in the transaction of the batch. A series is read from
+ * the buckets of the asked resolution alone, so answering it never touches the posts, the
+ * comments or their mention rows. Minute and hour buckets are pruned once they are older than
+ * their retention.</p>
+ */
+@Slf4j
+@Service
+public class TickerTimeSeriesService {
+
+    private static final Set<String> ANONYMOUS_AUTHORS = Set.of("[deleted]", "[removed]");
+
+    private final TickerTimeSeriesRepository timeSeriesRepository;
+    private final TickerTimeSeriesProperties properties;
+    private final int batchSize;
+
+    public TickerTimeSeriesService(TickerTimeSeriesRepository timeSeriesRepository,
+                                   TickerTimeSeriesProperties properties,
+                                   RedditIngestionProperties ingestionProperties) {
+        this.timeSeriesRepository = timeSeriesRepository;
+        this.properties = properties;
+        this.batchSize = ingestionProperties.getWriteBatchSize();
+    }
+
+    /**
+     * Adds the mentions of newly stored posts and comments to their buckets. Must run in the
+     * transaction that stores them, so that a batch that is read again is only counted once.
+     *
+     * @return the number of buckets written
+     */
+    public int addMentions(IngestBatch batch) {
+        SortedMap<String, TickerMentionBucket> buckets = new TreeMap<>();
+        for (RedditPost post : batch.getPosts()) {
+            addMentions(buckets, post.getTickerMentions(), post.getCreatedDate(), post.getScore(),
+                post.getSentiment(), post.getAuthor());
+        }
+        for (RedditComment comment : batch.getComments()) {
+            addMentions(buckets, comment.getTickerMentions(), comment.getCreatedDate(), comment.getScore(),
+                comment.getSentiment(), comment.getAuthor());
+        }
+        return buckets.isEmpty() ? 0 : timeSeriesRepository.addToBuckets(buckets.values(), batchSize);
+    }
+
+    /**
+     * Returns the mentions of a ticker per bucket, including buckets without mentions.
+     *
+     * @param symbol   the ticker symbol
+     * @param interval the resolution: minute, hour or day
+     * @param from     the start of the series, by default the resolution's default span before the end
+     * @param to       the end of the series, exclusive, by default now
+     * @throws IllegalArgumentException if the interval is unknown, the range is empty or it has more
+     *                                  buckets than allowed
+     */
+    public List<TickerMentionPoint> getSeries(String symbol, String interval, LocalDateTime from,
+                                              LocalDateTime to) {
+        Resolution resolution;
+        try {
+            resolution = Resolution.valueOf(interval.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown interval '" + interval + "', use minute, hour or day");
+        }
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = resolution.startOf(from != null ? from : end.minus(resolution.getDefaultSpan()));
+        if (!start.isBefore(end)) {
+            throw new IllegalArgumentException("The series must start before it ends");
+        }
+        long points = resolution.getUnit().between(start, end) + 1;
+        if (points > properties.getMaxPoints()) {
+            throw new IllegalArgumentException("The series would have " + points + " points, at most "
+                + properties.getMaxPoints() + " are allowed; use a coarser interval or a shorter range");
+        }
+
+        Map<LocalDateTime, TickerMentionBucket> stored = new HashMap<>();
+        for (TickerMentionBucket bucket : timeSeriesRepository.findSeries(symbol, resolution, start, end)) {
+            stored.put(bucket.getBucketStart(), bucket);
+        }
+        List<TickerMentionPoint> series = new ArrayList<>((int) points);
+        for (LocalDateTime time = start; time.isBefore(end); time = time.plus(1, resolution.getUnit())) {
+            TickerMentionBucket bucket = stored.get(time);
+            series.add(bucket == null ? new TickerMentionPoint(time, 0, 0, 0, null)
+                : new TickerMentionPoint(time, bucket.getMentions(), bucket.getScoreSum(),
+                    LinearCounting.estimate(bucket.getAuthors()), bucket.getSentimentWeight() > 0
+                        ? bucket.getSentimentSum() / bucket.getSentimentWeight() : null));
+        }
+        return series;
+    }
+
+    @Scheduled(fixedDelay = 3600000)
+    public void pruneBuckets() {
+        prune(Resolution.MINUTE, properties.getMinuteRetention());
+        prune(Resolution.HOUR, properties.getHourRetention());
+        prune(Resolution.DAY, properties.getDayRetention());
+    }
+
+    private void prune(Resolution resolution, Duration retention) {
+        if (retention == null) {
+            return;
+        }
+        try {
+            int pruned = timeSeriesRepository.deleteBucketsBefore(resolution, LocalDateTime.now().minus(retention));
+            if (pruned > 0) {
+                log.debug("Pruned {} {} buckets of ticker mentions", pruned, resolution);
+            }
+        } catch (Exception e) {
+            log.warn("Could not prune the {} buckets of ticker mentions: {}", resolution, e.getMessage());
+        }
+    }
+
+    private static void addMentions(Map<String, TickerMentionBucket> buckets, Set<String> tickers,
+                                    LocalDateTime createdDate, Integer score, Double sentiment, String author) {
+        if (tickers == null || tickers.isEmpty()) {
+            return;
+        }
+        LocalDateTime time = createdDate != null ? createdDate : LocalDateTime.now();
+        boolean named = author != null && !author.isEmpty() && !ANONYMOUS_AUTHORS.contains(author);
+        double weight = TickerMentionTally.weightOf(score);
+        for (String ticker : tickers) {
+            for (Resolution resolution : Resolution.values()) {
+                LocalDateTime start = resolution.startOf(time);
+                TickerMentionBucket bucket = buckets.computeIfAbsent(
+                    TickerMentionBucket.idOf(ticker, resolution, start),
+                    id -> new TickerMentionBucket(ticker, resolution, start));
+                bucket.setMentions(bucket.getMentions() + 1);
+                bucket.setScoreSum(bucket.getScoreSum() + (score != null ? score : 0));
+                if (sentiment != null) {
+                    bucket.setSentimentWeight(bucket.getSentimentWeight() + weight);
+                    bucket.setSentimentSum(bucket.getSentimentSum() + weight * sentiment);
+                }
+                if (named) {
+                    LinearCounting.add(bucket.getAuthors(), author);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package stockevaluator.scraper.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import stockevaluator.config.RedditIngestionProperties;
+import stockevaluator.config.TrendingProperties;
+import stockevaluator.scraper.model.IngestBatch;
+import stockevaluator.scraper.model.RedditComment;
+import stockevaluator.scraper.model.RedditPost;
+import stockevaluator.scraper.model.TickerMentionTally;
+import stockevaluator.scraper.model.TickerTrend;
+import stockevaluator.scraper.repository.TickerTrendRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Computes how strongly each ticker is trending: how far its recent mentions lie above its own
+ * usual level of attention, so a small cap that suddenly gets talked about outranks a mega-cap
+ * that is always mentioned.
+ *
+ * <p>Every mention adds its weight to exponentially decayed sums of its ticker at each configured
+ * half-life and at the baseline half-life, at the time its post or comment was created. Adding a
+ * mention only decays and adds to a fixed number of sums, so it costs the same no matter how many
+ * mentions came before. The sums are collected in memory and merged into the database every flush
+ * interval.</p>
+ *
+ * <p>After merging, the trending score of every ticker is recomputed from the stored sums. If
+ * mentions arrive at the rate of the baseline, a sum with half-life h has the expected value
+ * {@code B * h / H} and the variance {@code Q * h / (2 H)}, where B and Q are the baseline sums of
+ * the weights and squared weights and H is the baseline half-life. The score is the largest
+ * z-score over the half-lives. The baseline includes the recent mentions as well, but at a half-life
+ * many times as long they barely move it.</p>
+ */
+@Slf4j
+@Service
+public class TrendingScoreEngine {
+
+    private static final double SECONDS_PER_DAY = 86400;
+
+    private final TickerTrendRepository trendRepository;
+    private final TrendingProperties properties;
+    private final int batchSize;
+    // Half-lives in seconds in ascending order, the baseline last
+    private final long[] halfLives;
+    private Map<String, DecayedSums> pending = new HashMap<>();
+
+    public TrendingScoreEngine(TickerTrendRepository trendRepository, TrendingProperties properties,
+                               RedditIngestionProperties ingestionProperties) {
+        this.trendRepository = trendRepository;
+        this.properties = properties;
+        this.batchSize = ingestionProperties.getWriteBatchSize();
+        long baseline = properties.getBaselineHalfLife().toSeconds();
+        long[] shortHalfLives = properties.getHalfLives().stream().mapToLong(Duration::toSeconds).sorted().distinct()
+            .toArray();
+        if (shortHalfLives.length == 0 || shortHalfLives[0] <= 0
+            || shortHalfLives[shortHalfLives.length - 1] >= baseline) {
+            throw new IllegalArgumentException("Trending half-lives must be positive and shorter than the baseline"
+                + " half-life of " + properties.getBaselineHalfLife());
+        }
+        this.halfLives = new long[shortHalfLives.length + 1];
+        System.arraycopy(shortHalfLives, 0, halfLives, 0, shortHalfLives.length);
+        halfLives[shortHalfLives.length] = baseline;
+    }
+
+    /**
+     * Adds the mentions of newly stored posts and comments.
+     */
+    public synchronized void record(IngestBatch batch) {
+        long now = System.currentTimeMillis();
+        for (RedditPost post : batch.getPosts()) {
+            record(post.getTickerMentions(), post.getCreatedDate(), post.getScore(), now);
+        }
+        for (RedditComment comment : batch.getComments()) {
+            record(comment.getTickerMentions(), comment.getCreatedDate(), comment.getScore(), now);
+        }
+    }
+
+    /**
+     * Merges the sums collected since the last flush into the database and recomputes the trending
+     * score of every ticker. Sums that could not be merged are kept for the next flush.
+     */
+    @Scheduled(fixedDelayString = "${trending.flush-interval:PT1M}")
+    public void flush() {
+        Map<String, DecayedSums> deltas;
+        synchronized (this) {
+            deltas = pending;
+            pending = new HashMap<>();
+        }
+        if (!deltas.isEmpty()) {
+            try {
+                trendRepository.mergeTrends(toTrends(deltas), batchSize);
+            } catch (Exception e) {
+                restore(deltas);
+                log.warn("Could not merge the trends of {} tickers, retrying with the next flush: {}", deltas.size(),
+                    e.getMessage());
+                return;
+            }
+        }
+        try {
+            Map<String, Double> scores = score(trendRepository.findAll(), System.currentTimeMillis());
+            trendRepository.updateTrendingScores(scores, batchSize);
+            log.debug("Updated the trending score of {} tickers", scores.size());
+        } catch (Exception e) {
+            log.warn("Could not update the trending scores of tickers: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        flush();
+    }
+
+    private void record(Set<String> tickers, LocalDateTime createdDate, Integer score, long now) {
+        if (tickers == null || tickers.isEmpty()) {
+            return;
+        }
+        // Mentions from the future would never have decayed, so they count as made now
+        long time = createdDate != null
+            ? Math.min(createdDate.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(), now) : now;
+        double weight = TickerMentionTally.weightOf(score);
+        for (String ticker : tickers) {
+            pending.computeIfAbsent(ticker, symbol -> new DecayedSums(halfLives.length, time))
+                .add(halfLives, time, weight);
+        }
+    }
+
+    private synchronized void restore(Map<String, DecayedSums> deltas) {
+        deltas.forEach((symbol, sums) -> pending.merge(symbol, sums, (current, earlier) -> current.addAll(halfLives,
+            earlier)));
+    }
+
+    private List<TickerTrend> toTrends(Map<String, DecayedSums> deltas) {
+        List<TickerTrend> trends = new ArrayList<>(deltas.size() * halfLives.length);
+        deltas.forEach((symbol, sums) -> {
+            for (int i = 0; i < halfLives.length; i++) {
+                trends.add(new TickerTrend(symbol, halfLives[i], sums.weights[i], sums.squares[i], sums.decayedAt));
+            }
+        });
+        return trends;
+    }
+
+    private Map<String, Double> score(List<TickerTrend> trends, long now) {
+        Map<Long, Integer> indexes = new HashMap<>();
+        for (int i = 0; i < halfLives.length; i++) {
+            indexes.put(halfLives[i], i);
+        }
+        int baseline = halfLives.length - 1;
+        // The weights and the baseline's squared weights of every ticker, decayed to now
+        Map<String, double[]> sums = new TreeMap<>();
+        for (TickerTrend trend : trends) {
+            Integer index = indexes.get(trend.getHalfLifeSeconds());
+            if (index == null) {
+                continue;
+            }
+            double[] values = sums.computeIfAbsent(trend.getSymbol(), symbol -> new double[halfLives.length + 1]);
+            double factor = decay(Math.max(0, now - trend.getDecayedAt()), halfLives[index]);
+            values[index] = trend.getWeight() * factor;
+            if (index == baseline) {
+                values[baseline + 1] = trend.getWeightSquares() * factor;
+            }
+        }
+
+        // The baseline sums of a ticker mentioned at the floor rate, each mention of weight 1
+        double floor = properties.getBaselineFloor() * halfLives[baseline] / SECONDS_PER_DAY / Math.log(2);
+        Map<String, Double> scores = new TreeMap<>();
+        for (Map.Entry<String, double[]> entry : sums.entrySet()) {
+            double[] values = entry.getValue();
+            double weights = Math.max(values[baseline], floor);
+            double squares = Math.max(values[baseline + 1], floor);
+            double score = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < baseline; i++) {
+                double ratio = (double) halfLives[i] / halfLives[baseline];
+                score = Math.max(score, (values[i] - weights * ratio) / Math.sqrt(squares * ratio / 2));
+            }
+            scores.put(entry.getKey(), Math.round(score * 1000) / 1000.0);
+        }
+        return scores;
+    }
+
+    private static double decay(long millis, long halfLifeSeconds) {
+        return Math.pow(0.5, millis / (1000.0 * halfLifeSeconds));
+    }
+
+    /**
+     * The decayed sums of the mentions of one ticker at every half-life, all decayed to the time of
+     * the latest mention. An earlier mention is decayed to that time before it is added.
+     */
+    private static final class DecayedSums {
+
+        private final double[] weights;
+        private final double[] squares;
+        private long decayedAt;
+
+        DecayedSums(int halfLives, long decayedAt) {
+            this.weights = new double[halfLives];
+            this.squares = new double[halfLives];
+            this.decayedAt = decayedAt;
+        }
+
+        void add(long[] halfLives, long time, double weight) {
+            decayTo(halfLives, time);
+            for (int i = 0; i < halfLives.length; i++) {
+                double factor = decay(decayedAt - time, halfLives[i]);
+                weights[i] += weight * factor;
+                squares[i] += weight * weight * factor;
+            }
+        }
+
+        DecayedSums addAll(long[] halfLives, DecayedSums other) {
+            decayTo(halfLives, other.decayedAt);
+            for (int i = 0; i < halfLives.length; i++) {
+                double factor = decay(decayedAt - other.decayedAt, halfLives[i]);
+                weights[i] += other.weights[i] * factor;
+                squares[i] += other.squares[i] * factor;
+            }
+            return this;
+        }
+
+        private void decayTo(long[] halfLives, long time) {
+            if (time <= decayedAt) {
+                return;
+            }
+            for (int i = 0; i < halfLives.length; i++) {
+                double factor = decay(time - decayedAt, halfLives[i]);
+                weights[i] *= factor;
+                squares[i] *= factor;
+            }
+            decayedAt = time;
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package stockevaluator.scraper.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import stockevaluator.config.RedditClusterProperties;
+import stockevaluator.config.TickerTimeSeriesProperties;
+import stockevaluator.config.TrendingProperties;
+import stockevaluator.scraper.model.IngestBatch;
+import stockevaluator.scraper.model.RedditComment;
+import stockevaluator.scraper.model.RedditPost;
+import stockevaluator.scraper.model.TickerMentionBucket.Resolution;
+import stockevaluator.scraper.model.TrendingTicker;
+import stockevaluator.scraper.repository.TickerTimeSeriesRepository;
+import stockevaluator.scraper.repository.TrendingWindowRepository;
+import stockevaluator.scraper.util.SpaceSaving;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Counts the most mentioned tickers of sliding windows such as the last hour, day and week in
+ * memory, so they are answered without a query.
+ *
+ * <p>A window is a ring of panes, each a {@link SpaceSaving} summary with a fixed number of
+ * counters. A mention goes to the pane its post or comment was created in; a pane that slides out
+ * of the window is cleared and reused for the next one. The top tickers are the merged counts of
+ * the panes within the window, so the window slides in steps of one pane and the memory of a
+ * window is bounded no matter how many distinct symbols are mentioned.</p>
+ *
+ * <p>With sharded ingestion every node only sees the subreddits it leases. Each node therefore
+ * publishes the merged counts of its windows every sync interval and keeps the latest counts of
+ * the other nodes in memory, adding them to its own when asked. Counts of other nodes lag by up to
+ * one sync interval.</p>
+ *
+ * <p>On startup the windows are seeded from the stored mention buckets, minute buckets for windows
+ * with panes shorter than an hour and hour buckets otherwise, so a restart does not empty them.
+ * The buckets hold the mentions of every node, so with sharded ingestion a node only seeds its
+ * windows when no other node is live; a node joining live peers starts empty and relies on theirs
+ * for what was counted before it started.</p>
+ */
+@Slf4j
+@Service
+public class TrendingWindowService {
+
+    private static final Pattern WINDOW = Pattern.compile("(\\d+)\\s*([mhd])");
+    private static final Duration SUMMARY_RETENTION = Duration.ofDays(1);
+
+    private final TrendingWindowRepository windowRepository;
+    private final TickerTimeSeriesRepository timeSeriesRepository;
+    private final TickerDictionary tickerDictionary;
+    private final IngestLeaseManager leaseManager;
+    private final RedditClusterProperties clusterProperties;
+    private final TrendingProperties properties;
+    private final TickerTimeSeriesProperties timeSeriesProperties;
+    private final Map<Duration, SlidingWindow> windows = new LinkedHashMap<>();
+    private volatile Map<String, List<SpaceSaving.Summary>> peerSummaries = Map.of();
+    private volatile long peersReadAt;
+
+    public TrendingWindowService(TrendingWindowRepository windowRepository,
+                                 TickerTimeSeriesRepository timeSeriesRepository, TickerDictionary tickerDictionary,
+                                 IngestLeaseManager leaseManager, RedditClusterProperties clusterProperties,
+                                 TrendingProperties properties, TickerTimeSeriesProperties timeSeriesProperties) {
+        this.windowRepository = windowRepository;
+        this.timeSeriesRepository = timeSeriesRepository;
+        this.tickerDictionary = tickerDictionary;
+        this.leaseManager = leaseManager;
+        this.clusterProperties = clusterProperties;
+        this.properties = properties;
+        this.timeSeriesProperties = timeSeriesProperties;
+        for (Duration length : properties.getWindows()) {
+            windows.put(length, new SlidingWindow(length, properties.getWindowPanes(),
+                properties.getWindowCapacity()));
+        }
+    }
+
+    /**
+     * Seeds the windows from the stored mention buckets. Runs before the ingestion pipeline starts,
+     * so no mention is counted twice.
+     */
+    @PostConstruct
+    public void seed() {
+        if (windows.isEmpty()) {
+            return;
+        }
+        try {
+            List<String> peers = new ArrayList<>(leaseManager.findLiveNodes());
+            peers.remove(leaseManager.getNodeId());
+            if (!peers.isEmpty()) {
+                log.info("Not seeding the trending windows, {} other nodes are live", peers.size());
+                return;
+            }
+            long now = System.currentTimeMillis();
+            int buckets = 0;
+            for (SlidingWindow sliding : windows.values()) {
+                Resolution resolution = sliding.paneMillis < Duration.ofHours(1).toMillis()
+                    && sliding.length.compareTo(timeSeriesProperties.getMinuteRetention()) <= 0
+                    ? Resolution.MINUTE : Resolution.HOUR;
+                LocalDateTime since = resolution.startOf(LocalDateTime.now().minus(sliding.length));
+                int[] read = new int[1];
+                synchronized (this) {
+                    timeSeriesRepository.forEachBucketSince(resolution, since, bucket -> {
+                        long time = bucket.getBucketStart().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+                        sliding.add(bucket.getSymbol(), bucket.getMentions(), Math.min(time, now), now);
+                        read[0]++;
+                    });
+                }
+                buckets += read[0];
+            }
+            log.info("Seeded the trending windows from {} stored mention buckets", buckets);
+        } catch (Exception e) {
+            log.warn("Could not seed the trending windows, they start empty: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Adds the mentions of newly stored posts and comments.
+     */
+    public synchronized void record(IngestBatch batch) {
+        long now = System.currentTimeMillis();
+        for (RedditPost post : batch.getPosts()) {
+            record(post.getTickerMentions(), post.getCreatedDate(), now);
+        }
+        for (RedditComment comment : batch.getComments()) {
+            record(comment.getTickerMentions(), comment.getCreatedDate(), now);
+        }
+    }
+
+    /**
+     * Returns the most mentioned tickers of a window, most mentioned first.
+     *
+     * @param window the window length, e.g. {@code 1h}, {@code 24h} or {@code 7d}
+     * @param limit  the maximum number of tickers, capped at the window capacity
+     * @throws IllegalArgumentException if no such window is counted
+     */
+    public List<TrendingTicker> getTop(String window, int limit) {
+        SlidingWindow sliding = windows.get(parseWindow(window));
+        if (sliding == null) {
+            throw new IllegalArgumentException("Unknown window '" + window + "', use one of " + windowNames());
+        }
+        List<SpaceSaving.Summary> summaries = new ArrayList<>();
+        if (System.currentTimeMillis() - peersReadAt < clusterProperties.getLeaseTtl().toMillis()) {
+            summaries.addAll(peerSummaries.getOrDefault(sliding.length.toString(), List.of()));
+        }
+        synchronized (this) {
+            summaries.add(sliding.summary(System.currentTimeMillis()));
+        }
+        int size = Math.max(1, Math.min(limit, properties.getWindowCapacity()));
+        List<TrendingTicker> top = new ArrayList<>(size);
+        for (SpaceSaving.Entry entry : SpaceSaving.Summary.merge(summaries).top(size)) {
+            top.add(new TrendingTicker(entry.key(), tickerDictionary.companyNameOf(entry.key()), entry.estimate(),
+                entry.guaranteed()));
+        }
+        return top;
+    }
+
+    /**
+     * Publishes the counts of this node and reads those of the other live nodes.
+     */
+    @Scheduled(fixedDelayString = "${trending.window-sync-interval:PT30S}")
+    public void syncWithPeers() {
+        if (!clusterProperties.isEnabled() || windows.isEmpty()) {
+            return;
+        }
+        String node = leaseManager.getNodeId();
+        try {
+            Map<String, String> published = new LinkedHashMap<>();
+            synchronized (this) {
+                long now = System.currentTimeMillis();
+                windows.forEach((length, sliding) -> published.put(length.toString(),
+                    sliding.summary(now).encode(properties.getWindowCapacity())));
+            }
+            windowRepository.publish(node, published);
+
+            Map<String, List<SpaceSaving.Summary>> peers = new HashMap<>();
+            windowRepository.findPeerSummaries(node, clusterProperties.getLeaseTtl()).forEach((length, encoded) -> {
+                List<SpaceSaving.Summary> decoded = new ArrayList<>(encoded.size());
+                for (String summary : encoded) {
+                    try {
+                        decoded.add(SpaceSaving.Summary.decode(summary));
+                    } catch (IllegalArgumentException e) {
+                        log.warn("Ignoring a malformed {} trending window of another node: {}", length, e.getMessage());
+                    }
+                }
+                peers.put(length, decoded);
+            });
+            peerSummaries = peers;
+            peersReadAt = System.currentTimeMillis();
+            windowRepository.deletePublishedBefore(SUMMARY_RETENTION);
+        } catch (Exception e) {
+            log.warn("Could not exchange trending windows with the other nodes: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (!clusterProperties.isEnabled()) {
+            return;
+        }
+        try {
+            windowRepository.deleteNode(leaseManager.getNodeId());
+        } catch (Exception e) {
+            log.warn("Could not withdraw the trending windows of node {}: {}", leaseManager.getNodeId(),
+                e.getMessage());
+        }
+    }
+
+    private void record(Set<String> tickers, LocalDateTime createdDate, long now) {
+        if (tickers == null || tickers.isEmpty()) {
+            return;
+        }
+        long time = createdDate != null
+            ? Math.min(createdDate.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(), now) : now;
+        for (SlidingWindow sliding : windows.values()) {
+            for (String ticker : tickers) {
+                sliding.add(ticker, 1, time, now);
+            }
+        }
+    }
+
+    private static Duration parseWindow(String window) {
+        Matcher matcher = WINDOW.matcher(window.trim().toLowerCase(Locale.ROOT));
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Malformed window '" + window + "', use e.g. 1h, 24h or 7d");
+        }
+        long amount = Long.parseLong(matcher.group(1));
+        return switch (matcher.group(2)) {
+            case "m" -> Duration.ofMinutes(amount);
+            case "h" -> Duration.ofHours(amount);
+            default -> Duration.ofDays(amount);
+        };
+    }
+
+    private String windowNames() {
+        List<String> names = new ArrayList<>();
+        for (Duration length : windows.keySet()) {
+            long minutes = length.toMinutes();
+            names.add(minutes % 1440 == 0 && minutes > 1440 ? minutes / 1440 + "d"
+                : minutes % 60 == 0 ? minutes / 60 + "h" : minutes + "m");
+        }
+        return String.join(", ", names);
+    }
+
+    /**
+     * A window of the given length split into panes of equal length, the newest being the pane of
+     * the current time. Slot i of the ring holds the pane whose index, its start divided by the
+     * pane length, is stored at i.
+     */
+    private static final class SlidingWindow {
+
+        private final Duration length;
+        private final long lengthMillis;
+        private final long paneMillis;
+        private final SpaceSaving[] panes;
+        private final long[] paneIndexes;
+
+        SlidingWindow(Duration length, int paneCount, int capacity) {
+            this.length = length;
+            this.lengthMillis = length.toMillis();
+            this.paneMillis = Math.max(1, lengthMillis / paneCount);
+            this.panes = new SpaceSaving[paneCount];
+            for (int i = 0; i < paneCount; i++) {
+                panes[i] = new SpaceSaving(capacity);
+            }
+            this.paneIndexes = new long[paneCount];
+            Arrays.fill(paneIndexes, Long.MIN_VALUE);
+        }
+
+        void add(String symbol, long count, long time, long now) {
+            if (time <= now - lengthMillis) {
+                return;
+            }
+            long index = time / paneMillis;
+            int slot = (int) (index % panes.length);
+            if (paneIndexes[slot] != index) {
+                // The slot already moved on to a newer pane, the mention is too old for the window
+                if (paneIndexes[slot] > index) {
+                    return;
+                }
+                panes[slot].clear();
+                paneIndexes[slot] = index;
+            }
+            panes[slot].add(symbol, count);
+        }
+
+        SpaceSaving.Summary summary(long now) {
+            long current = now / paneMillis;
+            List<SpaceSaving.Summary> live = new ArrayList<>(panes.length);
+            for (int i = 0; i < panes.length; i++) {
+                if (paneIndexes[i] > current - panes.length && paneIndexes[i] <= current) {
+                    live.add(panes[i].summary());
+                }
+            }
+            return SpaceSaving.Summary.merge(live);
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package stockevaluator.scraper.util;
+
+import java.util.Arrays;
+
+/**
+ * Aho-Corasick automaton finding every occurrence of a fixed set of patterns in one pass over a
+ * text.
+ *
+ * <p>The patterns are compiled into a deterministic automaton over a small alphabet: every state
+ * has a transition for every character class, stored in a single {@code int[]}, so scanning costs
+ * one array lookup per character no matter how many patterns there are. A character outside the
+ * alphabet sends the automaton back to its start, so patterns never match across it. Matching can
+ * ignore the case of ASCII letters. Scanning allocates nothing; matches are reported to a
+ * {@link MatchHandler} as a pattern id and the offsets of the match in the text.</p>
+ *
+ * <p>Instances are immutable and thread-safe once built.</p>
+ */
+public final class AhoCorasick {
+
+    /**
+     * Receives the matches of a scan, in order of their end offset.
+     */
+    @FunctionalInterface
+    public interface MatchHandler {
+
+        /**
+         * Called for every occurrence of a pattern.
+         *
+         * @param pattern the id of the pattern, as returned by {@link Builder#add(String)}
+         * @param start   the offset of the first character of the match
+         * @param end     the offset after the last character of the match
+         */
+        void onMatch(int pattern, int start, int end);
+    }
+
+    private static final int ASCII = 128;
+
+    private final int[] charClass;
+    private final int alphabetSize;
+    private final int[] delta;
+    private final int[] output;
+    private final int[] outputLink;
+    private final int[] patternLength;
+
+    private AhoCorasick(int[] charClass, int alphabetSize, int[] delta, int[] output, int[] outputLink,
+                        int[] patternLength) {
+        this.charClass = charClass;
+        this.alphabetSize = alphabetSize;
+        this.delta = delta;
+        this.output = output;
+        this.outputLink = outputLink;
+        this.patternLength = patternLength;
+    }
+
+    /**
+     * Starts building an automaton.
+     *
+     * @param alphabet   the characters patterns may consist of
+     * @param ignoreCase whether ASCII letters match regardless of case
+     * @return a new builder
+     */
+    public static Builder builder(String alphabet, boolean ignoreCase) {
+        return new Builder(alphabet, ignoreCase);
+    }
+
+    /**
+     * Reports every occurrence of every pattern in the text, including overlapping ones.
+     *
+     * @param text    the text to scan
+     * @param handler the handler receiving the matches
+     */
+    public void scan(CharSequence text, MatchHandler handler) {
+        int state = 0;
+        for (int i = 0, length = text.length(); i < length; i++) {
+            char c = text.charAt(i);
+            int cls = c < ASCII ? charClass[c] : -1;
+            if (cls < 0) {
+                state = 0;
+                continue;
+            }
+            state = delta[state * alphabetSize + cls];
+            for (int s = output[state] >= 0 ? state : outputLink[state]; s > 0; s = outputLink[s]) {
+                int pattern = output[s];
+                handler.onMatch(pattern, i + 1 - patternLength[pattern], i + 1);
+            }
+        }
+    }
+
+    public int getPatternCount() {
+        return patternLength.length;
+    }
+
+    /**
+     * Collects patterns into a trie and compiles it into an {@link AhoCorasick} automaton.
+     */
+    public static final class Builder {
+
+        private final int[] charClass = new int[ASCII];
+        private final int alphabetSize;
+        private int[] trie;
+        private int[] output;
+        private int states = 1;
+        private int[] patternLength = new int[16];
+        private int patterns;
+
+        private Builder(String alphabet, boolean ignoreCase) {
+            Arrays.fill(charClass, -1);
+            int size = 0;
+            for (int i = 0; i < alphabet.length(); i++) {
+                char c = alphabet.charAt(i);
+                if (c >= ASCII) {
+                    throw new IllegalArgumentException("Only ASCII characters are supported: " + c);
+                }
+                char key = ignoreCase ? Character.toLowerCase(c) : c;
+                if (charClass[key] < 0) {
+                    charClass[key] = size++;
+                }
+                charClass[c] = charClass[key];
+            }
+            if (ignoreCase) {
+                for (char c = 'A'; c <= 'Z'; c++) {
+                    int cls = Math.max(charClass[c], charClass[Character.toLowerCase(c)]);
+                    charClass[c] = cls;
+                    charClass[Character.toLowerCase(c)] = cls;
+                }
+            }
+            this.alphabetSize = size;
+            this.trie = new int[64 * size];
+            this.output = new int[64];
+            Arrays.fill(trie, -1);
+            Arrays.fill(output, -1);
+        }
+
+        /**
+         * Adds a pattern. Adding a pattern that is already present returns its existing id.
+         *
+         * @param pattern the pattern, made of alphabet characters only
+         * @return the id of the pattern, counting up from zero
+         * @throws IllegalArgumentException if the pattern is empty or leaves the alphabet
+         */
+        public int add(String pattern) {
+            if (pattern.isEmpty()) {
+                throw new IllegalArgumentException("Patterns must not be empty");
+            }
+            int state = 0;
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+                int cls = c < ASCII ? charClass[c] : -1;
+                if (cls < 0) {
+                    throw new IllegalArgumentException("Pattern '" + pattern + "' contains '" + c
+                        + "', which is not in the alphabet");
+                }
+                int next = trie[state * alphabetSize + cls];
+                if (next < 0) {
+                    next = newState();
+                    trie[state * alphabetSize + cls] = next;
+                }
+                state = next;
+            }
+            if (output[state] < 0) {
+                if (patterns == patternLength.length) {
+                    patternLength = Arrays.copyOf(patternLength, patterns * 2);
+                }
+                patternLength[patterns] = pattern.length();
+                output[state] = patterns++;
+            }
+            return output[state];
+        }
+
+        /**
+         * Compiles the patterns added so far. Missing transitions are filled in from the failure
+         * links breadth first, which turns the trie into a deterministic automaton.
+         *
+         * @return the automaton
+         */
+        public AhoCorasick build() {
+            int[] delta = Arrays.copyOf(trie, states * alphabetSize);
+            int[] out = Arrays.copyOf(output, states);
+            int[] fail = new int[states];
+            int[] outputLink = new int[states];
+            Arrays.fill(outputLink, -1);
+            int[] queue = new int[states];
+            int head = 0;
+            int tail = 0;
+            for (int cls = 0; cls < alphabetSize; cls++) {
+                int child = delta[cls];
+                if (child < 0) {
+                    delta[cls] = 0;
+                } else {
+                    fail[child] = 0;
+                    queue[tail++] = child;
+                }
+            }
+            while (head < tail) {
+                int state = queue[head++];
+                int failure = fail[state];
+                outputLink[state] = out[failure] >= 0 ? failure : outputLink[failure];
+                for (int cls = 0; cls < alphabetSize; cls++) {
+                    int index = state * alphabetSize + cls;
+                    int child = delta[index];
+                    if (child < 0) {
+                        delta[index] = delta[failure * alphabetSize + cls];
+                    } else {
+                        fail[child] = delta[failure * alphabetSize + cls];
+                        queue[tail++] = child;
+                    }
+                }
+            }
+            return new AhoCorasick(charClass.clone(), alphabetSize, delta, out, outputLink,
+                Arrays.copyOf(patternLength, patterns));
+        }
+
+        private int newState() {
+            if ((states + 1) * alphabetSize > trie.length) {
+                int previous = trie.length;
+                trie = Arrays.copyOf(trie, previous * 2);
+                Arrays.fill(trie, previous, trie.length, -1);
+                int previousOutputs = output.length;
+                output = Arrays.copyOf(output, previousOutputs * 2);
+                Arrays.fill(output, previousOutputs, output.length, -1);
+            }
+            return states++;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package stockevaluator.scraper.util;
+
+/**
+ * Counts distinct values approximately with a bitmap, using linear counting.
+ *
+ * <p>Every value sets the bit its hash points to, and the number of distinct values is estimated
+ * from the share of bits still clear. The estimate is close to exact while the values are few
+ * compared with the bits and stays within a few percent until about as many values as bits.
+ * Bitmaps of the same size merge with a bitwise or, so counts of disjoint parts combine into the
+ * count of the whole without keeping the values.</p>
+ */
+public final class LinearCounting {
+
+    private LinearCounting() {
+    }
+
+    /**
+     * Sets the bit of a value.
+     *
+     * @param bitmap a bitmap whose length is a power of two
+     * @param value  the value to count
+     */
+    public static void add(byte[] bitmap, CharSequence value) {
+        int bit = (int) hash(value) & (bitmap.length * 8 - 1);
+        bitmap[bit >>> 3] |= (byte) (1 << (bit & 7));
+    }
+
+    /**
+     * Returns the estimated number of distinct values added to a bitmap. A full bitmap returns the
+     * number of values that on average fill one, which is a lower bound.
+     */
+    public static long estimate(byte[] bitmap) {
+        if (bitmap == null || bitmap.length == 0) {
+            return 0;
+        }
+        int bits = bitmap.length * 8;
+        int set = 0;
+        for (byte b : bitmap) {
+            set += Integer.bitCount(b & 0xff);
+        }
+        int clear = Math.max(bits - set, 1);
+        return Math.round(bits * Math.log((double) bits / clear));
+    }
+
+    // FNV-1a over the characters, finished with the 64-bit mixer of MurmurHash3
+    private static long hash(CharSequence value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * 0x100000001b3L;
+        }
+        hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+        hash = (hash ^ (hash >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return hash ^ (hash >>> 33);
+    }
+}
@@ -0,0 +1,45 @@
+package stockevaluator.scraper.util;
+
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the data files the extraction and scoring dictionaries are built from.
+ */
+public final class ResourceLines {
+
+    private ResourceLines() {
+    }
+
+    /**
+     * Returns the lines of a UTF-8 text resource, skipping blank lines and lines starting with '#'.
+     *
+     * @param resourceLoader the loader resolving the location
+     * @param location       a Spring resource location such as {@code classpath:tickers/symbols.txt}
+     * @return the remaining lines
+     * @throws IllegalStateException if the resource cannot be read
+     */
+    public static List<String> read(ResourceLoader resourceLoader, String location) {
+        Resource resource = resourceLoader.getResource(location);
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank() && !line.startsWith("#")) {
+                    lines.add(line);
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read " + location, e);
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,117 @@
+package stockevaluator.scraper.util;
+
+import java.util.Arrays;
+
+/**
+ * Bounded, exact set of Reddit ids stored as sorted primitive longs.
+ *
+ * <p>Reddit ids are base-36 encoded counters, so they parse into longs that grow with the age of
+ * the item. Ids are kept in a sorted {@code long[]} with a small unsorted buffer for recent
+ * additions that is merged in when it fills up. When the set exceeds its capacity the smallest,
+ * i.e. oldest, ids are dropped and the set remembers the lowest id it still covers. The whole set
+ * costs eight bytes per id and never allocates per lookup.</p>
+ *
+ * <p>Instances are thread-safe.</p>
+ */
+public class SeenIdSet {
+
+    private static final int BUFFER_SIZE = 1024;
+
+    private final int capacity;
+    private long[] sorted = new long[0];
+    private final long[] buffer = new long[BUFFER_SIZE];
+    private int buffered;
+    private long floor = Long.MIN_VALUE;
+
+    public SeenIdSet(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Parses a base-36 Reddit id, with or without its kind prefix such as {@code t1_}.
+     *
+     * @param id the Reddit id or fullname
+     * @return the numeric id, or -1 if the id is not a valid base-36 number
+     */
+    public static long parse(String id) {
+        if (id == null || id.isEmpty()) {
+            return -1;
+        }
+        int start = id.indexOf('_') + 1;
+        long value = 0;
+        for (int i = start; i < id.length(); i++) {
+            int digit = Character.digit(id.charAt(i), 36);
+            if (digit < 0 || value > (Long.MAX_VALUE - digit) / 36) {
+                return -1;
+            }
+            value = value * 36 + digit;
+        }
+        return start < id.length() ? value : -1;
+    }
+
+    public synchronized boolean contains(String id) {
+        long value = parse(id);
+        return value >= 0 && contains(value);
+    }
+
+    public synchronized boolean contains(long value) {
+        if (Arrays.binarySearch(sorted, value) >= 0) {
+            return true;
+        }
+        for (int i = 0; i < buffered; i++) {
+            if (buffer[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether an id is older than every id the set still covers, so that its absence from
+     * the set says nothing about whether it was seen.
+     *
+     * @param id the Reddit id
+     * @return true if the id is below the eviction floor of the set
+     */
+    public synchronized boolean isBelowFloor(String id) {
+        long value = parse(id);
+        return value >= 0 && value < floor;
+    }
+
+    public synchronized void add(String id) {
+        long value = parse(id);
+        if (value < 0 || value < floor || contains(value)) {
+            return;
+        }
+        buffer[buffered++] = value;
+        if (buffered == BUFFER_SIZE) {
+            merge();
+        }
+    }
+
+    public synchronized int size() {
+        return sorted.length + buffered;
+    }
+
+    private void merge() {
+        Arrays.sort(buffer, 0, buffered);
+        long[] merged = new long[sorted.length + buffered];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < sorted.length || j < buffered) {
+            if (j == buffered || (i < sorted.length && sorted[i] < buffer[j])) {
+                merged[k++] = sorted[i++];
+            } else {
+                merged[k++] = buffer[j++];
+            }
+        }
+        buffered = 0;
+        if (merged.length > capacity) {
+            int drop = merged.length - capacity;
+            floor = merged[drop];
+            merged = Arrays.copyOfRange(merged, drop, merged.length);
+        }
+        sorted = merged;
+    }
+}
@@ -0,0 +1,229 @@
+package stockevaluator.scraper.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds the most frequent keys of a stream with a fixed number of counters, using the
+ * Space-Saving algorithm.
+ *
+ * <p>A key that has a counter gets it incremented. A new key takes a free counter, or else the
+ * counter with the smallest count, continuing from that count; the count it took over is kept as
+ * its error. Every count is thus at least the key's true frequency and at most the error above
+ * it, and any key more frequent than the smallest count is sure to have a counter. The counters
+ * are kept in a min-heap, so an update costs O(log capacity). Instances are not thread-safe.</p>
+ */
+public final class SpaceSaving {
+
+    private final String[] keys;
+    private final long[] counts;
+    private final long[] errors;
+    private final Map<String, Integer> positions;
+    private int size;
+
+    public SpaceSaving(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.keys = new String[capacity];
+        this.counts = new long[capacity];
+        this.errors = new long[capacity];
+        this.positions = new HashMap<>(capacity * 2);
+    }
+
+    public void add(String key, long count) {
+        Integer position = positions.get(key);
+        if (position != null) {
+            counts[position] += count;
+            siftDown(position);
+        } else if (size < keys.length) {
+            set(size, key, count, 0);
+            siftUp(size++);
+        } else {
+            positions.remove(keys[0]);
+            set(0, key, counts[0] + count, counts[0]);
+            siftDown(0);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0, size, null);
+        positions.clear();
+        size = 0;
+    }
+
+    /**
+     * Returns the counted keys as a summary that can be merged with others. Once every counter is
+     * taken, a key without one may still have occurred up to the smallest count, which becomes the
+     * floor of the summary.
+     */
+    public Summary summary() {
+        Map<String, long[]> entries = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            entries.put(keys[i], new long[] {counts[i], counts[i] - errors[i]});
+        }
+        return new Summary(entries, size == keys.length ? counts[0] : 0);
+    }
+
+    private void set(int position, String key, long count, long error) {
+        keys[position] = key;
+        counts[position] = count;
+        errors[position] = error;
+        positions.put(key, position);
+    }
+
+    private void siftUp(int position) {
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (counts[parent] <= counts[position]) {
+                return;
+            }
+            swap(position, parent);
+            position = parent;
+        }
+    }
+
+    private void siftDown(int position) {
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= size) {
+                return;
+            }
+            if (child + 1 < size && counts[child + 1] < counts[child]) {
+                child++;
+            }
+            if (counts[position] <= counts[child]) {
+                return;
+            }
+            swap(position, child);
+            position = child;
+        }
+    }
+
+    private void swap(int a, int b) {
+        String key = keys[a];
+        long count = counts[a];
+        long error = errors[a];
+        set(a, keys[b], counts[b], errors[b]);
+        set(b, key, count, error);
+    }
+
+    /**
+     * The counts of some keys, each as an estimate that may be too high and a guaranteed count
+     * that may be too low, together with a floor: the highest count a key that is not listed may
+     * have. Summaries of disjoint parts of a stream merge by adding both counts up, taking the floor
+     * of a summary as the estimate of a key it does not list, so merged estimates stay upper bounds.
+     */
+    public static final class Summary {
+
+        private final Map<String, long[]> entries;
+        private final long floor;
+
+        private Summary(Map<String, long[]> entries, long floor) {
+            this.entries = entries;
+            this.floor = floor;
+        }
+
+        public static Summary merge(Collection<Summary> summaries) {
+            Map<String, long[]> merged = new HashMap<>();
+            long floor = 0;
+            for (Summary summary : summaries) {
+                summary.entries.forEach((key, counts) -> merged.computeIfAbsent(key, k -> new long[2]));
+                floor += summary.floor;
+            }
+            for (Summary summary : summaries) {
+                merged.forEach((key, total) -> {
+                    long[] counts = summary.entries.get(key);
+                    if (counts != null) {
+                        total[0] += counts[0];
+                        total[1] += counts[1];
+                    } else {
+                        total[0] += summary.floor;
+                    }
+                });
+            }
+            return new Summary(merged, floor);
+        }
+
+        /**
+         * Returns the highest count a key that is not listed may have.
+         */
+        public long floor() {
+            return floor;
+        }
+
+        /**
+         * Returns the keys with the highest estimates, highest first.
+         */
+        public List<Entry> top(int limit) {
+            List<Entry> top = new ArrayList<>(entries.size());
+            entries.forEach((key, counts) -> top.add(new Entry(key, counts[0], counts[1])));
+            top.sort(Comparator.comparingLong(Entry::estimate).reversed()
+                .thenComparing(Comparator.comparingLong(Entry::guaranteed).reversed())
+                .thenComparing(Entry::key));
+            return top.size() > limit ? new ArrayList<>(top.subList(0, limit)) : top;
+        }
+
+        /**
+         * Encodes the summary as its floor followed by a semicolon and {@code KEY:estimate:guaranteed}
+         * entries separated by commas, keeping only the given number of entries with the highest
+         * estimates. The floor is raised to the highest estimate left out.
+         */
+        public String encode(int limit) {
+            List<Entry> top = top(entries.size());
+            long encodedFloor = top.size() > limit ? Math.max(floor, top.get(limit).estimate()) : floor;
+            StringBuilder encoded = new StringBuilder().append(encodedFloor).append(';');
+            for (int i = 0; i < Math.min(limit, top.size()); i++) {
+                Entry entry = top.get(i);
+                if (i > 0) {
+                    encoded.append(',');
+                }
+                encoded.append(entry.key()).append(':').append(entry.estimate()).append(':').append(entry.guaranteed());
+            }
+            return encoded.toString();
+        }
+
+        /**
+         * Reads a summary written by {@link #encode(int)}. Keys must not contain commas, colons or
+         * semicolons. A summary without a floor, as written before floors were kept, has a floor of 0.
+         *
+         * @throws IllegalArgumentException if the text is malformed
+         */
+        public static Summary decode(String encoded) {
+            Map<String, long[]> entries = new HashMap<>();
+            long floor = 0;
+            if (encoded != null) {
+                int separator = encoded.indexOf(';');
+                if (separator >= 0) {
+                    floor = Long.parseLong(encoded.substring(0, separator));
+                    encoded = encoded.substring(separator + 1);
+                }
+            }
+            if (encoded != null && !encoded.isEmpty()) {
+                for (String entry : encoded.split(",")) {
+                    String[] fields = entry.split(":");
+                    if (fields.length != 3) {
+                        throw new IllegalArgumentException("Malformed summary entry '" + entry + "'");
+                    }
+                    entries.put(fields[0], new long[] {Long.parseLong(fields[1]), Long.parseLong(fields[2])});
+                }
+            }
+            return new Summary(entries, floor);
+        }
+    }
+
+    /**
+     * A key with the estimate and the guaranteed part of its count.
+     */
+    public record Entry(String key, long estimate, long guaranteed) {
+    }
+}
@@ -0,0 +1,123 @@
+package stockevaluator.scraper.util;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Hash table from tokens to numeric values that is queried with a range of a text, so looking up
+ * a token of a text needs no substring.
+ *
+ * <p>Keys are stored in an open-addressing table with linear probing. Keys and lookups are
+ * compared ignoring case. Instances are immutable and thread-safe once built.</p>
+ */
+public final class TokenTable {
+
+    private final String[] keys;
+    private final double[] values;
+    private final int mask;
+    private final int size;
+
+    private TokenTable(String[] keys, double[] values, int size) {
+        this.keys = keys;
+        this.values = values;
+        this.mask = keys.length - 1;
+        this.size = size;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Returns the value of the token between the given offsets of a text.
+     *
+     * @param text  the text holding the token
+     * @param start the offset of the first character of the token
+     * @param end   the offset after the last character of the token
+     * @return the value, or {@link Double#NaN} if the token is not in the table
+     */
+    public double valueOf(CharSequence text, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + fold(text.charAt(i));
+        }
+        for (int slot = spread(hash) & mask; keys[slot] != null; slot = (slot + 1) & mask) {
+            if (matches(keys[slot], text, start, end)) {
+                return values[slot];
+            }
+        }
+        return Double.NaN;
+    }
+
+    public boolean contains(CharSequence text, int start, int end) {
+        return !Double.isNaN(valueOf(text, start, end));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private static boolean matches(String key, CharSequence text, int start, int end) {
+        if (key.length() != end - start) {
+            return false;
+        }
+        for (int i = 0; i < key.length(); i++) {
+            if (key.charAt(i) != fold(text.charAt(start + i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static char fold(char c) {
+        if (c < 128) {
+            return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+        }
+        return Character.toLowerCase(c);
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Collects tokens and their values. Adding a token again replaces its value.
+     */
+    public static final class Builder {
+
+        private final Map<String, Double> entries = new LinkedHashMap<>();
+
+        private Builder() {
+        }
+
+        public Builder put(String token, double value) {
+            if (token.isEmpty()) {
+                throw new IllegalArgumentException("Tokens must not be empty");
+            }
+            StringBuilder folded = new StringBuilder(token.length());
+            for (int i = 0; i < token.length(); i++) {
+                folded.append(fold(token.charAt(i)));
+            }
+            entries.put(folded.toString(), value);
+            return this;
+        }
+
+        public TokenTable build() {
+            int capacity = Integer.highestOneBit(Math.max(entries.size() * 2, 8) - 1) << 1;
+            String[] keys = new String[capacity];
+            double[] values = new double[capacity];
+            Arrays.fill(values, Double.NaN);
+            for (Map.Entry<String, Double> entry : entries.entrySet()) {
+                String key = entry.getKey();
+                int slot = spread(key.hashCode()) & (capacity - 1);
+                while (keys[slot] != null) {
+                    slot = (slot + 1) & (capacity - 1);
+                }
+                keys[slot] = key;
+                values[slot] = entry.getValue();
+            }
+            return new TokenTable(keys, values, entries.size());
+        }
+    }
+}
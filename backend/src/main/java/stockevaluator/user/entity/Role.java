@@ -0,0 +1,12 @@
+package stockevaluator.user.entity;
+
+/**
+ * The roles a user can have. Every user is a {@link #USER}; administrators are granted
+ * {@link #ADMIN} by setting the role column of their row in the users table.
+ *
+ * @since 1.0
+ */
+public enum Role {
+  USER,
+  ADMIN
+}
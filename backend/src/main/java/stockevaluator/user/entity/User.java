@@ -3,6 +3,8 @@ package stockevaluator.user.entity;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
@@ -75,6 +77,14 @@ public class User {
   @Column
   private LocalDateTime lockedUntil;
 
+  /**
+   * The role of the user, null for users created before roles existed, who count as
+   * {@link Role#USER}.
+   */
+  @Enumerated(EnumType.STRING)
+  @Column(length = 16)
+  private Role role;
+
 
 
   /**
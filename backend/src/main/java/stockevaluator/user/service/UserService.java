@@ -6,6 +6,7 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import stockevaluator.user.dto.CreateUser;
+import stockevaluator.user.entity.Role;
 import stockevaluator.user.entity.User;
 import stockevaluator.user.exception.EmailAlreadyExistsException;
 import stockevaluator.user.exception.UserNotFoundException;
@@ -44,7 +45,7 @@ public class UserService {
         .firstName(data.getFirstName()).lastName(data.getLastName())
         .notifications(data.isNotifications()).emailUpdates(data.isEmailUpdates())
         .locationSharing(data.isLocationSharing()).passwordRetries(0)
-        .lockedUntil(null).build();
+        .lockedUntil(null).role(Role.USER).build();
     return userRepository.save(user);
   }
 
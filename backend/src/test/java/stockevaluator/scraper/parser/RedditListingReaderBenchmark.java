@@ -0,0 +1,87 @@
+package stockevaluator.scraper.parser;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.ParseException;
+import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the streaming reader with the way Reddit responses were parsed before: reading the
+ * entity into a string with {@code EntityUtils.toString}, parsing that into a JsonNode tree and
+ * mapping the tree as {@link RedditListingReaderTest} does.
+ *
+ * <p>Both sides parse the payloads under {@code reddit/} from the same entity. Run with the GC
+ * profiler to compare {@code gc.alloc.rate.norm} as well as time:</p>
+ * <pre>
+ * mvn test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *     -Dexec.args="-cp %classpath org.openjdk.jmh.Main RedditListingReaderBenchmark -prof gc"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RedditListingReaderBenchmark {
+
+    @Param({"listing-hot.json", "thread.json", "morechildren.json", "comment-stream.json"})
+    private String payload;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private RedditListingReader reader;
+    private HttpEntity entity;
+
+    @Setup
+    public void setUp() throws IOException {
+        reader = new RedditListingReader(objectMapper);
+        try (InputStream in = RedditListingReaderBenchmark.class.getResourceAsStream("/reddit/" + payload)) {
+            if (in == null) {
+                throw new IOException("Missing payload " + payload);
+            }
+            entity = new ByteArrayEntity(in.readAllBytes(), ContentType.APPLICATION_JSON);
+        }
+    }
+
+    @Benchmark
+    public Object streaming() throws IOException {
+        try (InputStream in = entity.getContent()) {
+            return switch (payload) {
+                case "listing-hot.json" -> reader.readPosts(in);
+                case "thread.json" -> reader.readComments(in);
+                case "morechildren.json" -> reader.readMoreChildren(in);
+                default -> reader.readStreamComments(in);
+            };
+        }
+    }
+
+    @Benchmark
+    public Object tree() throws IOException, ParseException {
+        JsonNode root = objectMapper.readTree(EntityUtils.toString(entity));
+        return switch (payload) {
+            case "listing-hot.json" -> RedditListingReaderTest.treePosts(root);
+            case "thread.json" -> RedditListingReaderTest.treeComments(root.path(1), new ArrayList<>());
+            case "morechildren.json" -> RedditListingReaderTest.treeMoreChildren(root, new ArrayList<>());
+            default -> RedditListingReaderTest.treeComments(root, new ArrayList<>());
+        };
+    }
+}
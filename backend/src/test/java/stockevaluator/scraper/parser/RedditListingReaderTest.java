@@ -0,0 +1,186 @@
+package stockevaluator.scraper.parser;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import stockevaluator.scraper.model.RedditComment;
+import stockevaluator.scraper.model.RedditPost;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Checks that the streaming reader returns the same posts and comments as reading the payloads
+ * into a JsonNode tree, the way the scraper parsed them before.
+ *
+ * <p>The payloads under {@code reddit/} have the shape of Reddit's responses, including the fields
+ * the reader skips such as previews, media, awards and crossposts. The tree parsing below is the
+ * original one, made null-safe and extended to nested replies and {@code more} stubs.</p>
+ */
+class RedditListingReaderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final RedditListingReader reader = new RedditListingReader(objectMapper);
+
+    @Test
+    void listingMatchesTreeParsing() throws IOException {
+        RedditListing<RedditPost> listing;
+        try (InputStream in = open("listing-hot.json")) {
+            listing = reader.readPosts(in);
+        }
+        JsonNode root = readTree("listing-hot.json");
+        assertEquals(3, listing.items().size());
+        assertEquals(describePosts(treePosts(root)), describePosts(listing.items()));
+        assertEquals("t3_1b3xk9q", listing.after());
+        assertNull(listing.before());
+    }
+
+    @Test
+    void threadMatchesTreeParsing() throws IOException {
+        CommentTree tree;
+        try (InputStream in = open("thread.json")) {
+            tree = reader.readComments(in);
+        }
+        List<String> moreIds = new ArrayList<>();
+        List<RedditComment> expected = treeComments(readTree("thread.json").path(1), moreIds);
+        assertEquals(4, tree.comments().size());
+        assertEquals(describeComments(expected), describeComments(tree.comments()));
+        assertEquals(moreIds, tree.moreIds());
+        assertEquals(List.of("kt0f6g7", "kt0g7h8", "kt0h8i9", "kt0i9j0", "kt0j1k2", "kt0k2l3", "kt0l3m4"),
+            tree.moreIds());
+    }
+
+    @Test
+    void moreChildrenMatchesTreeParsing() throws IOException {
+        CommentTree tree;
+        try (InputStream in = open("morechildren.json")) {
+            tree = reader.readMoreChildren(in);
+        }
+        List<RedditComment> expected = treeMoreChildren(readTree("morechildren.json"), new ArrayList<>());
+        assertEquals(describeComments(expected), describeComments(tree.comments()));
+        assertEquals(List.of("kt0m4n5", "kt0n5o6"), tree.moreIds());
+    }
+
+    @Test
+    void commentStreamMatchesTreeParsing() throws IOException {
+        RedditListing<RedditComment> listing;
+        try (InputStream in = open("comment-stream.json")) {
+            listing = reader.readStreamComments(in);
+        }
+        List<RedditComment> expected = treeComments(readTree("comment-stream.json"), new ArrayList<>());
+        assertEquals(describeComments(expected), describeComments(listing.items()));
+        assertEquals("t1_kt1c3d4", listing.after());
+    }
+
+    static List<RedditPost> treePosts(JsonNode root) {
+        List<RedditPost> posts = new ArrayList<>();
+        for (JsonNode post : root.path("data").path("children")) {
+            JsonNode data = post.path("data");
+            RedditPost redditPost = new RedditPost();
+            redditPost.setId(text(data, "id"));
+            redditPost.setTitle(text(data, "title"));
+            redditPost.setContent(text(data, "selftext"));
+            redditPost.setAuthor(text(data, "author"));
+            redditPost.setScore(data.path("score").asInt());
+            redditPost.setCommentsCount(data.path("num_comments").asInt());
+            redditPost.setFlair(text(data, "link_flair_text"));
+            redditPost.setCreatedDate(toDateTime(data.path("created_utc").asLong()));
+            posts.add(redditPost);
+        }
+        return posts;
+    }
+
+    static List<RedditComment> treeComments(JsonNode listing, List<String> moreIds) {
+        List<RedditComment> comments = new ArrayList<>();
+        for (JsonNode thing : listing.path("data").path("children")) {
+            addThing(thing, comments, moreIds);
+        }
+        return comments;
+    }
+
+    static List<RedditComment> treeMoreChildren(JsonNode root, List<String> moreIds) {
+        List<RedditComment> comments = new ArrayList<>();
+        for (JsonNode thing : root.path("json").path("data").path("things")) {
+            addThing(thing, comments, moreIds);
+        }
+        return comments;
+    }
+
+    private static void addThing(JsonNode thing, List<RedditComment> comments, List<String> moreIds) {
+        JsonNode data = thing.path("data");
+        if ("more".equals(thing.path("kind").asText())) {
+            data.path("children").forEach(id -> moreIds.add(id.asText()));
+            return;
+        }
+        if (data.has("body")) {
+            RedditComment redditComment = new RedditComment();
+            redditComment.setId(text(data, "id"));
+            redditComment.setContent(text(data, "body"));
+            redditComment.setAuthor(text(data, "author"));
+            redditComment.setScore(data.path("score").asInt());
+            redditComment.setCreatedDate(toDateTime(data.path("created_utc").asLong()));
+            if (data.has("link_id")) {
+                RedditPost post = new RedditPost();
+                post.setId(text(data, "link_id").replaceFirst("^t3_", ""));
+                post.setTitle(text(data, "link_title"));
+                post.setAuthor(text(data, "link_author"));
+                redditComment.setPost(post);
+            }
+            comments.add(redditComment);
+        }
+        if (data.path("replies").isObject()) {
+            comments.addAll(treeComments(data.path("replies"), moreIds));
+        }
+    }
+
+    private static String text(JsonNode data, String field) {
+        JsonNode value = data.path(field);
+        return value.isMissingNode() || value.isNull() ? null : value.asText();
+    }
+
+    private static LocalDateTime toDateTime(long epochSeconds) {
+        return LocalDateTime.ofInstant(Instant.ofEpochSecond(epochSeconds), ZoneId.systemDefault());
+    }
+
+    private static List<String> describePosts(List<RedditPost> posts) {
+        return posts.stream().map(post -> String.join("|", post.getId(), post.getTitle(), post.getContent(),
+            post.getAuthor(), String.valueOf(post.getScore()), String.valueOf(post.getCommentsCount()),
+            String.valueOf(post.getFlair()), String.valueOf(post.getCreatedDate()))).toList();
+    }
+
+    // The reader adds a comment after its replies, so comments are compared in id order
+    private static List<String> describeComments(List<RedditComment> comments) {
+        return comments.stream().sorted(Comparator.comparing(RedditComment::getId))
+            .map(comment -> String.join("|", comment.getId(), comment.getContent(),
+                String.valueOf(comment.getAuthor()), String.valueOf(comment.getScore()),
+                String.valueOf(comment.getCreatedDate()), describePost(comment.getPost())))
+            .toList();
+    }
+
+    private static String describePost(RedditPost post) {
+        return post == null ? "-" : post.getId() + "/" + post.getTitle() + "/" + post.getAuthor();
+    }
+
+    private JsonNode readTree(String name) throws IOException {
+        try (InputStream in = open(name)) {
+            return objectMapper.readTree(in);
+        }
+    }
+
+    private static InputStream open(String name) throws IOException {
+        InputStream in = RedditListingReaderTest.class.getResourceAsStream("/reddit/" + name);
+        if (in == null) {
+            throw new IOException("Missing test payload " + name);
+        }
+        return in;
+    }
+}
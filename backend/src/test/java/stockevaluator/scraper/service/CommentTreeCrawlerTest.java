@@ -0,0 +1,173 @@
+package stockevaluator.scraper.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import stockevaluator.config.RedditIngestionProperties;
+import stockevaluator.scraper.client.RedditApiClient;
+import stockevaluator.scraper.model.CrawlCursor;
+import stockevaluator.scraper.model.IngestBatch;
+import stockevaluator.scraper.model.RedditComment;
+import stockevaluator.scraper.model.RedditPost;
+import stockevaluator.scraper.parser.CommentTree;
+import stockevaluator.scraper.parser.RedditListingReader;
+import stockevaluator.scraper.repository.CrawlCursorRepository;
+import stockevaluator.scraper.repository.RedditIngestRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Crawls a simulated megathread cycle after cycle, the way the pipeline does, and checks what the
+ * thread cursor lets each crawl read.
+ *
+ * <p>The simulated thread answers a {@code sort=new} read with its newest comments and lists all
+ * others as unloaded ids, newest first; {@code /api/morechildren} returns the comments asked for.</p>
+ */
+class CommentTreeCrawlerTest {
+
+    private static final int LOADED_COMMENTS = 100;
+    private static final long FIRST_ID = 1_000_000L;
+    private static final LocalDateTime START = LocalDateTime.of(2024, 3, 1, 14, 0);
+
+    private final List<RedditComment> thread = new ArrayList<>();
+    private final Set<String> read = new HashSet<>();
+    private final RedditPost post = new RedditPost();
+    private RedditIngestionProperties properties;
+    private CommentTreeCrawler crawler;
+    private IngestionStateTracker stateTracker;
+    private int requests;
+
+    @BeforeEach
+    void setUp() {
+        RedditApiClient redditApiClient = mock(RedditApiClient.class);
+        when(redditApiClient.get(anyString(), any(), any())).thenAnswer(invocation -> {
+            requests++;
+            return respond(invocation.getArgument(0));
+        });
+        properties = new RedditIngestionProperties();
+        crawler = new CommentTreeCrawler(redditApiClient, new RedditListingReader(new ObjectMapper()), properties,
+            new SimpleMeterRegistry());
+        stateTracker = new IngestionStateTracker(mock(CrawlCursorRepository.class), mock(RedditIngestRepository.class),
+            properties);
+        post.setId("1b2c3d");
+    }
+
+    @Test
+    void backlogLargerThanTheBudgetIsWorkedOffWhileNewCommentsArrive() {
+        post(5000);
+        int perCrawl = LOADED_COMMENTS + (properties.getMegathreadRequestBudget() - 1) * 100;
+        assertTrue(perCrawl < thread.size(), "the backlog is larger than one crawl can read");
+
+        int cycles = 0;
+        CommentTree tree;
+        do {
+            int before = thread.size();
+            post(150);
+            tree = crawlCycle();
+            cycles++;
+            assertTrue(requests <= properties.getMegathreadRequestBudget(), "cycle " + cycles + " kept to the budget");
+            for (RedditComment comment : thread.subList(before, thread.size())) {
+                assertTrue(read.contains(comment.getId()), "cycle " + cycles + " read new comment " + comment.getId());
+            }
+        } while (!tree.moreIds().isEmpty() && cycles < 10);
+
+        assertTrue(cycles <= 4, "the backlog was worked off in " + cycles + " cycles");
+        assertEquals(thread.size(), read.size());
+        CrawlCursor cursor = stateTracker.getCursor(IngestionStateTracker.threadScope(post.getId()));
+        assertEquals("t1_" + last().getId(), cursor.getNewestFullname());
+        assertNull(cursor.getBackfillFullname());
+    }
+
+    @Test
+    void backfillFloorMarksTheNewestUnexpandedComment() {
+        post(5000);
+
+        CommentTree tree = crawlCycle();
+
+        CrawlCursor cursor = stateTracker.getCursor(IngestionStateTracker.threadScope(post.getId()));
+        assertNotNull(cursor.getBackfillFullname());
+        assertEquals("t1_" + last().getId(), cursor.getNewestFullname());
+        String newestUnexpanded = tree.moreIds().stream()
+            .max((a, b) -> Long.compare(Long.parseLong(a, 36), Long.parseLong(b, 36)))
+            .orElseThrow();
+        assertEquals("t1_" + newestUnexpanded, cursor.getBackfillFullname());
+        assertEquals(thread.size() - tree.moreIds().size(), read.size());
+    }
+
+    @Test
+    void crawledThreadOnlyReadsTheDelta() {
+        post(1000);
+        assertEquals(1000, crawlCycle().comments().size());
+
+        post(30);
+        CommentTree tree = crawlCycle();
+
+        assertEquals(30, tree.comments().size());
+        assertTrue(tree.moreIds().isEmpty());
+        assertEquals(1, requests);
+    }
+
+    // One cycle of the pipeline: crawl, advance the cursor and commit
+    private CommentTree crawlCycle() {
+        requests = 0;
+        CrawlCursor current = stateTracker.getCursor(IngestionStateTracker.threadScope(post.getId()));
+        CommentTree tree = crawler.crawlNewest(post, current);
+        IngestBatch batch = new IngestBatch();
+        batch.getComments().addAll(tree.comments());
+        CrawlCursor cursor = stateTracker.advanceThread(post.getId(), tree.comments(), tree.moreIds());
+        if (cursor != null) {
+            batch.getCursors().add(cursor);
+        }
+        stateTracker.markWritten(batch);
+        tree.comments().forEach(comment -> read.add(comment.getId()));
+        return tree;
+    }
+
+    private Object respond(String path) {
+        if (path.startsWith("/comments/")) {
+            int loaded = Math.max(0, thread.size() - LOADED_COMMENTS);
+            List<RedditComment> comments = new ArrayList<>(thread.subList(loaded, thread.size()));
+            List<String> moreIds = new ArrayList<>();
+            for (int i = loaded - 1; i >= 0; i--) {
+                moreIds.add(thread.get(i).getId());
+            }
+            return new CommentTree(comments, moreIds);
+        }
+        String children = path.substring(path.indexOf("&children=") + "&children=".length());
+        List<RedditComment> comments = new ArrayList<>();
+        for (String id : Arrays.asList(children.split(","))) {
+            comments.add(thread.get((int) (Long.parseLong(id, 36) - FIRST_ID)));
+        }
+        return new CommentTree(comments, new ArrayList<>());
+    }
+
+    private void post(int count) {
+        for (int i = 0; i < count; i++) {
+            long id = FIRST_ID + thread.size();
+            RedditComment comment = new RedditComment();
+            comment.setId(Long.toString(id, 36));
+            comment.setContent("comment " + id);
+            comment.setCreatedDate(START.plusSeconds(id - FIRST_ID));
+            thread.add(comment);
+        }
+    }
+
+    private RedditComment last() {
+        return thread.get(thread.size() - 1);
+    }
+}
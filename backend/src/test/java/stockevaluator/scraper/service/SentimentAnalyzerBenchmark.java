@@ -0,0 +1,55 @@
+package stockevaluator.scraper.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.DefaultResourceLoader;
+import stockevaluator.config.SentimentProperties;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures scoring a comment with the bundled lexicon.
+ *
+ * <p>Scoring is meant to allocate nothing; run with the GC profiler, whose
+ * {@code gc.alloc.rate.norm} should stay at 0 B/op:</p>
+ * <pre>
+ * mvn test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *     -Dexec.args="-cp %classpath org.openjdk.jmh.Main SentimentAnalyzerBenchmark -prof gc"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SentimentAnalyzerBenchmark {
+
+    @Param({
+        "Sold at the bottom like a true paper hands, earnings were great but the guidance is TERRIBLE!!!",
+        "honestly the whole market is just vibes at this point, nothing makes sense anymore and I am tired",
+        "holding with diamond hands \uD83D\uDE80\uD83D\uDE80 to the moon, this is not financial advice"
+    })
+    private String text;
+
+    private SentimentAnalyzer analyzer;
+
+    @Setup
+    public void setUp() {
+        analyzer = new SentimentAnalyzer(new DefaultResourceLoader(), new SentimentProperties());
+    }
+
+    @Benchmark
+    public double score() {
+        return analyzer.score(text);
+    }
+}
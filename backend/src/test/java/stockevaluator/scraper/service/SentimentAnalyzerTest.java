@@ -0,0 +1,96 @@
+package stockevaluator.scraper.service;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+import stockevaluator.config.SentimentProperties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the VADER rules of the analyzer with the bundled lexicon.
+ */
+class SentimentAnalyzerTest {
+
+    private static SentimentAnalyzer analyzer;
+
+    @BeforeAll
+    static void setUp() {
+        analyzer = new SentimentAnalyzer(new DefaultResourceLoader(), new SentimentProperties());
+    }
+
+    @Test
+    void neutralAndEmptyTextScoreZero() {
+        assertEquals(0.0, analyzer.score(null), 0);
+        assertEquals(0.0, analyzer.score(""), 0);
+        assertEquals(0.0, analyzer.score("the meeting is on tuesday"), 0);
+    }
+
+    @Test
+    void lexiconValencesGiveTheSign() {
+        assertTrue(analyzer.score("earnings were good") > 0);
+        assertTrue(analyzer.score("earnings were bad") < 0);
+    }
+
+    @Test
+    void negationFlipsAndDampens() {
+        double good = analyzer.score("this is good");
+        double notGood = analyzer.score("this is not good");
+        assertTrue(notGood < 0, "not good scored " + notGood);
+        assertTrue(-notGood < good, "negation should dampen: " + notGood + " vs " + good);
+        assertTrue(analyzer.score("this is not bad") > 0);
+        assertTrue(analyzer.score("this doesn't look good") < 0);
+    }
+
+    @Test
+    void negationOnlyReachesThreeTokensBack() {
+        assertTrue(analyzer.score("not that I care, the quarter was really good") > 0);
+    }
+
+    @Test
+    void clauseAfterButWeighsMore() {
+        assertTrue(analyzer.score("earnings were great but the guidance is terrible") < 0);
+        assertTrue(analyzer.score("the guidance is terrible but earnings were great") > 0);
+    }
+
+    @Test
+    void capitalsEmphasiseInMixedText() {
+        double plain = analyzer.score("this is good news");
+        assertTrue(analyzer.score("this is GOOD news") > plain);
+        assertTrue(analyzer.score("this is BAD news") < analyzer.score("this is bad news"));
+    }
+
+    @Test
+    void capitalsDoNotEmphasiseShoutedText() {
+        assertEquals(analyzer.score("this is good news"), analyzer.score("THIS IS GOOD NEWS"), 1e-9);
+    }
+
+    @Test
+    void boostersStrengthenOrWeaken() {
+        double good = analyzer.score("this is good");
+        assertTrue(analyzer.score("this is very good") > good);
+        assertTrue(analyzer.score("this is slightly good") < good);
+    }
+
+    @Test
+    void exclamationMarksStrengthen() {
+        assertTrue(analyzer.score("this is good!!!") > analyzer.score("this is good"));
+    }
+
+    @Test
+    void tradingPhrasesScoreAsOneToken() {
+        assertEquals(0.0, analyzer.score("my hands are cold"), 0);
+        assertTrue(analyzer.score("sold at the bottom, paper hands") < 0);
+        assertTrue(analyzer.score("holding with diamond hands") > 0);
+        assertTrue(analyzer.score("classic rug pull") < 0);
+    }
+
+    @Test
+    void scoresStayWithinRange() {
+        double score = analyzer.score("great amazing love moon bullish ".repeat(50) + "!!!!!!");
+        assertTrue(score > 0.9 && score <= 1, "score " + score);
+        score = analyzer.score("terrible hate bad bearish ".repeat(50));
+        assertTrue(score < -0.9 && score >= -1, "score " + score);
+    }
+}
@@ -0,0 +1,77 @@
+package stockevaluator.scraper.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.DefaultResourceLoader;
+import stockevaluator.config.TickerProperties;
+import stockevaluator.scraper.util.AhoCorasick;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures one pass of the mention automaton over a comment and the full extraction built on it,
+ * with the bundled dictionary.
+ *
+ * <p>Run with the GC profiler to see the allocations per text as well:</p>
+ * <pre>
+ * mvn test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *     -Dexec.args="-cp %classpath org.openjdk.jmh.Main TickerMentionExtractorBenchmark -prof gc"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TickerMentionExtractorBenchmark {
+
+    @Param({
+        "Thinking about loading up on NVDA and $TSLA before earnings, what do you all think about AMD here?",
+        "honestly the whole market is just vibes at this point, nothing makes sense anymore and I am tired",
+        "BUY GME AND TSLA NOW BEFORE IT IS TOO LATE, Papa Powell will pump it and the mouse is cooked anyway"
+    })
+    private String text;
+
+    private TickerDictionary dictionary;
+    private TickerMentionExtractor extractor;
+
+    @Setup
+    public void setUp() {
+        TickerProperties properties = new TickerProperties();
+        dictionary = new TickerDictionary(new DefaultResourceLoader(), properties);
+        extractor = new TickerMentionExtractor(dictionary, properties);
+    }
+
+    @Benchmark
+    public int scan() {
+        MatchCounter counter = new MatchCounter();
+        dictionary.getMentionMatcher().scan(text, counter);
+        return counter.matches;
+    }
+
+    @Benchmark
+    public Set<String> extract() {
+        return extractor.extract(text);
+    }
+
+    private static final class MatchCounter implements AhoCorasick.MatchHandler {
+
+        private int matches;
+
+        @Override
+        public void onMatch(int pattern, int start, int end) {
+            matches++;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package stockevaluator.scraper.service;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+import stockevaluator.config.TickerProperties;
+import stockevaluator.scraper.util.ResourceLines;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the extractor against a labelled corpus of posts and comments covering cashtags, bare
+ * symbols, stop words, aliases and shouted text, using the bundled symbol, stop word and alias
+ * files.
+ */
+class TickerMentionExtractorTest {
+
+    private static final String CORPUS = "classpath:tickers/mention-corpus.txt";
+    private static final double MIN_PRECISION = 0.95;
+    private static final double MIN_RECALL = 0.95;
+
+    private static TickerMentionExtractor extractor;
+    private static Map<String, List<Sample>> corpus;
+
+    @BeforeAll
+    static void setUp() {
+        DefaultResourceLoader resourceLoader = new DefaultResourceLoader();
+        TickerProperties properties = new TickerProperties();
+        extractor = new TickerMentionExtractor(new TickerDictionary(resourceLoader, properties), properties);
+        corpus = readCorpus(resourceLoader);
+    }
+
+    @Test
+    void corpusPrecisionAndRecall() {
+        Score total = new Score();
+        List<String> misses = new ArrayList<>();
+        corpus.forEach((section, samples) -> {
+            for (Sample sample : samples) {
+                Set<String> extracted = extractor.extract(sample.text());
+                total.add(sample.expected(), extracted);
+                if (!extracted.equals(sample.expected())) {
+                    misses.add(section + ": \"" + sample.text() + "\" expected " + sample.expected() + " got "
+                        + new TreeSet<>(extracted));
+                }
+            }
+        });
+        assertTrue(total.precision() >= MIN_PRECISION,
+            () -> "precision " + total.precision() + " below " + MIN_PRECISION + ", misses " + misses);
+        assertTrue(total.recall() >= MIN_RECALL,
+            () -> "recall " + total.recall() + " below " + MIN_RECALL + ", misses " + misses);
+    }
+
+    @Test
+    void corpusCoversEverySection() {
+        assertEquals(Set.of("cashtags", "bare symbols", "stop words", "aliases", "shouting"), corpus.keySet());
+    }
+
+    @Test
+    void cashtagsCountInAnyCase() {
+        assertEquals(Set.of("TSLA"), extractor.extract("$tsla and $TSLA and $Tsla"));
+    }
+
+    @Test
+    void stopWordsOnlyCountAsCashtags() {
+        assertEquals(Set.of(), extractor.extract("CAT is DD, not a ticker"));
+        assertEquals(Set.of("CAT"), extractor.extract("bought $CAT today"));
+    }
+
+    @Test
+    void bareSymbolsMustBeCapitalWholeWords() {
+        assertEquals(Set.of(), extractor.extract("tsla, xAMD and AMDX"));
+        assertEquals(Set.of("NVDA", "AMD"), extractor.extract("NVDA, AMD."));
+    }
+
+    @Test
+    void capitalisedAliasesNeedTheirForm() {
+        assertEquals(Set.of("TGT"), extractor.extract("Target beat earnings"));
+        assertEquals(Set.of(), extractor.extract("my target is 300"));
+    }
+
+    @Test
+    void shoutingDropsShortBareSymbols() {
+        assertEquals(Set.of("NVDA"), extractor.extract("WHY IS NVDA DUMPING AND ON AND ON"));
+        assertEquals(Set.of("ON", "NVDA"), extractor.extract("WHY IS NVDA DUMPING AND $ON TOO"));
+    }
+
+    @Test
+    void emptyTextHasNoMentions() {
+        assertEquals(Set.of(), extractor.extract(null));
+        assertEquals(Set.of(), extractor.extract(""));
+    }
+
+    private static Map<String, List<Sample>> readCorpus(DefaultResourceLoader resourceLoader) {
+        Map<String, List<Sample>> samples = new LinkedHashMap<>();
+        List<Sample> section = null;
+        for (String line : ResourceLines.read(resourceLoader, CORPUS)) {
+            if (line.startsWith("[") && line.endsWith("]")) {
+                section = samples.computeIfAbsent(line.substring(1, line.length() - 1), name -> new ArrayList<>());
+                continue;
+            }
+            int separator = line.indexOf('|');
+            Set<String> expected = new TreeSet<>();
+            Arrays.stream(line.substring(0, separator).split(",")).map(String::trim)
+                .filter(symbol -> !symbol.isEmpty()).forEach(expected::add);
+            section.add(new Sample(expected, line.substring(separator + 1).trim()));
+        }
+        return samples;
+    }
+
+    private record Sample(Set<String> expected, String text) {
+    }
+
+    private static final class Score {
+
+        private int truePositives;
+        private int falsePositives;
+        private int falseNegatives;
+
+        void add(Set<String> expected, Set<String> extracted) {
+            for (String symbol : extracted) {
+                if (expected.contains(symbol)) {
+                    truePositives++;
+                } else {
+                    falsePositives++;
+                }
+            }
+            for (String symbol : expected) {
+                if (!extracted.contains(symbol)) {
+                    falseNegatives++;
+                }
+            }
+        }
+
+        double precision() {
+            return truePositives + falsePositives == 0 ? 1 : (double) truePositives / (truePositives + falsePositives);
+        }
+
+        double recall() {
+            return truePositives + falseNegatives == 0 ? 1 : (double) truePositives / (truePositives + falseNegatives);
+        }
+    }
+}
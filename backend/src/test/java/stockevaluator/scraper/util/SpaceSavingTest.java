@@ -0,0 +1,75 @@
+package stockevaluator.scraper.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that counts stay within their bounds, also after merging and encoding summaries.
+ */
+class SpaceSavingTest {
+
+    @Test
+    void countsAreExactWhileCountersAreFree() {
+        SpaceSaving counter = new SpaceSaving(4);
+        counter.add("TSLA", 3);
+        counter.add("NVDA", 1);
+        counter.add("TSLA", 1);
+        SpaceSaving.Summary summary = counter.summary();
+        assertEquals(0, summary.floor());
+        assertEquals(List.of(new SpaceSaving.Entry("TSLA", 4, 4), new SpaceSaving.Entry("NVDA", 1, 1)),
+            summary.top(10));
+    }
+
+    @Test
+    void mergedEstimatesBoundTheTrueCounts() {
+        Random random = new Random(42);
+        Map<String, Long> truth = new HashMap<>();
+        List<SpaceSaving.Summary> panes = new ArrayList<>();
+        for (int pane = 0; pane < 8; pane++) {
+            SpaceSaving counter = new SpaceSaving(16);
+            for (int i = 0; i < 2_000; i++) {
+                // A skewed stream over 200 keys whose order differs between panes
+                String key = "K" + (int) Math.floor(Math.pow(random.nextDouble(), 3) * 200 + pane * 7) % 200;
+                counter.add(key, 1);
+                truth.merge(key, 1L, Long::sum);
+            }
+            panes.add(counter.summary());
+        }
+        SpaceSaving.Summary merged = SpaceSaving.Summary.merge(panes);
+        for (SpaceSaving.Entry entry : merged.top(Integer.MAX_VALUE)) {
+            long actual = truth.getOrDefault(entry.key(), 0L);
+            assertTrue(entry.estimate() >= actual, entry + " below the true count " + actual);
+            assertTrue(entry.guaranteed() <= actual, entry + " above the true count " + actual);
+        }
+        List<String> listed = merged.top(Integer.MAX_VALUE).stream().map(SpaceSaving.Entry::key).toList();
+        truth.forEach((key, count) -> assertTrue(listed.contains(key) || count <= merged.floor(),
+            key + " with " + count + " is neither listed nor below the floor " + merged.floor()));
+    }
+
+    @Test
+    void encodingKeepsTheBound() {
+        SpaceSaving counter = new SpaceSaving(8);
+        for (int i = 0; i < 8; i++) {
+            counter.add("K" + i, 10 - i);
+        }
+        SpaceSaving.Summary decoded = SpaceSaving.Summary.decode(counter.summary().encode(3));
+        assertEquals(3, decoded.top(10).size());
+        assertEquals(7, decoded.floor());
+        assertEquals(10, decoded.top(1).get(0).estimate());
+    }
+
+    @Test
+    void decodesSummariesWithoutFloor() {
+        SpaceSaving.Summary decoded = SpaceSaving.Summary.decode("TSLA:5:4,NVDA:2:2");
+        assertEquals(0, decoded.floor());
+        assertEquals(new SpaceSaving.Entry("TSLA", 5, 4), decoded.top(1).get(0));
+    }
+}